@@ -64,7 +64,8 @@ import no.nb.sesam.ni.niserver.authorisation.AcceptHandler;
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringApplicationConfiguration(classes = { TestConfig.class,
         RibbonClientConfiguration.class, TestNiConfig.class })
-@WebIntegrationTest("server.port: 0")
+@WebIntegrationTest({"server.port: 0", "cache.mods.maximumSize: 0", "cache.indexDocument.maximumSize: 0",
+        "cache.browseSearch.maximumSize: 0", "cache.querySearch.maximumSize: 0", "cache.aggregations.maximumSize: 0"})
 public class ItemControllerIT {
     Logger logger = LoggerFactory.getLogger(ItemControllerIT.class);
     
@@ -192,7 +193,7 @@ public class ItemControllerIT {
             public MockResponse dispatch(RecordedRequest request)
                     throws InterruptedException {
                 System.out.println(request.getPath());
-                if (request.getPath().equals("/catalog/v1/metadata/id1/mods?X-Original-IP-Fra-Frontend=123.45.100.1&amsso=token")) {
+                if (request.getPath().equals("/catalog/v1/metadata/id1/mods")) {
                     return new MockResponse().setBody(TestMods.aDefaultBookModsXml())
                             .setResponseCode(200)
                             .setHeader("Content-Type", "application/xml");
@@ -200,7 +201,7 @@ public class ItemControllerIT {
                     return new MockResponse().setBody(TestFields.aDefaultBookJson())
                             .setResponseCode(200)
                             .setHeader("Content-Type", "application/json");
-                } else if (request.getPath().equals("/catalog/v1/search?q=sesamid%3Aid1&page=0&size=1&grouping=false&explain=false&X-Original-IP-Fra-Frontend=123.45.100.1&amsso=token")) {
+                } else if (request.getPath().equals("/catalog/v1/search?q=sesamid%3Aid1&page=0&size=1&grouping=false&explain=false")) {
                     return new MockResponse().setBody(searchResource)
                             .setResponseCode(200)
                             .setHeader("Content-Type", "application/json");
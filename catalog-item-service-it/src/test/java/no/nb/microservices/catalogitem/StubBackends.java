@@ -0,0 +1,64 @@
+package no.nb.microservices.catalogitem;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import no.nb.microservices.catalogmetadata.test.model.fields.TestFields;
+import no.nb.microservices.catalogmetadata.test.mods.v3.TestMods;
+
+/**
+ * Stands in for the search index, metadata and content search services
+ * when benchmarking, see test-plans/threadmode.jmx. Every response is
+ * delayed to make the calls block like the real services do.
+ *
+ * Usage: StubBackends [port] [delay in ms]
+ */
+public class StubBackends {
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8090;
+        long delay = args.length > 1 ? Long.parseLong(args[1]) : 50;
+
+        String searchResult = IOUtils.toString(StubBackends.class.getResourceAsStream("catalog-search-index-service.json"));
+        String searchResultWithAggregations = IOUtils.toString(StubBackends.class.getResourceAsStream("catalog-search-index-service-aggregations.json"));
+        String searchResource = IOUtils.toString(StubBackends.class.getResourceAsStream("/no/nb/microservices/catalogitem/searchResource.json"));
+        String contentSearchResult = IOUtils.toString(StubBackends.class.getResourceAsStream("catalog-iiif-content-service.json"));
+        String mods = TestMods.aDefaultBookModsXml();
+        String fields = TestFields.aDefaultBookJson();
+
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                TimeUnit.MILLISECONDS.sleep(delay);
+                String path = request.getPath();
+                if (path.contains("/mods")) {
+                    return response(mods, "application/xml");
+                } else if (path.contains("/fields")) {
+                    return response(fields, "application/json");
+                } else if (path.startsWith("/catalog/v1/contentsearch/")) {
+                    return response(contentSearchResult, "application/hal+json");
+                } else if (path.startsWith("/catalog/v1/search?q=sesamid")) {
+                    return response(searchResource, "application/json");
+                } else if (path.startsWith("/catalog/v1/search") && path.contains("aggs=")) {
+                    return response(searchResultWithAggregations, "application/hal+json");
+                } else if (path.startsWith("/catalog/v1/search")) {
+                    return response(searchResult, "application/hal+json");
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        server.start(port);
+    }
+
+    private static MockResponse response(String body, String contentType) {
+        return new MockResponse().setBody(body).setResponseCode(200).setHeader("Content-Type", contentType);
+    }
+}
@@ -0,0 +1,40 @@
+package no.nb.microservices.catalogitem.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * The result for one id of a bulk request. The item is left out unless
+ * the status is OK.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"id", "status", "item"})
+public class BulkItemResource {
+    private String id;
+    private String status;
+    private ItemResource item;
+
+    public BulkItemResource() {
+    }
+
+    public BulkItemResource(String id, String status, ItemResource item) {
+        this.id = id;
+        this.status = status;
+        this.item = item;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * OK, NOT_FOUND or FAILED.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public ItemResource getItem() {
+        return item;
+    }
+}
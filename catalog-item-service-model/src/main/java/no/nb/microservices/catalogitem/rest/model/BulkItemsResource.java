@@ -0,0 +1,22 @@
+package no.nb.microservices.catalogitem.rest.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkItemsResource {
+    private List<BulkItemResource> items = new ArrayList<>();
+
+    public BulkItemsResource() {
+    }
+
+    public BulkItemsResource(List<BulkItemResource> items) {
+        this.items = items;
+    }
+
+    /**
+     * One result per requested id, in the order of the request.
+     */
+    public List<BulkItemResource> getItems() {
+        return items;
+    }
+}
@@ -3,6 +3,7 @@ package no.nb.microservices.catalogitem.rest.model;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.ResourceSupport;
@@ -13,6 +14,12 @@ public class ItemSearchResource extends ResourceSupport {
     private PagedResources.PageMetadata metadata;
     @JsonProperty("_embedded")
     private EmbeddedWrapper wrapper = new EmbeddedWrapper();
+    @JsonProperty("status")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String status;
+    @JsonProperty("droppedContentSearches")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer droppedContentSearches;
 
     @JsonCreator
     public ItemSearchResource() {
@@ -33,4 +40,30 @@ public class ItemSearchResource extends ResourceSupport {
         return wrapper;
     }
 
-}
\ No newline at end of file
+    /**
+     * Only set when the result is incomplete, e.g. a super search section
+     * that timed out.
+     */
+    @JsonIgnore
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Only set when content search snippets were left out because they
+     * were not ready in time.
+     */
+    @JsonIgnore
+    public Integer getDroppedContentSearches() {
+        return droppedContentSearches;
+    }
+
+    public void setDroppedContentSearches(Integer droppedContentSearches) {
+        this.droppedContentSearches = droppedContentSearches;
+    }
+
+}
@@ -1,9 +1,84 @@
 package no.nb.microservices.catalogitem.config;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 
+import no.nb.microservices.catalogitem.core.executor.BoundedExecutor;
+import no.nb.microservices.catalogitem.core.executor.Bulkhead;
+import no.nb.microservices.catalogitem.core.executor.VirtualThreadExecutor;
+
+/**
+ * Every downstream service gets its own bounded executor, so a slow one
+ * cannot take the threads the others need. The @Async methods name the
+ * executor they run on.
+ *
+ * The executors are plain ExecutorServices and not Spring TaskExecutors,
+ * so @Async never picks one of them as its default executor.
+ *
+ * A full executor rejects the task instead of running it on the caller, so
+ * a saturated downstream service never takes the request threads. The
+ * rejection fails the future of the call, and the caller takes the same
+ * fallback as when the call fails.
+ *
+ * With executors.virtualThreads the access, content search and index
+ * executors run their tasks on virtual threads. MODS keeps running in its
+ * Hystrix thread pool.
+ *
+ * Item hydration has no executor of its own, as it only composes the
+ * futures of the calls above and runs on the threads completing them.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
+
+    @Autowired
+    private ExecutorSettings executorSettings;
+
+    /**
+     * Runs the access checks of NiSecurityService. A rejected check is
+     * denied.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead accessExecutor() {
+        return createExecutor("access", executorSettings.getAccess());
+    }
+
+    /**
+     * Runs the content searches for newspaper snippets. A rejected snippet
+     * is counted as dropped.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead contentSearchExecutor() {
+        return createExecutor("contentSearch", executorSettings.getContentSearch());
+    }
+
+    /**
+     * Runs the index lookups. A rejected lookup fails its item, like a
+     * failed one.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead indexExecutor() {
+        return createExecutor("index", executorSettings.getIndex());
+    }
+
+    /**
+     * Runs the media type sections of super searches. Sections beyond the
+     * queue are rejected rather than run by the caller, so a super search
+     * never blocks past its deadline.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public BoundedExecutor superSearchExecutor(SuperSearchSettings settings) {
+        return new BoundedExecutor("superSearch", settings.getMaxConcurrentSections(), settings.getQueueSize(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private Bulkhead createExecutor(String name, ExecutorSettings.Spec spec) {
+        if (executorSettings.isVirtualThreads()) {
+            return new VirtualThreadExecutor(name, executorSettings.getVirtualThreadConcurrency());
+        }
+        return new BoundedExecutor(name, spec.getThreads(), spec.getQueueSize(), new ThreadPoolExecutor.AbortPolicy());
+    }
 }
@@ -0,0 +1,23 @@
+package no.nb.microservices.catalogitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix="bulk")
+public class BulkSettings {
+
+    /**
+     * Max number of ids in one bulk request.
+     */
+    private int maxIds = 100;
+
+    public int getMaxIds() {
+        return maxIds;
+    }
+
+    public void setMaxIds(int maxIds) {
+        this.maxIds = maxIds;
+    }
+
+}
@@ -0,0 +1,78 @@
+package no.nb.microservices.catalogitem.config;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import no.nb.microservices.catalogcontentsearch.rest.model.Hit;
+import no.nb.microservices.catalogitem.core.cache.Cache;
+import no.nb.microservices.catalogitem.core.cache.LocalCache;
+import no.nb.microservices.catalogitem.core.cache.SingleFlight;
+import no.nb.microservices.catalogitem.core.content.service.ContentSearchCacheKey;
+import no.nb.microservices.catalogitem.core.index.model.SearchResult;
+import no.nb.microservices.catalogitem.core.index.service.SearchCacheKey;
+import no.nb.microservices.catalogitem.core.item.service.ItemFetchKey;
+import no.nb.microservices.catalogitem.core.metadata.service.ModsCacheKey;
+import no.nb.microservices.catalogitem.core.security.repository.AccessCacheKey;
+import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
+import no.nb.microservices.catalogsearchindex.ItemResource;
+
+@Configuration
+public class CacheConfig {
+
+    @Autowired
+    private CacheSettings cacheSettings;
+
+    @Bean
+    public Cache<ModsCacheKey, Mods> modsCache() {
+        return createCache("mods", cacheSettings.getMods());
+    }
+
+    @Bean
+    public Cache<AccessCacheKey, Boolean> accessCache() {
+        return createCache("access", cacheSettings.getAccess());
+    }
+
+    @Bean
+    public Cache<ContentSearchCacheKey, Optional<Hit>> contentSearchCache() {
+        return createCache("contentSearch", cacheSettings.getContentSearch());
+    }
+
+    @Bean
+    public Cache<String, ItemResource> indexDocumentCache() {
+        return createCache("indexDocument", cacheSettings.getIndexDocument());
+    }
+
+    @Bean
+    public Cache<SearchCacheKey, SearchResult> browseSearchCache() {
+        return createCache("browseSearch", cacheSettings.getBrowseSearch());
+    }
+
+    @Bean
+    public Cache<SearchCacheKey, SearchResult> querySearchCache() {
+        return createCache("querySearch", cacheSettings.getQuerySearch());
+    }
+
+    @Bean
+    public Cache<SearchCacheKey, SearchResult> aggregationsCache() {
+        return createCache("aggregations", cacheSettings.getAggregations());
+    }
+
+    @Bean
+    public SingleFlight<ItemFetchKey, ItemResource> itemResourceFlight() {
+        return new SingleFlight<>("itemResource");
+    }
+
+    @Bean
+    public SingleFlight<ItemFetchKey, Mods> modsFlight() {
+        return new SingleFlight<>("mods");
+    }
+
+    private <K, V> Cache<K, V> createCache(String name, CacheSettings.Spec spec) {
+        return new LocalCache<>(name, spec.getMaximumSize(), spec.getTimeToLiveSeconds(),
+                spec.getStaleWhileRevalidateSeconds(), spec.getStaleIfErrorSeconds(), TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,150 @@
+package no.nb.microservices.catalogitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix="cache")
+public class CacheSettings {
+
+    private Spec mods = new Spec(10000, 600, 300, 86400);
+    private Spec access = new Spec(10000, 60, 0, 300);
+    private Spec contentSearch = new Spec(10000, 300);
+    private Spec indexDocument = new Spec(10000, 300);
+    private Spec browseSearch = new Spec(200, 300);
+    private Spec querySearch = new Spec(500, 60);
+    private Spec aggregations = new Spec(500, 300);
+
+    public Spec getMods() {
+        return mods;
+    }
+
+    public void setMods(Spec mods) {
+        this.mods = mods;
+    }
+
+    public Spec getAccess() {
+        return access;
+    }
+
+    public void setAccess(Spec access) {
+        this.access = access;
+    }
+
+    public Spec getContentSearch() {
+        return contentSearch;
+    }
+
+    public void setContentSearch(Spec contentSearch) {
+        this.contentSearch = contentSearch;
+    }
+
+    public Spec getIndexDocument() {
+        return indexDocument;
+    }
+
+    public void setIndexDocument(Spec indexDocument) {
+        this.indexDocument = indexDocument;
+    }
+
+    /**
+     * Searches that match everything and narrow by filters only.
+     */
+    public Spec getBrowseSearch() {
+        return browseSearch;
+    }
+
+    public void setBrowseSearch(Spec browseSearch) {
+        this.browseSearch = browseSearch;
+    }
+
+    /**
+     * Free text searches.
+     */
+    public Spec getQuerySearch() {
+        return querySearch;
+    }
+
+    public void setQuerySearch(Spec querySearch) {
+        this.querySearch = querySearch;
+    }
+
+    public Spec getAggregations() {
+        return aggregations;
+    }
+
+    public void setAggregations(Spec aggregations) {
+        this.aggregations = aggregations;
+    }
+
+    public static class Spec {
+
+        /**
+         * Max number of entries, 0 disables the cache.
+         */
+        private int maximumSize;
+
+        private long timeToLiveSeconds;
+
+        /**
+         * How long after its time to live an entry is still served, while
+         * it is refreshed in the background. 0 refreshes before answering.
+         */
+        private long staleWhileRevalidateSeconds;
+
+        /**
+         * How long after its time to live an entry is served instead of the
+         * fallback when refreshing it fails. 0 always falls back.
+         */
+        private long staleIfErrorSeconds;
+
+        public Spec() {
+            super();
+        }
+
+        public Spec(int maximumSize, long timeToLiveSeconds) {
+            this(maximumSize, timeToLiveSeconds, 0, 0);
+        }
+
+        public Spec(int maximumSize, long timeToLiveSeconds, long staleWhileRevalidateSeconds, long staleIfErrorSeconds) {
+            super();
+            this.maximumSize = maximumSize;
+            this.timeToLiveSeconds = timeToLiveSeconds;
+            this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+            this.staleIfErrorSeconds = staleIfErrorSeconds;
+        }
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getStaleWhileRevalidateSeconds() {
+            return staleWhileRevalidateSeconds;
+        }
+
+        public void setStaleWhileRevalidateSeconds(long staleWhileRevalidateSeconds) {
+            this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+        }
+
+        public long getStaleIfErrorSeconds() {
+            return staleIfErrorSeconds;
+        }
+
+        public void setStaleIfErrorSeconds(long staleIfErrorSeconds) {
+            this.staleIfErrorSeconds = staleIfErrorSeconds;
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package no.nb.microservices.catalogitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix="executors")
+public class ExecutorSettings {
+
+    /**
+     * Runs access checks, content searches and index lookups on virtual
+     * threads instead of the thread pools below. Needs Java 21 or later.
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * Max number of tasks running at the same time on each virtual thread
+     * executor.
+     */
+    private int virtualThreadConcurrency = 1000;
+
+    private Spec access = new Spec(20, 500);
+    private Spec contentSearch = new Spec(20, 200);
+    private Spec index = new Spec(20, 500);
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getVirtualThreadConcurrency() {
+        return virtualThreadConcurrency;
+    }
+
+    public void setVirtualThreadConcurrency(int virtualThreadConcurrency) {
+        this.virtualThreadConcurrency = virtualThreadConcurrency;
+    }
+
+    public Spec getAccess() {
+        return access;
+    }
+
+    public void setAccess(Spec access) {
+        this.access = access;
+    }
+
+    public Spec getContentSearch() {
+        return contentSearch;
+    }
+
+    public void setContentSearch(Spec contentSearch) {
+        this.contentSearch = contentSearch;
+    }
+
+    public Spec getIndex() {
+        return index;
+    }
+
+    public void setIndex(Spec index) {
+        this.index = index;
+    }
+
+    public static class Spec {
+
+        private int threads;
+
+        /**
+         * Max number of tasks waiting for a thread.
+         */
+        private int queueSize;
+
+        public Spec() {
+            super();
+        }
+
+        public Spec(int threads, int queueSize) {
+            super();
+            this.threads = threads;
+            this.queueSize = queueSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package no.nb.microservices.catalogitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix="metadata")
+public class MetadataSettings {
+
+    /**
+     * Gets the MODS of many items with POST /catalog/v1/metadata/mods.
+     * Only turn on against a metadata service that has it.
+     */
+    private boolean bulkMods = false;
+
+    /**
+     * Max number of ids in one bulk MODS request.
+     */
+    private int maxIdsPerBulkRequest = 100;
+
+    /**
+     * Max number of single MODS requests running at the same time for one
+     * batch, when not getting them in bulk.
+     */
+    private int maxConcurrentRequests = 8;
+
+    public boolean isBulkMods() {
+        return bulkMods;
+    }
+
+    public void setBulkMods(boolean bulkMods) {
+        this.bulkMods = bulkMods;
+    }
+
+    public int getMaxIdsPerBulkRequest() {
+        return maxIdsPerBulkRequest;
+    }
+
+    public void setMaxIdsPerBulkRequest(int maxIdsPerBulkRequest) {
+        this.maxIdsPerBulkRequest = maxIdsPerBulkRequest;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+}
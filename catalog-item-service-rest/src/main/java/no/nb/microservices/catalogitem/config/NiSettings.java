@@ -9,6 +9,12 @@ public class NiSettings {
     
     private String[] servers = {};
 
+    /**
+     * How long a bulk access check waits for NI before the ids not yet
+     * answered get their last known decision.
+     */
+    private long bulkTimeoutMillis = 1000;
+
     public String[] getServers() {
         return servers;
     }
@@ -17,4 +23,12 @@ public class NiSettings {
         this.servers = servers;
     }
 
+    public long getBulkTimeoutMillis() {
+        return bulkTimeoutMillis;
+    }
+
+    public void setBulkTimeoutMillis(long bulkTimeoutMillis) {
+        this.bulkTimeoutMillis = bulkTimeoutMillis;
+    }
+
 }
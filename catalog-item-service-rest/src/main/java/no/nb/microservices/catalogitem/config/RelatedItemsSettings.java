@@ -0,0 +1,37 @@
+package no.nb.microservices.catalogitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix="relatedItems")
+public class RelatedItemsSettings {
+
+    /**
+     * How many levels of related items are expanded. 1 expands the related
+     * items of the requested item only.
+     */
+    private int maxDepth = 1;
+
+    /**
+     * Max number of related items resolved for a single item.
+     */
+    private int maxFanOut = 100;
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxFanOut() {
+        return maxFanOut;
+    }
+
+    public void setMaxFanOut(int maxFanOut) {
+        this.maxFanOut = maxFanOut;
+    }
+
+}
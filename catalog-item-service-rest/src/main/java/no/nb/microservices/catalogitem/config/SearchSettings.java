@@ -0,0 +1,52 @@
+package no.nb.microservices.catalogitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix="search")
+public class SearchSettings {
+
+    /**
+     * blocking hydrates a page with SearchServiceImpl, all items at once,
+     * and reactive with ReactiveSearchService, a bounded number at a time.
+     */
+    private String mode = "blocking";
+
+    /**
+     * Max number of items of one page hydrated at the same time in reactive
+     * mode.
+     */
+    private int maxConcurrentItems = 16;
+
+    /**
+     * Max number of content searches of one newspaper section running at
+     * the same time in reactive mode.
+     */
+    private int maxConcurrentContentSearches = 8;
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public int getMaxConcurrentItems() {
+        return maxConcurrentItems;
+    }
+
+    public void setMaxConcurrentItems(int maxConcurrentItems) {
+        this.maxConcurrentItems = maxConcurrentItems;
+    }
+
+    public int getMaxConcurrentContentSearches() {
+        return maxConcurrentContentSearches;
+    }
+
+    public void setMaxConcurrentContentSearches(int maxConcurrentContentSearches) {
+        this.maxConcurrentContentSearches = maxConcurrentContentSearches;
+    }
+
+}
@@ -0,0 +1,66 @@
+package no.nb.microservices.catalogitem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix="superSearch")
+public class SuperSearchSettings {
+
+    /**
+     * Max number of media type sections searched at the same time, shared
+     * by all super searches.
+     */
+    private int maxConcurrentSections = 16;
+
+    /**
+     * Max number of sections waiting for a free thread before new sections
+     * are rejected.
+     */
+    private int queueSize = 100;
+
+    /**
+     * How long a super search waits for its sections. Sections not done by
+     * then are returned empty.
+     */
+    private long timeoutMillis = 5000;
+
+    /**
+     * How long the newspaper section waits for content search snippets.
+     * Snippets not ready by then are left out.
+     */
+    private long contentSearchTimeoutMillis = 1000;
+
+    public int getMaxConcurrentSections() {
+        return maxConcurrentSections;
+    }
+
+    public void setMaxConcurrentSections(int maxConcurrentSections) {
+        this.maxConcurrentSections = maxConcurrentSections;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getContentSearchTimeoutMillis() {
+        return contentSearchTimeoutMillis;
+    }
+
+    public void setContentSearchTimeoutMillis(long contentSearchTimeoutMillis) {
+        this.contentSearchTimeoutMillis = contentSearchTimeoutMillis;
+    }
+
+}
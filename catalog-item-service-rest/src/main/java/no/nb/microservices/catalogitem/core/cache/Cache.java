@@ -0,0 +1,47 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+import java.util.function.Predicate;
+
+/**
+ * A local, in-memory cache of downstream responses.
+ */
+public interface Cache<K, V> {
+
+    String getName();
+
+    /**
+     * @return the cached value, or null when the key is missing or expired
+     */
+    V getIfPresent(K key);
+
+    /**
+     * A value whose time to live has passed, but within the stale while
+     * revalidate window. The caller serves it and refreshes it.
+     *
+     * @return the value, or null when the key is missing, fresh or too old
+     */
+    V getStaleWhileRevalidate(K key);
+
+    /**
+     * The last known good value, fresh or within the stale if error window.
+     * The caller serves it when fetching a new one fails.
+     *
+     * @return the value, or null when the key is missing or too old
+     */
+    V getStaleIfError(K key);
+
+    /**
+     * Offers a value to the cache. The cache may decline to store it when it
+     * is full and the key is not requested often enough to replace another.
+     */
+    void put(K key, V value);
+
+    void invalidate(K key);
+
+    void invalidateAll();
+
+    void invalidateIf(Predicate<? super K> predicate);
+
+    CacheStats getStats();
+
+}
@@ -0,0 +1,46 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the stats of every cache bean on the metrics endpoint as
+ * cache.{name}.{stat}.
+ */
+@Component
+public class CachePublicMetrics implements PublicMetrics {
+
+    private final List<Cache<?, ?>> caches;
+
+    @Autowired
+    public CachePublicMetrics(List<Cache<?, ?>> caches) {
+        super();
+        this.caches = caches;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<>();
+        for (Cache<?, ?> cache : caches) {
+            CacheStats stats = cache.getStats();
+            String prefix = "cache." + cache.getName() + ".";
+            metrics.add(new Metric<Long>(prefix + "size", stats.getSize()));
+            metrics.add(new Metric<Long>(prefix + "hits", stats.getHits()));
+            metrics.add(new Metric<Long>(prefix + "misses", stats.getMisses()));
+            metrics.add(new Metric<Long>(prefix + "evictions", stats.getEvictions()));
+            metrics.add(new Metric<Long>(prefix + "expirations", stats.getExpirations()));
+            metrics.add(new Metric<Long>(prefix + "rejections", stats.getRejections()));
+            metrics.add(new Metric<Long>(prefix + "staleWhileRevalidateHits", stats.getStaleWhileRevalidateHits()));
+            metrics.add(new Metric<Long>(prefix + "staleIfErrorHits", stats.getStaleIfErrorHits()));
+            metrics.add(new Metric<Double>(prefix + "hitRatio", stats.getHitRatio()));
+        }
+        return metrics;
+    }
+
+}
@@ -0,0 +1,84 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+public class CacheStats {
+
+    private final long size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long rejections;
+    private final long staleWhileRevalidateHits;
+    private final long staleIfErrorHits;
+
+    public CacheStats(long size, long hits, long misses, long evictions, long expirations, long rejections) {
+        this(size, hits, misses, evictions, expirations, rejections, 0, 0);
+    }
+
+    public CacheStats(long size, long hits, long misses, long evictions, long expirations, long rejections,
+            long staleWhileRevalidateHits, long staleIfErrorHits) {
+        super();
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.rejections = rejections;
+        this.staleWhileRevalidateHits = staleWhileRevalidateHits;
+        this.staleIfErrorHits = staleIfErrorHits;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Entries removed to make room for new ones.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Entries removed because their time to live had passed.
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * New entries not admitted because they were requested less often than
+     * the entry they would have replaced.
+     */
+    public long getRejections() {
+        return rejections;
+    }
+
+    /**
+     * Stale values served while they were refreshed.
+     */
+    public long getStaleWhileRevalidateHits() {
+        return staleWhileRevalidateHits;
+    }
+
+    /**
+     * Stale values served because refreshing them failed.
+     */
+    public long getStaleIfErrorHits() {
+        return staleIfErrorHits;
+    }
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+}
@@ -0,0 +1,75 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+/**
+ * Approximate access frequencies in a count-min sketch of 4 bit counters.
+ * All counters are halved once enough accesses have been recorded, so old
+ * popularity fades out.
+ *
+ * Not thread safe, the owning cache guards it.
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = { 0x97cb3127, 0x3ade68b1, 0x6b8b4567, 0x2f4e9c13 };
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedSize) {
+        int width = tableSizeFor(Math.max(expectedSize, 64));
+        this.table = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = indexOf(hash, i);
+            if (table[i][index] < MAX_COUNT) {
+                table[i][index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, table[i][indexOf(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (byte[] row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >>> 1);
+            }
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x85ebca6b;
+        return h ^ (h >>> 13);
+    }
+
+    private static int tableSizeFor(int size) {
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+}
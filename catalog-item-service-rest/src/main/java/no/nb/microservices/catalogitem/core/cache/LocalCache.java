@@ -0,0 +1,353 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A size bounded cache whose entries expire a fixed time after they were
+ * written. Expired entries are kept for as long as the longer of the stale
+ * windows, for the callers to serve while revalidating or when the source
+ * fails.
+ *
+ * Entries are kept in least recently used order. When the cache is full a
+ * new entry only replaces the least recently used one if its key has been
+ * requested more often, so a burst of keys requested only once cannot push
+ * out the popular ones.
+ *
+ * Reads do not lock. They look the entry up in a concurrent map and leave
+ * the key in a read buffer of their thread's stripe. The buffered reads
+ * are applied to the recency order and the frequency sketch under the
+ * eviction lock, by a reader that finds a buffer filling up and the lock
+ * free, and by every write before it decides what to evict.
+ */
+public class LocalCache<K, V> implements Cache<K, V> {
+
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = ReadBuffer.SIZE / 4;
+
+    private final String name;
+    private final int maximumSize;
+    private final long timeToLive;
+    private final long staleWhileRevalidate;
+    private final long staleIfError;
+    private final LongSupplier ticker;
+    private final ConcurrentHashMap<K, Node<K, V>> entries;
+    private final ReadBuffer[] readBuffers;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Guarded by the eviction lock, like the links of the nodes. The node
+     * after it is the least recently used, the one before it the most.
+     */
+    private final Node<K, V> order = new Node<>(null, null);
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder staleWhileRevalidateHits = new LongAdder();
+    private final LongAdder staleIfErrorHits = new LongAdder();
+
+    /**
+     * @param maximumSize max number of entries, 0 disables the cache
+     */
+    public LocalCache(String name, int maximumSize, long timeToLive, TimeUnit unit) {
+        this(name, maximumSize, timeToLive, 0, 0, unit);
+    }
+
+    /**
+     * @param staleWhileRevalidate how long after its time to live an entry
+     * may be served while it is refreshed
+     * @param staleIfError how long after its time to live an entry may be
+     * served when refreshing it fails
+     */
+    public LocalCache(String name, int maximumSize, long timeToLive, long staleWhileRevalidate, long staleIfError, TimeUnit unit) {
+        this(name, maximumSize, timeToLive, staleWhileRevalidate, staleIfError, unit, System::nanoTime);
+    }
+
+    LocalCache(String name, int maximumSize, long timeToLive, TimeUnit unit, LongSupplier ticker) {
+        this(name, maximumSize, timeToLive, 0, 0, unit, ticker);
+    }
+
+    LocalCache(String name, int maximumSize, long timeToLive, long staleWhileRevalidate, long staleIfError, TimeUnit unit, LongSupplier ticker) {
+        super();
+        this.name = name;
+        this.maximumSize = maximumSize;
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.staleWhileRevalidate = unit.toNanos(staleWhileRevalidate);
+        this.staleIfError = unit.toNanos(staleIfError);
+        this.ticker = ticker;
+        this.entries = new ConcurrentHashMap<>();
+        this.readBuffers = createReadBuffers();
+        this.sketch = new FrequencySketch(maximumSize);
+        order.previous = order;
+        order.next = order;
+    }
+
+    /**
+     * One stripe per processor, rounded up to a power of two.
+     */
+    private static ReadBuffer[] createReadBuffers() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        ReadBuffer[] readBuffers = new ReadBuffer[processors > 1 ? Integer.highestOneBit(processors - 1) << 1 : 1];
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
+        return readBuffers;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        recordRead(key);
+        Node<K, V> node = entries.get(key);
+        Entry<V> entry = node != null ? node.entry : null;
+        if (entry != null && isExpired(entry)) {
+            expire(node);
+            entry = null;
+        }
+        if (entry == null || isStale(entry)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    @Override
+    public V getStaleWhileRevalidate(K key) {
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        Entry<V> entry = node.entry;
+        if (!isStale(entry) || getStaleness(entry) >= staleWhileRevalidate) {
+            return null;
+        }
+        staleWhileRevalidateHits.increment();
+        return entry.value;
+    }
+
+    @Override
+    public V getStaleIfError(K key) {
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        Entry<V> entry = node.entry;
+        if (getStaleness(entry) >= staleIfError) {
+            return null;
+        }
+        if (isStale(entry)) {
+            staleIfErrorHits.increment();
+        }
+        return entry.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (maximumSize <= 0) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, ticker.getAsLong());
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            Node<K, V> existing = entries.get(key);
+            if (existing != null) {
+                existing.entry = entry;
+                moveToMostRecent(existing);
+                return;
+            }
+            if (entries.size() < maximumSize) {
+                add(key, entry);
+                return;
+            }
+            Node<K, V> victim = order.next;
+            if (isExpired(victim.entry)) {
+                remove(victim);
+                expirations.increment();
+                add(key, entry);
+            } else if (sketch.frequency(key) > sketch.frequency(victim.key)) {
+                remove(victim);
+                evictions.increment();
+                add(key, entry);
+            } else {
+                rejections.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = entries.get(key);
+            if (node != null) {
+                remove(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            entries.clear();
+            order.previous = order;
+            order.next = order;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidateIf(Predicate<? super K> predicate) {
+        evictionLock.lock();
+        try {
+            for (Iterator<Node<K, V>> nodes = entries.values().iterator(); nodes.hasNext();) {
+                Node<K, V> node = nodes.next();
+                if (predicate.test(node.key)) {
+                    nodes.remove();
+                    unlink(node);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return new CacheStats(entries.size(), hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), rejections.sum(),
+                staleWhileRevalidateHits.sum(), staleIfErrorHits.sum());
+    }
+
+    private void recordRead(K key) {
+        ReadBuffer readBuffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        if (readBuffer.offer(key) >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Called with the eviction lock held. Reads of keys that are no longer
+     * cached still count towards their frequency.
+     */
+    private void drainReadBuffers() {
+        for (ReadBuffer readBuffer : readBuffers) {
+            readBuffer.drainTo(key -> {
+                sketch.increment(key);
+                Node<K, V> node = entries.get(key);
+                if (node != null) {
+                    moveToMostRecent(node);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes an entry a read found expired, unless it was replaced in the
+     * meantime.
+     */
+    private void expire(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (entries.get(node.key) == node && isExpired(node.entry)) {
+                remove(node);
+                expirations.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void add(K key, Entry<V> entry) {
+        Node<K, V> node = new Node<>(key, entry);
+        entries.put(key, node);
+        link(node);
+    }
+
+    private void remove(Node<K, V> node) {
+        entries.remove(node.key, node);
+        unlink(node);
+    }
+
+    private void moveToMostRecent(Node<K, V> node) {
+        unlink(node);
+        link(node);
+    }
+
+    private void link(Node<K, V> node) {
+        node.previous = order.previous;
+        node.next = order;
+        order.previous.next = node;
+        order.previous = node;
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+    }
+
+    private boolean isStale(Entry<V> entry) {
+        return getStaleness(entry) >= 0;
+    }
+
+    /**
+     * Stale entries are kept until both stale windows have passed.
+     */
+    private boolean isExpired(Entry<V> entry) {
+        return getStaleness(entry) >= Math.max(staleWhileRevalidate, staleIfError);
+    }
+
+    /**
+     * @return how long ago the time to live passed, negative while fresh
+     */
+    private long getStaleness(Entry<V> entry) {
+        return ticker.getAsLong() - entry.written - timeToLive;
+    }
+
+    private static class Node<K, V> {
+        private final K key;
+        private volatile Entry<V> entry;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        Node(K key, Entry<V> entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long written;
+
+        Entry(V value, long written) {
+            this.value = value;
+            this.written = written;
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded ring of the keys read from a cache, so that a read only
+ * appends its key and the recency order and frequency sketch are updated
+ * in batches. The buffer is lossy, a key that does not fit is dropped,
+ * which only makes the order and frequencies a little less exact.
+ *
+ * Any thread may offer keys, only the thread holding the lock of the
+ * owning cache drains them.
+ */
+final class ReadBuffer {
+
+    static final int SIZE = 128;
+    private static final int MASK = SIZE - 1;
+
+    private final AtomicReferenceArray<Object> slots = new AtomicReferenceArray<>(SIZE);
+    private final AtomicLong writes = new AtomicLong();
+    private volatile long reads;
+
+    /**
+     * @return the number of keys waiting to be drained, SIZE when the
+     * buffer is full
+     */
+    int offer(Object key) {
+        long head = reads;
+        long tail = writes.get();
+        int pending = (int) (tail - head);
+        if (pending >= SIZE) {
+            return SIZE;
+        }
+        if (!writes.compareAndSet(tail, tail + 1)) {
+            return pending;
+        }
+        slots.lazySet((int) (tail & MASK), key);
+        return pending + 1;
+    }
+
+    /**
+     * Stops at a slot that has been claimed but not written yet, and picks
+     * it up with the next drain.
+     */
+    void drainTo(Consumer<Object> consumer) {
+        long head = reads;
+        long tail = writes.get();
+        while (head < tail) {
+            int index = (int) (head & MASK);
+            Object key = slots.get(index);
+            if (key == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            consumer.accept(key);
+            head++;
+        }
+        reads = head;
+    }
+
+}
@@ -0,0 +1,90 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one downstream
+ * operation. The first caller runs it, and everyone asking for the key
+ * while it is in flight shares its outcome, failures included. Nothing is
+ * kept once it completes, that is left to the caches.
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    public SingleFlight(String name) {
+        super();
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return a future of its own for every caller, so that no caller can
+     * complete or cancel the shared one
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> operation) {
+        calls.increment();
+        CompletableFuture<V> flight = inFlight.get(key);
+        if (flight == null) {
+            CompletableFuture<V> leader = new CompletableFuture<>();
+            flight = inFlight.putIfAbsent(key, leader);
+            if (flight == null) {
+                flight = leader;
+                executions.increment();
+                run(key, leader, operation);
+            }
+        }
+        return flight.thenApply(Function.identity());
+    }
+
+    private void run(K key, CompletableFuture<V> leader, Supplier<CompletableFuture<V>> operation) {
+        try {
+            operation.get().whenComplete((value, ex) -> {
+                inFlight.remove(key, leader);
+                if (ex != null) {
+                    leader.completeExceptionally(ex);
+                } else {
+                    leader.complete(value);
+                }
+            });
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, leader);
+            leader.completeExceptionally(ex);
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * Calls that ran the operation, the rest shared one in flight.
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * The share of calls spared a downstream operation.
+     */
+    public double getDedupRatio() {
+        long total = getCalls();
+        return total == 0 ? 0.0 : (double) (total - getExecutions()) / total;
+    }
+
+}
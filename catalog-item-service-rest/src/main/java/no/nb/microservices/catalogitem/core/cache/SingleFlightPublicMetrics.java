@@ -0,0 +1,43 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes how many calls every single flight spares on the metrics
+ * endpoint as singleFlight.{name}.{stat}.
+ */
+@Component
+public class SingleFlightPublicMetrics implements PublicMetrics {
+
+    private final List<SingleFlight<?, ?>> flights;
+
+    @Autowired
+    public SingleFlightPublicMetrics(List<SingleFlight<?, ?>> flights) {
+        super();
+        this.flights = flights;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<>();
+        for (SingleFlight<?, ?> flight : flights) {
+            String prefix = "singleFlight." + flight.getName() + ".";
+            long calls = flight.getCalls();
+            long executions = flight.getExecutions();
+            metrics.add(new Metric<Long>(prefix + "calls", calls));
+            metrics.add(new Metric<Long>(prefix + "executions", executions));
+            metrics.add(new Metric<Long>(prefix + "shared", calls - executions));
+            metrics.add(new Metric<Integer>(prefix + "inFlight", flight.getInFlight()));
+            metrics.add(new Metric<Double>(prefix + "dedupRatio", flight.getDedupRatio()));
+        }
+        return metrics;
+    }
+
+}
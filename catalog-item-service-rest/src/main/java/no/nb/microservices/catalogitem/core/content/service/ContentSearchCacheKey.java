@@ -0,0 +1,64 @@
+package no.nb.microservices.catalogitem.core.content.service;
+
+import java.util.Locale;
+import java.util.Objects;
+
+import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
+
+/**
+ * Identifies a content search in an item. The query is normalized so
+ * queries differing only in case and white space share an entry. For items
+ * with restricted content the client IP and SSO token are part of the key,
+ * as they decide whether the user may see the text the snippet is taken
+ * from. Items with public content share one entry between all users.
+ */
+public final class ContentSearchCacheKey {
+
+    private final String id;
+    private final String query;
+    private final String xRealIp;
+    private final String ssoToken;
+
+    public ContentSearchCacheKey(String queryString, TracableId id, boolean publicContent) {
+        super();
+        SecurityInfo securityInfo = id.getSecurityInfo();
+        this.id = id.getId();
+        this.query = normalize(queryString);
+        this.xRealIp = publicContent ? null : securityInfo.getxRealIp();
+        this.ssoToken = publicContent ? null : securityInfo.getSsoToken();
+    }
+
+    static String normalize(String queryString) {
+        if (queryString == null) {
+            return null;
+        }
+        return queryString.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ContentSearchCacheKey)) {
+            return false;
+        }
+        ContentSearchCacheKey other = (ContentSearchCacheKey) obj;
+        return Objects.equals(id, other.id)
+                && Objects.equals(query, other.query)
+                && Objects.equals(xRealIp, other.xRealIp)
+                && Objects.equals(ssoToken, other.ssoToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, query, xRealIp, ssoToken);
+    }
+
+    @Override
+    public String toString() {
+        return "ContentSearchCacheKey [id=" + id + ", query=" + query + "]";
+    }
+
+}
@@ -3,9 +3,15 @@ package no.nb.microservices.catalogitem.core.content.service;
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
 import no.nb.microservices.catalogitem.rest.model.ContentSearch;
 
-import java.util.concurrent.Future;
+import org.springframework.util.concurrent.ListenableFuture;
 
 public interface ContentSearchService {
 
-    Future<ContentSearch> search(String queryString, TracableId tracableId);
+    /**
+     * @param publicContent the item has a public content class, so every
+     * user is shown the same snippet
+     * @return the first hit for the query in the item, or null when there
+     * is no hit
+     */
+    ListenableFuture<ContentSearch> search(String queryString, TracableId tracableId, boolean publicContent);
 }
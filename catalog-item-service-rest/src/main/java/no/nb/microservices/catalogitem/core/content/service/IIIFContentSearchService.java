@@ -2,7 +2,9 @@ package no.nb.microservices.catalogitem.core.content.service;
 
 import no.nb.microservices.catalogcontentsearch.rest.model.AnnotationList;
 import no.nb.microservices.catalogcontentsearch.rest.model.Hit;
+import no.nb.microservices.catalogitem.core.cache.Cache;
 import no.nb.microservices.catalogitem.core.content.repository.ContentRepository;
+import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
 import no.nb.microservices.catalogitem.rest.model.ContentSearch;
 import org.apache.htrace.Trace;
@@ -10,42 +12,64 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
 
-import java.util.concurrent.Future;
+import java.util.Optional;
 
 @Service
 public class IIIFContentSearchService implements ContentSearchService {
 
     private final ContentRepository contentRepository;
+    private final Cache<ContentSearchCacheKey, Optional<Hit>> contentSearchCache;
 
     @Autowired
-    public IIIFContentSearchService(ContentRepository contentRepository) {
+    public IIIFContentSearchService(ContentRepository contentRepository, Cache<ContentSearchCacheKey, Optional<Hit>> contentSearchCache) {
         this.contentRepository = contentRepository;
+        this.contentSearchCache = contentSearchCache;
     }
 
     @Override
-    @Async
-    public Future<ContentSearch> search(String queryString, TracableId tracableId) {
+    @Async("contentSearchExecutor")
+    public ListenableFuture<ContentSearch> search(String queryString, TracableId tracableId, boolean publicContent) {
         Trace.continueSpan(tracableId.getSpan());
-        AnnotationList annotationList = contentRepository.search(tracableId.getId(),
-                queryString,
-                tracableId.getSecurityInfo().getxHost(),
-                tracableId.getSecurityInfo().getxPort(),
-                tracableId.getSecurityInfo().getxRealIp(),
-                tracableId.getSecurityInfo().getSsoToken());
+        ContentSearchCacheKey key = new ContentSearchCacheKey(queryString, tracableId, publicContent);
+        Optional<Hit> hit = contentSearchCache.getIfPresent(key);
+        if (hit == null) {
+            hit = getFirstHit(queryString, tracableId, publicContent);
+            contentSearchCache.put(key, hit);
+        }
 
-        if(annotationList.getHits() != null && !annotationList.getHits().isEmpty()) {
-            Hit hit = annotationList.getHits().get(0);
+        if (hit.isPresent()) {
             String text = new StringBuilder()
-                    .append(hit.getBefore())
+                    .append(hit.get().getBefore())
                     .append("<em>")
                     .append(queryString)
                     .append("</em>")
                     .append(" ")
-                    .append(hit.getAfter())
+                    .append(hit.get().getAfter())
                     .toString();
             return new AsyncResult<>(new ContentSearch(tracableId.getId(), text));
         }
-        return null;
+        return new AsyncResult<>(null);
+    }
+
+    /**
+     * No hit is cached as well, so items without the query are not searched
+     * again. Public content is searched for without the client IP and SSO
+     * token, as the hit is shared between all users.
+     */
+    private Optional<Hit> getFirstHit(String queryString, TracableId tracableId, boolean publicContent) {
+        SecurityInfo securityInfo = tracableId.getSecurityInfo();
+        AnnotationList annotationList = contentRepository.search(tracableId.getId(),
+                queryString,
+                securityInfo.getxHost(),
+                securityInfo.getxPort(),
+                publicContent ? null : securityInfo.getxRealIp(),
+                publicContent ? null : securityInfo.getSsoToken());
+
+        if(annotationList.getHits() != null && !annotationList.getHits().isEmpty()) {
+            return Optional.of(annotationList.getHits().get(0));
+        }
+        return Optional.empty();
     }
 }
@@ -0,0 +1,68 @@
+package no.nb.microservices.catalogitem.core.executor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * A named thread pool with a fixed number of threads and a bounded queue,
+ * used to keep one slow downstream service from taking the threads the
+ * others need. Tasks the pool cannot take are counted and handed to the
+ * rejection policy.
+ */
+public class BoundedExecutor extends ThreadPoolExecutor implements Bulkhead {
+
+    private final String name;
+    private final int queueCapacity;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param queueSize max number of waiting tasks, 0 hands tasks directly
+     * to a free thread
+     */
+    public BoundedExecutor(String name, int threads, int queueSize, RejectedExecutionHandler rejectionPolicy) {
+        super(threads, threads, 60L, TimeUnit.SECONDS, createQueue(queueSize), new CustomizableThreadFactory(name + "-"), rejectionPolicy);
+        this.name = name;
+        this.queueCapacity = queueSize;
+        setRejectedExecutionHandler((task, executor) -> {
+            rejected.increment();
+            rejectionPolicy.rejectedExecution(task, executor);
+        });
+    }
+
+    private static BlockingQueue<Runnable> createQueue(int queueSize) {
+        return queueSize > 0 ? new LinkedBlockingQueue<>(queueSize) : new SynchronousQueue<>();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return getMaximumPoolSize();
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return getQueue().size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+}
@@ -0,0 +1,31 @@
+package no.nb.microservices.catalogitem.core.executor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A named executor that limits how much of the service one downstream
+ * service can take, and tells how saturated it is.
+ */
+public interface Bulkhead extends ExecutorService {
+
+    String getName();
+
+    /**
+     * Max number of tasks running at the same time.
+     */
+    int getMaxConcurrency();
+
+    int getActiveCount();
+
+    int getQueuedCount();
+
+    int getQueueCapacity();
+
+    long getCompletedTaskCount();
+
+    /**
+     * Number of tasks turned away because the executor was full.
+     */
+    long getRejectedCount();
+
+}
@@ -0,0 +1,42 @@
+package no.nb.microservices.catalogitem.core.executor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes how saturated every bulkhead is on the metrics endpoint
+ * as executor.{name}.{stat}.
+ */
+@Component
+public class ExecutorPublicMetrics implements PublicMetrics {
+
+    private final List<Bulkhead> executors;
+
+    @Autowired
+    public ExecutorPublicMetrics(List<Bulkhead> executors) {
+        super();
+        this.executors = executors;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<>();
+        for (Bulkhead executor : executors) {
+            String prefix = "executor." + executor.getName() + ".";
+            metrics.add(new Metric<Integer>(prefix + "threads", executor.getMaxConcurrency()));
+            metrics.add(new Metric<Integer>(prefix + "active", executor.getActiveCount()));
+            metrics.add(new Metric<Integer>(prefix + "queued", executor.getQueuedCount()));
+            metrics.add(new Metric<Integer>(prefix + "queueCapacity", executor.getQueueCapacity()));
+            metrics.add(new Metric<Long>(prefix + "completed", executor.getCompletedTaskCount()));
+            metrics.add(new Metric<Long>(prefix + "rejected", executor.getRejectedCount()));
+        }
+        return metrics;
+    }
+
+}
@@ -0,0 +1,155 @@
+package no.nb.microservices.catalogitem.core.executor;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import no.nb.microservices.catalogitem.config.ConfigurationException;
+
+/**
+ * Runs every task on a new virtual thread, and limits the number of tasks
+ * running at the same time instead of the number of threads.
+ *
+ * Virtual threads came with Java 21 while the service is built for Java 8,
+ * so they are created through reflection and are only available when the
+ * service runs on Java 21 or later.
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService implements Bulkhead {
+
+    private final String name;
+    private final int maxConcurrency;
+    private final ExecutorService threads;
+    private final Semaphore permits;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxConcurrency max number of tasks running at the same time,
+     * tasks beyond it are rejected
+     */
+    public VirtualThreadExecutor(String name, int maxConcurrency) {
+        super();
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.threads = newVirtualThreadPerTaskExecutor(name);
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = Class.forName("java.lang.Thread$Builder$OfVirtual")
+                    .getMethod("name", String.class, long.class)
+                    .invoke(builder, name + "-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory")
+                    .invoke(builder);
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException ex) {
+            throw new ConfigurationException("Virtual threads need Java 21 or later", ex);
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("Executor " + name + " is full");
+        }
+        try {
+            threads.execute(() -> {
+                active.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                    completed.increment();
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return 0;
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return 0;
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        threads.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return threads.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return threads.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return threads.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return threads.awaitTermination(timeout, unit);
+    }
+
+}
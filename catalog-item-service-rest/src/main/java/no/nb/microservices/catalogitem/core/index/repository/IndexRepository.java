@@ -33,4 +33,11 @@ public interface IndexRepository {
             @RequestParam("X-Original-IP-Fra-Frontend") String xRealIp, 
             @RequestParam("amsso") String ssoToken);
 
+    @RequestMapping(method = RequestMethod.GET, value = "/catalog/v1/scroll")
+    SearchResource scroll(@RequestParam("scrollId") String scrollId,
+            @RequestParam("X-Forwarded-Host") String xHost,
+            @RequestParam("X-Forwarded-Port") String xPort,
+            @RequestParam("X-Original-IP-Fra-Frontend") String xRealIp,
+            @RequestParam("amsso") String ssoToken);
+
 }
@@ -4,14 +4,41 @@ import no.nb.microservices.catalogitem.core.index.model.SearchResult;
 import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
 import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
+import no.nb.microservices.catalogsearchindex.ItemResource;
 import no.nb.microservices.catalogsearchindex.SearchResource;
 import org.springframework.data.domain.Pageable;
-
-import java.util.concurrent.Future;
+import org.springframework.util.concurrent.ListenableFuture;
 
 public interface IndexService {
 
     SearchResult search(SearchRequest searchRequest, Pageable pageable, SecurityInfo securityInfo);
-    Future<SearchResource> getSearchResource(TracableId id);
-    
+    ListenableFuture<SearchResult> searchAsync(SearchRequest searchRequest, Pageable pageable, SecurityInfo securityInfo);
+
+    /**
+     * Runs the query for its aggregations and total only. The returned
+     * result never contains items.
+     */
+    SearchResult aggregations(SearchRequest searchRequest, SecurityInfo securityInfo);
+
+    /**
+     * Next batch of a scroll started by a search. The result carries the
+     * scroll id of the batch after, or no items when the scroll is done.
+     */
+    SearchResult scroll(String scrollId, SecurityInfo securityInfo);
+
+    /**
+     * The index document of an item as last found by a lookup or an
+     * anonymous search, without asking the index.
+     *
+     * @param id sesamid or URN
+     * @return the document, or null when it is not cached
+     */
+    ItemResource getCachedItemResource(String id);
+
+    /**
+     * Looks the item up anonymously, like searches are made, so that every
+     * caller shares the document. Access to it is decided per user by NI.
+     */
+    ListenableFuture<SearchResource> getSearchResource(TracableId id);
+
 }
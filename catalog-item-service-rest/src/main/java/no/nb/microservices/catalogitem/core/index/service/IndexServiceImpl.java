@@ -1,34 +1,66 @@
 package no.nb.microservices.catalogitem.core.index.service;
 
+import no.nb.microservices.catalogitem.core.cache.Cache;
 import no.nb.microservices.catalogitem.core.index.model.SearchResult;
 import no.nb.microservices.catalogitem.core.index.repository.IndexRepository;
 import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
 import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
+import no.nb.microservices.catalogsearchindex.ItemResource;
 import no.nb.microservices.catalogsearchindex.SearchResource;
 import org.apache.htrace.Trace;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
 
 import java.util.Collections;
-import java.util.concurrent.Future;
+import java.util.List;
 
 @Service
 public class IndexServiceImpl implements IndexService {
 
+    /**
+     * The index does not accept an empty page, so aggregations ask for the
+     * smallest one and sort and boost are left out since no hit is used.
+     */
+    private static final int AGGREGATIONS_PAGE_SIZE = 1;
+
     private final IndexRepository indexRepository;
+    private final Cache<String, ItemResource> indexDocumentCache;
+    private final SearchResultCache searchResultCache;
 
     @Autowired
-    public IndexServiceImpl(IndexRepository indexRepository) {
+    public IndexServiceImpl(IndexRepository indexRepository, Cache<String, ItemResource> indexDocumentCache, SearchResultCache searchResultCache) {
         super();
         this.indexRepository = indexRepository;
+        this.indexDocumentCache = indexDocumentCache;
+        this.searchResultCache = searchResultCache;
     }
 
+    /**
+     * Identical searches share the response until its query class's time
+     * to live has passed. Explained searches are always run, their
+     * explanation is for looking at the index as it is.
+     */
     @Override
     public SearchResult search(SearchRequest searchRequest, Pageable pageable, SecurityInfo securityInfo) {
+        if (searchRequest.isExplain()) {
+            return searchIndex(searchRequest, pageable, securityInfo);
+        }
+        SearchCacheKey key = SearchCacheKey.forSearch(searchRequest, pageable, securityInfo);
+        SearchResult cached = searchResultCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        SearchResult result = searchIndex(searchRequest, pageable, securityInfo);
+        searchResultCache.put(key, result);
+        return result;
+    }
 
+    private SearchResult searchIndex(SearchRequest searchRequest, Pageable pageable, SecurityInfo securityInfo) {
         SearchResource result = indexRepository.search(
                 searchRequest.getQ(),
                 null,
@@ -50,13 +82,75 @@ public class IndexServiceImpl implements IndexService {
                 securityInfo.getxRealIp(),
                 securityInfo.getSsoToken());
 
+        cacheItemResources(result.getEmbedded().getItems(), securityInfo);
+        return new SearchResult(result.getEmbedded().getItems(), result.getMetadata().getTotalElements(), result.getEmbedded().getAggregations(), result.getScrollId());
+    }
+
+    @Override
+    @Async("indexExecutor")
+    public ListenableFuture<SearchResult> searchAsync(SearchRequest searchRequest, Pageable pageable, SecurityInfo securityInfo) {
+        return new AsyncResult<>(search(searchRequest, pageable, securityInfo));
+    }
+
+    @Override
+    public SearchResult aggregations(SearchRequest searchRequest, SecurityInfo securityInfo) {
+        SearchCacheKey key = SearchCacheKey.forAggregations(searchRequest, securityInfo);
+        SearchResult cached = searchResultCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        SearchResult result = aggregateIndex(searchRequest, securityInfo);
+        searchResultCache.put(key, result);
+        return result;
+    }
+
+    private SearchResult aggregateIndex(SearchRequest searchRequest, SecurityInfo securityInfo) {
+        SearchResource result = indexRepository.search(
+                searchRequest.getQ(),
+                null,
+                0,
+                AGGREGATIONS_PAGE_SIZE,
+                Collections.emptyList(),
+                searchRequest.isGrouping(),
+                Collections.emptyList(),
+                searchRequest.getShould(),
+                searchRequest.getAggs(),
+                searchRequest.getSearchType(),
+                searchRequest.getTopRight(),
+                searchRequest.getBottomLeft(),
+                searchRequest.getPrecision(),
+                false,
+                searchRequest.getFilter(),
+                securityInfo.getxHost(),
+                securityInfo.getxPort(),
+                securityInfo.getxRealIp(),
+                securityInfo.getSsoToken());
+
+        return new SearchResult(Collections.emptyList(), result.getMetadata().getTotalElements(), result.getEmbedded().getAggregations(), null);
+    }
+
+    @Override
+    public SearchResult scroll(String scrollId, SecurityInfo securityInfo) {
+        SearchResource result = indexRepository.scroll(scrollId,
+                securityInfo.getxHost(),
+                securityInfo.getxPort(),
+                securityInfo.getxRealIp(),
+                securityInfo.getSsoToken());
+
+        cacheItemResources(result.getEmbedded().getItems(), securityInfo);
         return new SearchResult(result.getEmbedded().getItems(), result.getMetadata().getTotalElements(), result.getEmbedded().getAggregations(), result.getScrollId());
     }
 
     @Override
-    public Future<SearchResource> getSearchResource(TracableId id) {
+    public ItemResource getCachedItemResource(String id) {
+        return indexDocumentCache.getIfPresent(id);
+    }
+
+    @Override
+    @Async("indexExecutor")
+    public ListenableFuture<SearchResource> getSearchResource(TracableId id) {
         Trace.continueSpan(id.getSpan());
-        SecurityInfo securityInfo = id.getSecurityInfo();
+        SecurityInfo securityInfo = new SecurityInfo();
 
         String query;
         if(id.getId().contains("URN:NBN")) {
@@ -68,8 +162,47 @@ public class IndexServiceImpl implements IndexService {
         SearchResource searchResource = indexRepository.search(query,null,0, 1, Collections.emptyList(), false, Collections.emptyList(),
                 Collections.emptyList(), null, null, null, null, null, false, null, securityInfo.getxHost(), securityInfo.getxPort(), securityInfo.getxRealIp(), securityInfo.getSsoToken());
 
+        if (searchResource != null && searchResource.getEmbedded() != null && !searchResource.getEmbedded().getItems().isEmpty()) {
+            ItemResource itemResource = searchResource.getEmbedded().getItems().get(0);
+            indexDocumentCache.put(id.getId(), itemResource);
+            cacheItemResource(itemResource);
+        }
         return new AsyncResult<>(searchResource);
 
     }
 
+    /**
+     * Every hit of an anonymous search is cached by its sesamid and URNs,
+     * so a search warms the lookups of the items it found, which are just
+     * as anonymous. Hits of a search forwarding a caller are left out, as
+     * the index may have answered for that caller only, and so are
+     * explained hits, as their explanation only belongs to that search.
+     */
+    private void cacheItemResources(List<ItemResource> itemResources, SecurityInfo securityInfo) {
+        if (itemResources != null && isAnonymous(securityInfo)) {
+            itemResources.forEach(this::cacheItemResource);
+        }
+    }
+
+    private static boolean isAnonymous(SecurityInfo securityInfo) {
+        return securityInfo.getxHost() == null && securityInfo.getxPort() == null
+                && securityInfo.getxRealIp() == null && securityInfo.getSsoToken() == null;
+    }
+
+    private void cacheItemResource(ItemResource itemResource) {
+        if (itemResource.getExplain() != null) {
+            return;
+        }
+        if (itemResource.getItemId() != null) {
+            indexDocumentCache.put(itemResource.getItemId(), itemResource);
+        }
+        if (itemResource.getUrn() != null) {
+            for (String urn : itemResource.getUrn().split(",")) {
+                if (!urn.trim().isEmpty()) {
+                    indexDocumentCache.put(urn.trim(), itemResource);
+                }
+            }
+        }
+    }
+
 }
@@ -0,0 +1,115 @@
+package no.nb.microservices.catalogitem.core.index.service;
+
+import java.util.Objects;
+
+import org.springframework.data.domain.Pageable;
+
+import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogitem.core.search.model.CanonicalQuery;
+import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
+
+/**
+ * Identifies an index response by the canonical query forwarded to the
+ * index, so requests differing only in parameter order or spacing share
+ * it, see {@link CanonicalQuery}. Every SecurityInfo field forwarded to the
+ * index is part of the key, like for MODS.
+ */
+public final class SearchCacheKey {
+
+    /**
+     * Queries with a time to live of their own.
+     */
+    public enum QueryClass {
+        /**
+         * Matches everything and narrows by filters only, e.g. the home
+         * page carousels.
+         */
+        BROWSE,
+        /**
+         * Free text query.
+         */
+        QUERY,
+        /**
+         * Aggregations and total only.
+         */
+        AGGREGATIONS
+    }
+
+    private final QueryClass queryClass;
+    private final CanonicalQuery query;
+    private final int page;
+    private final int size;
+    private final String xHost;
+    private final String xPort;
+    private final String xRealIp;
+    private final String ssoToken;
+    private final int hashCode;
+
+    private SearchCacheKey(QueryClass queryClass, CanonicalQuery query, int page, int size,
+            SecurityInfo securityInfo) {
+        super();
+        this.queryClass = queryClass;
+        this.query = query;
+        this.page = page;
+        this.size = size;
+        this.xHost = securityInfo.getxHost();
+        this.xPort = securityInfo.getxPort();
+        this.xRealIp = securityInfo.getxRealIp();
+        this.ssoToken = securityInfo.getSsoToken();
+        this.hashCode = Objects.hash(queryClass, query.getFingerprint(), page, size, xHost, xPort, xRealIp, ssoToken);
+    }
+
+    public static SearchCacheKey forSearch(SearchRequest searchRequest, Pageable pageable, SecurityInfo securityInfo) {
+        CanonicalQuery query = searchRequest.getCanonicalQuery();
+        return new SearchCacheKey(query.isMatchAll() ? QueryClass.BROWSE : QueryClass.QUERY, query,
+                pageable.getPageNumber(), pageable.getPageSize(), securityInfo);
+    }
+
+    /**
+     * Sort, boost and explain are not forwarded for aggregations, so they
+     * are left out, as is the page.
+     */
+    public static SearchCacheKey forAggregations(SearchRequest searchRequest, SecurityInfo securityInfo) {
+        return new SearchCacheKey(QueryClass.AGGREGATIONS, searchRequest.getCanonicalQuery().forAggregations(),
+                0, 0, securityInfo);
+    }
+
+    public QueryClass getQueryClass() {
+        return queryClass;
+    }
+
+    public CanonicalQuery getQuery() {
+        return query;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SearchCacheKey)) {
+            return false;
+        }
+        SearchCacheKey other = (SearchCacheKey) obj;
+        return hashCode == other.hashCode
+                && queryClass == other.queryClass
+                && query.equals(other.query)
+                && page == other.page
+                && size == other.size
+                && Objects.equals(xHost, other.xHost)
+                && Objects.equals(xPort, other.xPort)
+                && Objects.equals(xRealIp, other.xRealIp)
+                && Objects.equals(ssoToken, other.ssoToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCacheKey [queryClass=" + queryClass + ", query=" + query + ", page=" + page + ", size=" + size + "]";
+    }
+
+}
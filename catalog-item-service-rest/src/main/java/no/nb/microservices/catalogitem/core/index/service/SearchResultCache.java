@@ -0,0 +1,108 @@
+package no.nb.microservices.catalogitem.core.index.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import no.nb.microservices.catalogitem.core.cache.Cache;
+import no.nb.microservices.catalogitem.core.index.model.SearchResult;
+import no.nb.microservices.catalogitem.core.index.service.SearchCacheKey.QueryClass;
+
+/**
+ * Index responses by query class, each class in a cache with a time to
+ * live of its own. Responses carrying a scroll id are never cached, the
+ * scroll belongs to one client.
+ *
+ * Hits and misses are also counted per endpoint, as
+ * searchCache.{endpoint}.{stat}, where the endpoint is the request mapping
+ * the search was made for, e.g. items.aggregations, or internal outside of
+ * a request.
+ */
+@Component
+public class SearchResultCache implements PublicMetrics {
+
+    private static final String INTERNAL = "internal";
+    private static final String API_PREFIX = "/catalog/v1/";
+
+    private final Map<QueryClass, Cache<SearchCacheKey, SearchResult>> caches = new EnumMap<>(QueryClass.class);
+    private final ConcurrentMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SearchResultCache(@Qualifier("browseSearchCache") Cache<SearchCacheKey, SearchResult> browseSearchCache,
+            @Qualifier("querySearchCache") Cache<SearchCacheKey, SearchResult> querySearchCache,
+            @Qualifier("aggregationsCache") Cache<SearchCacheKey, SearchResult> aggregationsCache) {
+        super();
+        caches.put(QueryClass.BROWSE, browseSearchCache);
+        caches.put(QueryClass.QUERY, querySearchCache);
+        caches.put(QueryClass.AGGREGATIONS, aggregationsCache);
+    }
+
+    public SearchResult getIfPresent(SearchCacheKey key) {
+        SearchResult cached = caches.get(key.getQueryClass()).getIfPresent(key);
+        EndpointStats stats = endpoints.computeIfAbsent(getEndpoint(), endpoint -> new EndpointStats());
+        if (cached != null) {
+            stats.hits.increment();
+        } else {
+            stats.misses.increment();
+        }
+        return cached;
+    }
+
+    public void put(SearchCacheKey key, SearchResult result) {
+        if (result.getScrollId() == null) {
+            caches.get(key.getQueryClass()).put(key, result);
+        }
+    }
+
+    /**
+     * @return the request mapping of the current request relative to the
+     * API, with dots for slashes
+     */
+    private String getEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object pattern = attributes != null
+                ? attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+        if (pattern == null) {
+            return INTERNAL;
+        }
+        String endpoint = pattern.toString();
+        if (endpoint.startsWith(API_PREFIX)) {
+            endpoint = endpoint.substring(API_PREFIX.length());
+        }
+        return endpoint.replace('/', '.').replace("{", "").replace("}", "");
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<>();
+        endpoints.forEach((endpoint, stats) -> {
+            String prefix = "searchCache." + endpoint + ".";
+            long hits = stats.hits.sum();
+            long misses = stats.misses.sum();
+            metrics.add(new Metric<Long>(prefix + "hits", hits));
+            metrics.add(new Metric<Long>(prefix + "misses", misses));
+            metrics.add(new Metric<Double>(prefix + "hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses)));
+        });
+        return metrics;
+    }
+
+    private static class EndpointStats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+
+}
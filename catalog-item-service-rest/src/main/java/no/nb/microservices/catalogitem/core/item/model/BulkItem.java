@@ -0,0 +1,52 @@
+package no.nb.microservices.catalogitem.core.item.model;
+
+/**
+ * The outcome for one id of a bulk request.
+ */
+public class BulkItem {
+
+    public enum Status {
+        OK,
+        /** The index has no item with the id. */
+        NOT_FOUND,
+        /** The item was found, but could not be hydrated. */
+        FAILED
+    }
+
+    private final String id;
+    private final Status status;
+    private final Item item;
+
+    private BulkItem(String id, Status status, Item item) {
+        this.id = id;
+        this.status = status;
+        this.item = item;
+    }
+
+    public static BulkItem ok(String id, Item item) {
+        return new BulkItem(id, Status.OK, item);
+    }
+
+    public static BulkItem notFound(String id) {
+        return new BulkItem(id, Status.NOT_FOUND, null);
+    }
+
+    public static BulkItem failed(String id) {
+        return new BulkItem(id, Status.FAILED, null);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the item, null unless the status is OK
+     */
+    public Item getItem() {
+        return item;
+    }
+}
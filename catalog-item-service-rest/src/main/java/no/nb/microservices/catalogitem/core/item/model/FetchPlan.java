@@ -0,0 +1,132 @@
+package no.nb.microservices.catalogitem.core.item.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import no.nb.microservices.catalogitem.core.utils.ItemUtils;
+import no.nb.microservices.catalogsearchindex.ItemResource;
+
+/**
+ * What to fetch and assemble for the items of a request, compiled once
+ * from its fields and expand and shared by all of them. Only the MODS
+ * decision also depends on the item, as items outside of NB get their
+ * thumbnail from MODS.
+ *
+ * MODS is only fetched for the metadata section and related items, so
+ * links are made from the index alone when neither is asked for, e.g.
+ * fields=id,_links.
+ */
+public final class FetchPlan {
+
+    /**
+     * Every section, simplified metadata and no related items.
+     */
+    public static final FetchPlan DEFAULT = compile(null, null);
+
+    private static final String METADATA_FIELD_PREFIX = "metadata.";
+
+    private final List<String> fields;
+    private final String expand;
+    private final boolean links;
+    private final boolean accessInfo;
+    private final boolean metadata;
+    private final boolean fullMetadata;
+    private final boolean relatedItems;
+    private final Set<String> metadataFields;
+
+    private FetchPlan(List<String> fields, String expand) {
+        this.fields = fields != null ? Collections.unmodifiableList(new ArrayList<>(fields)) : null;
+        this.expand = expand;
+        this.links = ItemUtils.showField(fields, "_links");
+        this.accessInfo = ItemUtils.showField(fields, "accessInfo");
+        this.metadata = ItemUtils.showField(fields, "metadata");
+        this.fullMetadata = ItemUtils.isExpand(expand, "metadata");
+        this.relatedItems = ItemUtils.isExpand(expand, "relatedItems");
+        this.metadataFields = getMetadataFields(fields);
+    }
+
+    public static FetchPlan compile(List<String> fields, String expand) {
+        return new FetchPlan(fields, expand);
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public String getExpand() {
+        return expand;
+    }
+
+    /**
+     * The index resource feeds links, access and metadata, an item with
+     * none of them is just its id.
+     */
+    public boolean needsIndex() {
+        return links || accessInfo || metadata;
+    }
+
+    public boolean needsAccess() {
+        return accessInfo;
+    }
+
+    /**
+     * @param resource the index resource of the item, or null when not yet
+     * known
+     */
+    public boolean needsMods(ItemResource resource) {
+        return relatedItems || (metadata && (fullMetadata || ItemUtils.isOutsideOfNb(resource)));
+    }
+
+    public boolean showsLinks() {
+        return links;
+    }
+
+    public boolean showsAccessInfo() {
+        return accessInfo;
+    }
+
+    public boolean showsMetadata() {
+        return metadata;
+    }
+
+    /**
+     * @param name a field of the metadata section, e.g. title
+     * @return true unless fields names other metadata fields only, e.g.
+     * fields=metadata.title
+     */
+    public boolean showsMetadataField(String name) {
+        return metadata && (metadataFields.isEmpty() || metadataFields.contains(name));
+    }
+
+    public boolean expandsMetadata() {
+        return fullMetadata;
+    }
+
+    public boolean expandsRelatedItems() {
+        return relatedItems;
+    }
+
+    private static Set<String> getMetadataFields(List<String> fields) {
+        if (fields == null) {
+            return Collections.emptySet();
+        }
+        Set<String> metadataFields = new HashSet<>();
+        for (String field : fields) {
+            if ("*".equals(field) || "metadata".equals(field)) {
+                return Collections.emptySet();
+            }
+            if (field.startsWith(METADATA_FIELD_PREFIX)) {
+                metadataFields.add(field.substring(METADATA_FIELD_PREFIX.length()));
+            }
+        }
+        return Collections.unmodifiableSet(metadataFields);
+    }
+
+    @Override
+    public String toString() {
+        return "FetchPlan [fields=" + fields + ", expand=" + expand + "]";
+    }
+}
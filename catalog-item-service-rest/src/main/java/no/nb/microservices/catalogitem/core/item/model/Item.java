@@ -17,8 +17,9 @@ public class Item implements Identifiable<String> {
     private RelatedItems relatedItems;
     private ItemResource itemResource;
     private String expand;
+    private FetchPlan fetchPlan;
 
-    private Item(String id, List<String> fields, Mods mods, boolean hasAccess, RelatedItems relatedItems, ItemResource itemResource, String expand) {
+    private Item(String id, List<String> fields, Mods mods, boolean hasAccess, RelatedItems relatedItems, ItemResource itemResource, String expand, FetchPlan fetchPlan) {
         this.id = id;
         this.setFields(fields);
         this.mods = mods;
@@ -26,6 +27,7 @@ public class Item implements Identifiable<String> {
         this.relatedItems = relatedItems;
         this.itemResource = itemResource;
         this.expand = expand;
+        this.fetchPlan = fetchPlan;
     }
 
     @Override
@@ -58,6 +60,7 @@ public class Item implements Identifiable<String> {
 
     public void setFields(List<String> fields) {
         this.fields = fields;
+        this.fetchPlan = null;
     }
 
     public String getExpand() {
@@ -66,6 +69,18 @@ public class Item implements Identifiable<String> {
 
     public void setExpand(String expand) {
         this.expand = expand;
+        this.fetchPlan = null;
+    }
+
+    /**
+     * The plan the item was fetched with, or one compiled from its fields
+     * and expand.
+     */
+    public FetchPlan getFetchPlan() {
+        if (fetchPlan == null) {
+            fetchPlan = FetchPlan.compile(fields, expand);
+        }
+        return fetchPlan;
     }
 
     public static class ItemBuilder  {
@@ -76,6 +91,7 @@ public class Item implements Identifiable<String> {
         private RelatedItems relatedItems;
         private ItemResource itemResource;
         private String expand;
+        private FetchPlan fetchPlan;
         
         public ItemBuilder(final String id) {
             this.id = id;
@@ -83,6 +99,14 @@ public class Item implements Identifiable<String> {
 
         public ItemBuilder withFields(final List<String> fields) {
             this.fields = fields;
+            this.fetchPlan = null;
+            return this;
+        }
+
+        public ItemBuilder withFetchPlan(final FetchPlan fetchPlan) {
+            this.fields = fetchPlan.getFields();
+            this.expand = fetchPlan.getExpand();
+            this.fetchPlan = fetchPlan;
             return this;
         }
 
@@ -108,6 +132,7 @@ public class Item implements Identifiable<String> {
 
         public ItemBuilder withExpand(final String expand) {
             this.expand = expand;
+            this.fetchPlan = null;
             return this;
         }
 
@@ -122,7 +147,7 @@ public class Item implements Identifiable<String> {
                     }
                 }
             }
-            return new Item(id, fields, mods, hasAccess, relatedItems, itemResource, expand);
+            return new Item(id, fields, mods, hasAccess, relatedItems, itemResource, expand, fetchPlan);
         }
 
     }
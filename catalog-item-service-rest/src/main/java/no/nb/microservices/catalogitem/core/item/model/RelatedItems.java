@@ -1,9 +1,16 @@
 package no.nb.microservices.catalogitem.core.item.model;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 public class RelatedItems {
+
+    /**
+     * The MODS relatedItem types that are resolved to items.
+     */
+    public static final List<String> SUPPORTED_TYPES = Collections.unmodifiableList(
+            Arrays.asList("constituent", "host", "preceding", "succeeding", "series"));
     
     private List<Item> constituents;
     private List<Item> hosts;
@@ -0,0 +1,50 @@
+package no.nb.microservices.catalogitem.core.item.service;
+
+import java.util.Objects;
+
+/**
+ * Identifies the index and MODS fetches of an item that concurrent
+ * requests can share. The fetches are made without the client IP and SSO
+ * token of the user, so requests of different users share them, and only
+ * the forwarded host and port, which end up in links, are part of the key.
+ * Access is decided per user outside of the fetch.
+ */
+public final class ItemFetchKey {
+
+    private final String id;
+    private final String xHost;
+    private final String xPort;
+
+    public ItemFetchKey(TracableId id) {
+        super();
+        this.id = id.getId();
+        SecurityInfo securityInfo = id.getSecurityInfo();
+        this.xHost = securityInfo != null ? securityInfo.getxHost() : null;
+        this.xPort = securityInfo != null ? securityInfo.getxPort() : null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ItemFetchKey)) {
+            return false;
+        }
+        ItemFetchKey other = (ItemFetchKey) obj;
+        return Objects.equals(id, other.id)
+                && Objects.equals(xHost, other.xHost)
+                && Objects.equals(xPort, other.xPort);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, xHost, xPort);
+    }
+
+    @Override
+    public String toString() {
+        return "ItemFetchKey [id=" + id + ", xHost=" + xHost + ", xPort=" + xPort + "]";
+    }
+
+}
@@ -1,13 +1,36 @@
 package no.nb.microservices.catalogitem.core.item.service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import no.nb.microservices.catalogitem.core.item.model.BulkItem;
+import no.nb.microservices.catalogitem.core.item.model.FetchPlan;
 import no.nb.microservices.catalogitem.core.item.model.Item;
+import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
 import no.nb.microservices.catalogsearchindex.ItemResource;
 
 public interface ItemService {
 
     Item getItemById(String id, List<String> fields, String expand);
-    Item getItemById(String id, List<String> fields, String expand, SecurityInfo securityInfo);
-    Item getItemWithResource(ItemResource resource, List<String> fields, String expand, SecurityInfo securityInfo);
+    CompletableFuture<Item> getItemById(String id, FetchPlan fetchPlan, SecurityInfo securityInfo);
+    CompletableFuture<Item> getItemWithResource(ItemResource resource, FetchPlan fetchPlan, SecurityInfo securityInfo);
+
+    /**
+     * Same as {@link #getItemWithResource(ItemResource, FetchPlan, SecurityInfo)},
+     * with access and MODS already being fetched by the caller, e.g. for a
+     * whole page. Either may be null for the item to fetch it itself. The
+     * resolver is the one of the request the item is for, and may be null
+     * when called on the request thread.
+     */
+    CompletableFuture<Item> getItemWithResource(ItemResource resource, FetchPlan fetchPlan, SecurityInfo securityInfo, CompletableFuture<Boolean> hasAccess, CompletableFuture<Mods> mods,
+            RelatedItemResolver resolver);
+
+    /**
+     * Gets many items at once. The ids are looked up in the index together
+     * and access is decided for all of them in one go.
+     *
+     * @return one result per id, in the order of the ids
+     * @throws IllegalArgumentException when there are no ids or too many
+     */
+    List<BulkItem> getItemsByIds(List<String> ids, List<String> fields, String expand);
 }
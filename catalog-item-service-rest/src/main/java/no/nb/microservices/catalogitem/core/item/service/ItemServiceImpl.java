@@ -1,32 +1,47 @@
 package no.nb.microservices.catalogitem.core.item.service;
 
+import no.nb.microservices.catalogitem.config.BulkSettings;
+import no.nb.microservices.catalogitem.config.RelatedItemsSettings;
+import no.nb.microservices.catalogitem.core.cache.SingleFlight;
 import no.nb.microservices.catalogitem.core.index.model.SearchResult;
 import no.nb.microservices.catalogitem.core.index.service.IndexService;
+import no.nb.microservices.catalogitem.core.item.model.BulkItem;
+import no.nb.microservices.catalogitem.core.item.model.FetchPlan;
 import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.core.item.model.Item.ItemBuilder;
 import no.nb.microservices.catalogitem.core.item.model.RelatedItems;
 import no.nb.microservices.catalogitem.core.metadata.service.MetadataService;
 import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
-import no.nb.microservices.catalogitem.core.security.service.SecurityService;
-import no.nb.microservices.catalogitem.core.utils.ItemUtils;
+import no.nb.microservices.catalogitem.core.security.service.AccessDecisionEngine;
+import no.nb.microservices.catalogitem.core.utils.FutureUtils;
 import no.nb.microservices.catalogitem.core.utils.SecurityInfoService;
 import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
 import no.nb.microservices.catalogmetadata.model.mods.v3.RelatedItem;
 import no.nb.microservices.catalogmetadata.model.mods.v3.TitleInfo;
 import no.nb.microservices.catalogsearchindex.ItemResource;
 import no.nb.microservices.catalogsearchindex.SearchResource;
+import org.apache.htrace.Span;
 import org.apache.htrace.Trace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.Future;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,172 +49,473 @@ public class ItemServiceImpl implements ItemService {
     private static final Logger LOG = LoggerFactory.getLogger(ItemServiceImpl.class);
     
     final MetadataService metadataService;
-    final SecurityService securityService;
+    final AccessDecisionEngine accessDecisionEngine;
     final IndexService indexService;
+    final RelatedItemsSettings relatedItemsSettings;
+    final BulkSettings bulkSettings;
+    final SingleFlight<ItemFetchKey, ItemResource> itemResourceFlight;
+    final SingleFlight<ItemFetchKey, Mods> modsFlight;
 
     @Autowired
     public ItemServiceImpl(MetadataService metadataService, 
-            SecurityService securityService,
-            IndexService indexService) {
+            AccessDecisionEngine accessDecisionEngine,
+            IndexService indexService,
+            RelatedItemsSettings relatedItemsSettings,
+            BulkSettings bulkSettings,
+            SingleFlight<ItemFetchKey, ItemResource> itemResourceFlight,
+            SingleFlight<ItemFetchKey, Mods> modsFlight) {
         super();
         this.metadataService = metadataService;
-        this.securityService = securityService;
+        this.accessDecisionEngine = accessDecisionEngine;
         this.indexService = indexService;
+        this.relatedItemsSettings = relatedItemsSettings;
+        this.bulkSettings = bulkSettings;
+        this.itemResourceFlight = itemResourceFlight;
+        this.modsFlight = modsFlight;
     }
 
     @Override
     public Item getItemById(String id, List<String> fields, String expand) {
         SecurityInfo securityInfo = new SecurityInfoService().getSecurityInfo();
-        return getItemById(id, fields, expand, securityInfo);
+        return getItemById(id, FetchPlan.compile(fields, expand), securityInfo).join();
     }
 
     @Override
-    public Item getItemWithResource(ItemResource resource, List<String> fields, String expand, SecurityInfo securityInfo) {
+    public CompletableFuture<Item> getItemWithResource(ItemResource resource, FetchPlan fetchPlan, SecurityInfo securityInfo) {
+        return getItemWithResource(resource, fetchPlan, securityInfo, null, null, null);
+    }
+
+    @Override
+    public CompletableFuture<Item> getItemWithResource(ItemResource resource, FetchPlan fetchPlan, SecurityInfo securityInfo, CompletableFuture<Boolean> hasAccess, CompletableFuture<Mods> mods,
+            RelatedItemResolver resolver) {
         try {
             TracableId tracableId = new TracableId(Trace.currentSpan(), resource.getItemId(), securityInfo);
-            Future<Mods> mods = getModsFuture(resource, expand, tracableId);
-            Future<Boolean> hasAccess = getAccessFuture(fields, tracableId);
-            waitForAsyncCalls(mods, hasAccess);
-            RelatedItems relatedItems = getRelatedItems(expand, securityInfo, mods.get());
-            ItemBuilder itemBuilder = new ItemBuilder(resource.getItemId())
-                    .mods(mods.get())
-                    .withFields(fields)
-                    .hasAccess(hasAccess.get())
-                    .withExpand(expand)
-                    .withItemResource(resource)
-                    .withRelatedItems(relatedItems);
-
-            return itemBuilder.build();
+            return buildItem(tracableId, fetchPlan,
+                    mods != null ? mods : getModsFuture(resource, fetchPlan, tracableId),
+                    CompletableFuture.completedFuture(resource),
+                    hasAccess != null ? hasAccess : getAccessFuture(fetchPlan, tracableId, resource),
+                    resolver != null ? resolver : RelatedItemResolver.forCurrentRequest(relatedItemsSettings));
         } catch (Exception ex) {
-            LOG.warn("Failed getting item for id " + resource.getItemId(), ex);
+            return CompletableFuture.completedFuture(failedItem(resource.getItemId(), ex));
         }
-        return new ItemBuilder(resource.getItemId()).build();
     }
 
     @Override
-    public Item getItemById(String id, List<String> fields, String expand, SecurityInfo securityInfo) {
+    public CompletableFuture<Item> getItemById(String id, FetchPlan fetchPlan, SecurityInfo securityInfo) {
         try {
             TracableId tracableId = new TracableId(Trace.currentSpan(), id, securityInfo);
-            Future<Mods> mods = getModsFuture(expand, tracableId);
-            Future<Boolean> hasAccess = getAccessFuture(fields, tracableId);
-            Future<SearchResource> search = indexService.getSearchResource(tracableId);
-            waitForAsyncCalls(mods, hasAccess, search);
-
-            RelatedItems relatedItems = getRelatedItems(expand, securityInfo, mods.get());
-            ItemBuilder itemBuilder = new ItemBuilder(id)
-                    .mods(mods.get())
-                    .withFields(fields)
-                    .hasAccess(hasAccess.get())
-                    .withExpand(expand)
-                    .withRelatedItems(relatedItems);
-
-            SearchResource searchResource = search.get();
-            if (searchResource != null && !searchResource.getEmbedded().getItems().isEmpty()) {
-                itemBuilder.withItemResource(searchResource.getEmbedded().getItems().get(0));
+            CompletableFuture<ItemResource> itemResource = getItemResourceFuture(fetchPlan, tracableId);
+            return buildItem(tracableId, fetchPlan,
+                    getModsFuture(null, fetchPlan, tracableId),
+                    itemResource,
+                    itemResource.thenCompose(resource -> getAccessFuture(fetchPlan, tracableId, resource)),
+                    RelatedItemResolver.forCurrentRequest(relatedItemsSettings));
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture(failedItem(id, ex));
+        }
+    }
+
+    @Override
+    public List<BulkItem> getItemsByIds(List<String> ids, List<String> fields, String expand) {
+        if (ids == null || ids.isEmpty() || ids.size() > bulkSettings.getMaxIds()) {
+            throw new IllegalArgumentException("A bulk request takes 1 to " + bulkSettings.getMaxIds() + " ids");
+        }
+        SecurityInfo securityInfo = new SecurityInfoService().getSecurityInfo();
+        FetchPlan fetchPlan = FetchPlan.compile(fields, expand);
+        Span span = Trace.currentSpan();
+        List<String> uniqueIds = ids.stream().distinct().collect(Collectors.toList());
+        Map<String, CompletableFuture<ItemResource>> resources = findItemResources(uniqueIds, span, securityInfo);
+        CompletableFuture<Map<String, Boolean>> decisions = getAccessFuture(fetchPlan, resources.values(), span, securityInfo);
+        RelatedItemResolver resolver = RelatedItemResolver.forCurrentRequest(relatedItemsSettings);
+
+        Map<String, CompletableFuture<BulkItem>> bulkItems = new HashMap<>();
+        for (String id : uniqueIds) {
+            TracableId tracableId = new TracableId(span, id, securityInfo);
+            CompletableFuture<ItemResource> resource = resources.get(id);
+            CompletableFuture<Item> item = assembleItem(tracableId, fetchPlan,
+                    resource.thenCompose(r -> r != null ? getModsFuture(r, fetchPlan, tracableId) : CompletableFuture.completedFuture(new Mods())),
+                    resource,
+                    resource.thenCombine(decisions, (r, d) -> r != null && Boolean.TRUE.equals(d.get(r.getItemId()))),
+                    resolver);
+            bulkItems.put(id, item.handle((i, ex) -> {
+                if (ex != null) {
+                    LOG.warn("Failed getting item for id " + id, ex);
+                    return BulkItem.failed(id);
+                }
+                return resource.join() != null ? BulkItem.ok(id, i) : BulkItem.notFound(id);
+            }));
+        }
+
+        return ids.stream()
+                .map(id -> bulkItems.get(id).join())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Cached index documents are used as they are. The other sesamids are
+     * looked up with one combined query and matched back on item id, and
+     * URNs are looked up one by one. An id without a hit completes with
+     * null. The index is asked anonymously, like searches, and access is
+     * decided for the caller afterwards.
+     */
+    private Map<String, CompletableFuture<ItemResource>> findItemResources(List<String> ids, Span span, SecurityInfo securityInfo) {
+        Map<String, CompletableFuture<ItemResource>> resources = new HashMap<>();
+        List<String> sesamIds = new ArrayList<>();
+        for (String id : ids) {
+            ItemResource cached = indexService.getCachedItemResource(id);
+            if (cached != null) {
+                resources.put(id, CompletableFuture.completedFuture(cached));
+            } else if (id.contains("URN:NBN")) {
+                resources.put(id, FutureUtils.callAsync(() -> indexService.getSearchResource(new TracableId(span, id, securityInfo)))
+                        .thenApply(searchResource -> searchResource != null && !searchResource.getEmbedded().getItems().isEmpty()
+                                ? searchResource.getEmbedded().getItems().get(0) : null));
             } else {
-                itemBuilder.withItemResource(new ItemResource());
+                sesamIds.add(id);
             }
-            return itemBuilder.build();
-        } catch (Exception ex) {
-            LOG.warn("Failed getting item for id " + id, ex);
         }
+        if (sesamIds.isEmpty()) {
+            return resources;
+        }
+
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ(sesamIds.stream()
+                .map(sesamId -> "sesamid:\"" + sesamId + "\"")
+                .collect(Collectors.joining(" OR ")));
+        CompletableFuture<Map<String, ItemResource>> found = FutureUtils.callAsync(() -> indexService.searchAsync(searchRequest, new PageRequest(0, sesamIds.size()), new SecurityInfo()))
+                .thenApply(searchResult -> {
+                    Map<String, ItemResource> byId = new HashMap<>();
+                    searchResult.getItems().forEach(resource -> byId.putIfAbsent(resource.getItemId(), resource));
+                    return byId;
+                });
+        for (String sesamId : sesamIds) {
+            resources.put(sesamId, found.thenApply(byId -> byId.get(sesamId)));
+        }
+        return resources;
+    }
+
+    /**
+     * Access to all the found items with at most one NI call. A failed
+     * lookup only fails its own item.
+     */
+    private CompletableFuture<Map<String, Boolean>> getAccessFuture(FetchPlan fetchPlan, Collection<CompletableFuture<ItemResource>> resources, Span span, SecurityInfo securityInfo) {
+        if (!fetchPlan.needsAccess()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        List<CompletableFuture<ItemResource>> lookups = resources.stream()
+                .map(resource -> resource.exceptionally(ex -> null))
+                .collect(Collectors.toList());
+        return FutureUtils.allAsList(lookups).thenCompose(found -> {
+            Map<String, ItemResource> hits = new LinkedHashMap<>();
+            found.stream()
+                    .filter(Objects::nonNull)
+                    .forEach(resource -> hits.putIfAbsent(resource.getItemId(), resource));
+            if (hits.isEmpty()) {
+                return CompletableFuture.completedFuture(Collections.<String, Boolean>emptyMap());
+            }
+            return accessDecisionEngine.hasAccess(hits.values(), span, securityInfo);
+        });
+    }
+
+    private CompletableFuture<Item> buildItem(TracableId tracableId, FetchPlan fetchPlan,
+            CompletableFuture<Mods> modsFuture, CompletableFuture<ItemResource> itemResourceFuture,
+            CompletableFuture<Boolean> hasAccessFuture, RelatedItemResolver resolver) {
+        return assembleItem(tracableId, fetchPlan, modsFuture, itemResourceFuture, hasAccessFuture, resolver)
+                .exceptionally(ex -> failedItem(tracableId.getId(), ex));
+    }
+
+    /**
+     * Same as buildItem, but fails when any part of the item fails.
+     */
+    private CompletableFuture<Item> assembleItem(TracableId tracableId, FetchPlan fetchPlan,
+            CompletableFuture<Mods> modsFuture, CompletableFuture<ItemResource> itemResourceFuture,
+            CompletableFuture<Boolean> hasAccessFuture, RelatedItemResolver resolver) {
+        ItemBuilder itemBuilder = new ItemBuilder(tracableId.getId())
+                .withFetchPlan(fetchPlan);
+
+        CompletableFuture<Void> mods = modsFuture
+                .thenCompose(m -> {
+                    itemBuilder.mods(m);
+                    return getRelatedItems(fetchPlan, tracableId, m, resolver);
+                })
+                .thenAccept(itemBuilder::withRelatedItems);
+        CompletableFuture<Void> hasAccess = hasAccessFuture
+                .thenAccept(itemBuilder::hasAccess);
+        CompletableFuture<Void> itemResource = itemResourceFuture
+                .thenAccept(itemBuilder::withItemResource);
+
+        return CompletableFuture.allOf(mods, hasAccess, itemResource)
+                .thenApply(done -> itemBuilder.build());
+    }
+
+    /**
+     * An item that shows nothing from the index is not looked up, and
+     * neither is one whose index document is cached, e.g. from the search
+     * it was found by. Concurrent lookups of the same item share one index
+     * call, whoever they are made for.
+     */
+    private CompletableFuture<ItemResource> getItemResourceFuture(FetchPlan fetchPlan, TracableId tracableId) {
+        if (!fetchPlan.needsIndex()) {
+            return CompletableFuture.completedFuture(new ItemResource());
+        }
+        ItemResource cached = indexService.getCachedItemResource(tracableId.getId());
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        TracableId sharedId = withoutUser(tracableId);
+        return itemResourceFlight.execute(new ItemFetchKey(sharedId),
+                () -> FutureUtils.callAsync(() -> indexService.getSearchResource(sharedId))
+                        .thenApply(this::getFirstItemResource));
+    }
+
+    /**
+     * The id as fetched for everyone, with the forwarded host and port,
+     * which end up in links, but without the client IP and SSO token of the
+     * user. Access is decided for the user outside of the fetch.
+     */
+    private static TracableId withoutUser(TracableId tracableId) {
+        SecurityInfo shared = new SecurityInfo();
+        if (tracableId.getSecurityInfo() != null) {
+            shared.setxHost(tracableId.getSecurityInfo().getxHost());
+            shared.setxPort(tracableId.getSecurityInfo().getxPort());
+        }
+        return new TracableId(tracableId.getSpan(), tracableId.getId(), shared);
+    }
+
+    private ItemResource getFirstItemResource(SearchResource searchResource) {
+        if (searchResource != null && !searchResource.getEmbedded().getItems().isEmpty()) {
+            return searchResource.getEmbedded().getItems().get(0);
+        } else {
+            return new ItemResource();
+        }
+    }
+
+    private Item failedItem(String id, Throwable ex) {
+        LOG.warn("Failed getting item for id " + id, ex);
         return new ItemBuilder(id).build();
     }
 
-    private Future<Mods> getModsFuture(ItemResource resource, String expand, TracableId tracableId) {
-        Future<Mods> mods;
-        if (ItemUtils.isExpand(expand, "metadata") || ItemUtils.isExpand(expand, "relatedItems") || ItemUtils.isOutsideOfNb(resource)) {
-            mods = metadataService.getModsById(tracableId);
+    /**
+     * Concurrent fetches of the same MODS share one call, whoever they are
+     * made for.
+     */
+    private CompletableFuture<Mods> getModsFuture(ItemResource resource, FetchPlan fetchPlan, TracableId tracableId) {
+        if (fetchPlan.needsMods(resource)) {
+            TracableId sharedId = withoutUser(tracableId);
+            return modsFlight.execute(new ItemFetchKey(sharedId),
+                    () -> FutureUtils.toCompletableFuture(metadataService.getModsById(sharedId)));
         } else {
-            mods = new AsyncResult<>(new Mods());
+            return CompletableFuture.completedFuture(new Mods());
         }
-        return mods;
     }
 
-    private Future<Boolean> getAccessFuture(List<String> fields, TracableId tracableId) {
-        Future<Boolean> hasAccess;
-        if (ItemUtils.showField(fields, "accessInfo")) {
-            hasAccess = securityService.hasAccess(tracableId);
+    /**
+     * Access is decided once the index resource is known, so its content
+     * classes can spare the NI call.
+     */
+    private CompletableFuture<Boolean> getAccessFuture(FetchPlan fetchPlan, TracableId tracableId, ItemResource resource) {
+        if (fetchPlan.needsAccess()) {
+            return accessDecisionEngine.hasAccess(tracableId, resource);
         } else {
-            hasAccess = new AsyncResult<>(new Boolean(false));
+            return CompletableFuture.completedFuture(false);
         }
-        return hasAccess;
     }
 
-    private void waitForAsyncCalls(Future... futures) throws InterruptedException {
-        boolean done;
-        do {
-            done = true;
-            for (Future future : futures) {
-                if (!future.isDone()) {
-                    done = false;
-                    Thread.sleep(1);
-                    break;
-                }
+    private CompletableFuture<RelatedItems> getRelatedItems(FetchPlan fetchPlan, TracableId tracableId, Mods mods, RelatedItemResolver resolver) {
+        if (!fetchPlan.expandsRelatedItems()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return resolveRelatedItems(tracableId, mods, Collections.emptySet(), 0, resolver);
+    }
+
+    /**
+     * Resolves the supported relations of an item through the request's
+     * resolver, and expands the related items further until max depth is
+     * reached. The oaiids of the item and its ancestors make up the path,
+     * which is never resolved again.
+     */
+    private CompletableFuture<RelatedItems> resolveRelatedItems(TracableId tracableId, Mods mods, Set<String> ancestors, int depth, RelatedItemResolver resolver) {
+        Map<RelatedItem, String> oaiIds = getRelatedOaiIds(mods);
+        if (oaiIds.isEmpty()) {
+            return CompletableFuture.completedFuture(createRelatedItems(mods, Collections.emptyMap()));
+        }
+
+        Set<String> path = new HashSet<>(ancestors);
+        path.addAll(getOaiIds(mods));
+        List<String> orderedOaiIds = mods.getRelatedItems().stream()
+                .map(oaiIds::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Map<String, CompletableFuture<Item>> resolved = resolver.resolve(orderedOaiIds, path,
+                missing -> fetchRelatedItems(missing, tracableId));
+
+        Map<RelatedItem, CompletableFuture<Item>> relatedItemFutures = new IdentityHashMap<>();
+        oaiIds.forEach((relatedItem, oaiId) -> {
+            CompletableFuture<Item> item = resolved.get(oaiId);
+            if (item != null) {
+                relatedItemFutures.put(relatedItem, item.thenCompose(i -> expandRelatedItem(tracableId, relatedItem, i, path, depth + 1, resolver)));
             }
-        } while (!done);
+        });
+
+        return CompletableFuture.allOf(relatedItemFutures.values().toArray(new CompletableFuture[relatedItemFutures.size()]))
+                .thenApply(done -> {
+                    Map<RelatedItem, Item> relatedItems = new IdentityHashMap<>();
+                    relatedItemFutures.forEach((relatedItem, item) -> {
+                        if (item.join() != null) {
+                            relatedItems.put(relatedItem, item.join());
+                        }
+                    });
+                    return createRelatedItems(mods, relatedItems);
+                });
+    }
+
+    /**
+     * Memoized items are shared within the request, so every relation gets
+     * its own copy carrying the relation's part number and related items.
+     */
+    private CompletableFuture<Item> expandRelatedItem(TracableId parent, RelatedItem relatedItem, Item item, Set<String> path, int depth, RelatedItemResolver resolver) {
+        if (item == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!resolver.isExpandable(depth)) {
+            return CompletableFuture.completedFuture(copyRelatedItem(relatedItem, item, null));
+        }
+        TracableId tracableId = new TracableId(parent.getSpan(), item.getId(), parent.getSecurityInfo());
+        return resolveRelatedItems(tracableId, item.getMods(), path, depth, resolver)
+                .thenApply(relatedItems -> copyRelatedItem(relatedItem, item, relatedItems));
+    }
+
+    private Item copyRelatedItem(RelatedItem relatedItem, Item item, RelatedItems relatedItems) {
+        return new ItemBuilder(item.getId())
+                .withFields(item.getFields())
+                .withExpand(relatedItems != null ? "relatedItems" : item.getExpand())
+                .mods(addPartNumber(relatedItem, item.getMods()))
+                .hasAccess(item.hasAccess())
+                .withItemResource(item.getItemResource())
+                .withRelatedItems(relatedItems)
+                .build();
+    }
+
+    /**
+     * Finds the given related items with one combined oaiid query against
+     * the index, then hydrates the hits concurrently. The hits are matched
+     * back to their oaiids through the oaiids in their MODS. The index is
+     * asked anonymously, like searches, and access is decided for the
+     * caller afterwards.
+     */
+    private CompletableFuture<Map<String, Item>> fetchRelatedItems(List<String> oaiIds, TracableId parent) {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ(oaiIds.stream()
+                .map(oaiId -> "oaiid:\"" + oaiId + "\"")
+                .collect(Collectors.joining(" OR ")));
+        Pageable pageable = new PageRequest(0, oaiIds.size());
+
+        return FutureUtils.callAsync(() -> indexService.searchAsync(searchRequest, pageable, new SecurityInfo()))
+                .thenCompose(searchResult -> hydrateRelatedItems(searchResult, parent))
+                .thenApply(items -> mapByOaiId(items, oaiIds))
+                .exceptionally(ex -> {
+                    LOG.warn("Failed getting related items " + oaiIds + " for id " + parent.getId(), ex);
+                    return Collections.emptyMap();
+                });
+    }
+
+    private CompletableFuture<List<Item>> hydrateRelatedItems(SearchResult searchResult, TracableId parent) {
+        List<TracableId> ids = searchResult.getItems().stream()
+                .map(resource -> new TracableId(parent.getSpan(), resource.getItemId(), parent.getSecurityInfo()))
+                .collect(Collectors.toList());
+        CompletableFuture<Map<String, Boolean>> hasAccess = searchResult.getItems().isEmpty()
+                ? CompletableFuture.completedFuture(Collections.emptyMap())
+                : accessDecisionEngine.hasAccess(searchResult.getItems(), parent.getSpan(), parent.getSecurityInfo());
+
+        List<CompletableFuture<Item>> items = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            TracableId tracableId = ids.get(i);
+            items.add(buildItem(tracableId, FetchPlan.DEFAULT,
+                    FutureUtils.toCompletableFuture(metadataService.getModsById(tracableId)),
+                    CompletableFuture.completedFuture(searchResult.getItems().get(i)),
+                    hasAccess.thenApply(decisions -> Boolean.TRUE.equals(decisions.get(tracableId.getId()))),
+                    null));
+        }
+        return FutureUtils.allAsList(items);
     }
 
-    private Future<Mods> getModsFuture(String expand, TracableId tracableId) {
-        return getModsFuture(null, expand, tracableId);
+    private Map<String, Item> mapByOaiId(List<Item> items, List<String> wantedOaiIds) {
+        Map<String, Item> itemsByOaiId = new HashMap<>();
+        if (wantedOaiIds.size() == 1 && items.size() == 1) {
+            itemsByOaiId.put(wantedOaiIds.get(0), items.get(0));
+            return itemsByOaiId;
+        }
+        for (Item item : items) {
+            for (String oaiId : getOaiIds(item.getMods())) {
+                itemsByOaiId.putIfAbsent(oaiId, item);
+            }
+        }
+        return itemsByOaiId;
     }
 
-    private RelatedItems getRelatedItems(String expand,
-            SecurityInfo securityInfo, Mods mods) {
-        RelatedItems relatedItems = null;
-        if (ItemUtils.isExpand(expand, "relatedItems")) {
-            List<Item> constituents = getItemByRelatedItemType("constituent", mods, securityInfo);
-            List<Item> hosts = getItemByRelatedItemType("host", mods, securityInfo);
-            List<Item> preceding = getItemByRelatedItemType("preceding", mods, securityInfo);
-            List<Item> succeeding = getItemByRelatedItemType("succeeding", mods, securityInfo);
-            Item series = getSeries(mods, securityInfo);
-            relatedItems = new RelatedItems(constituents, hosts,
-                    !preceding.isEmpty() ? preceding.get(0) : null,
-                    !succeeding.isEmpty() ? succeeding.get(0) : null,
-                    series);
+    private List<String> getOaiIds(Mods mods) {
+        List<String> oaiIds = new ArrayList<>();
+        if (mods.getIdentifiers() != null) {
+            mods.getIdentifiers().stream()
+                    .filter(identifier -> "oaiid".equalsIgnoreCase(identifier.getType()))
+                    .forEach(identifier -> oaiIds.add(identifier.getValue()));
+        }
+        if (mods.getRecordInfo() != null && mods.getRecordInfo().getRecordIdentifier() != null) {
+            oaiIds.add("oai:" + mods.getRecordInfo().getRecordIdentifier().getSource() + ":" + mods.getRecordInfo().getRecordIdentifier().getValue());
         }
-        return relatedItems;
+        return oaiIds;
     }
 
-    private Item getSeries(Mods mods, SecurityInfo securityInfo) {
-        List<Item> series = getItemByRelatedItemType("series", mods, securityInfo);
-        return !series.isEmpty() ? series.get(0) : null;
+    private RelatedItems createRelatedItems(Mods mods, Map<RelatedItem, Item> relatedItems) {
+        List<Item> constituents = getItemByRelatedItemType("constituent", mods, relatedItems);
+        List<Item> hosts = getItemByRelatedItemType("host", mods, relatedItems);
+        List<Item> preceding = getItemByRelatedItemType("preceding", mods, relatedItems);
+        List<Item> succeeding = getItemByRelatedItemType("succeeding", mods, relatedItems);
+        List<Item> series = getItemByRelatedItemType("series", mods, relatedItems);
+        return new RelatedItems(constituents, hosts, getFirst(preceding), getFirst(succeeding), getFirst(series));
     }
 
-    private List<Item> getItemByRelatedItemType(String type, Mods mods, SecurityInfo securityInfo) {
-        List<Item> items = new ArrayList<>();
+    private Item getFirst(List<Item> items) {
+        return !items.isEmpty() ? items.get(0) : null;
+    }
+
+    private List<Item> getItemByRelatedItemType(String type, Mods mods, Map<RelatedItem, Item> relatedItems) {
         if (mods.getRelatedItems() == null) {
-            return items;
+            return new ArrayList<>();
         }
-        List<RelatedItem> relatedItem = mods.getRelatedItems()
+        return mods.getRelatedItems()
             .stream()
             .filter(r -> type.equalsIgnoreCase(r.getType()))
+            .map(relatedItems::get)
+            .filter(Objects::nonNull)
             .collect(Collectors.toList());
+    }
 
-        relatedItem.forEach(r -> {
-            String query = getQueryFromRecordIdentifier(mods, r);
-            if (query == null) {
-                query = getQueryFromIdentifier(mods, r);
+    private Map<RelatedItem, String> getRelatedOaiIds(Mods mods) {
+        Map<RelatedItem, String> oaiIds = new IdentityHashMap<>();
+        if (mods.getRelatedItems() == null) {
+            return oaiIds;
+        }
+        for (RelatedItem r : mods.getRelatedItems()) {
+            if (!isSupportedRelatedItem(r)) {
+                continue;
             }
-
-            if (query != null) {
-                SearchRequest searchRequest = new SearchRequest();
-                searchRequest.setQ(query);
-                Pageable pagable = new PageRequest(0,1);
-                SearchResult searchResult = indexService.search(searchRequest, pagable, securityInfo);
-                if (!searchResult.getItems().isEmpty()) {
-                    String id = searchResult.getItems().get(0).getItemId();
-                    Item item = getItemById(id, null, null, securityInfo);
-                    addPartNumber(r, item);
-                    items.add(item);
-                }
+            String oaiId = getOaiIdFromRecordIdentifier(mods, r);
+            if (oaiId == null) {
+                oaiId = getOaiIdFromIdentifier(mods, r);
             }
-        });
-        return items;
+            if (oaiId != null) {
+                oaiIds.put(r, oaiId);
+            }
+        }
+        return oaiIds;
     }
 
-    private String getQueryFromRecordIdentifier(Mods mods, RelatedItem r) {
-        String query = null;
+    private boolean isSupportedRelatedItem(RelatedItem r) {
+        return RelatedItems.SUPPORTED_TYPES.stream().anyMatch(type -> type.equalsIgnoreCase(r.getType()));
+    }
+
+    private String getOaiIdFromRecordIdentifier(Mods mods, RelatedItem r) {
+        String oaiId = null;
         if (r.getRecordInfo() != null && r.getRecordInfo().getRecordIdentifier() != null) {
             String source;
             String identifier;
@@ -208,29 +524,38 @@ public class ItemServiceImpl implements ItemService {
                 source = mods.getRecordInfo().getRecordIdentifier().getSource();
             }
             identifier = r.getRecordInfo().getRecordIdentifier().getValue();
-            query = "oaiid:\"oai:"+source+":" + identifier + "\"";
+            oaiId = "oai:" + source + ":" + identifier;
         }
-        return query;
+        return oaiId;
     }
 
-    private String getQueryFromIdentifier(Mods mods, RelatedItem r) {
-        String query = null;
+    private String getOaiIdFromIdentifier(Mods mods, RelatedItem r) {
+        String oaiId = null;
         if (r.getIdentifier() != null) {
             if ("oaiid".equals(r.getIdentifier().getType())) {
-                query = "oaiid:\"" + r.getIdentifier().getValue() + "\"";
+                oaiId = r.getIdentifier().getValue();
             } else if ("local".equals(r.getIdentifier().getType())) {
-                query = "oaiid:\"oai:" + mods.getRecordInfo().getRecordIdentifier().getSource() + ":" + r.getIdentifier().getValue() + "\"";
+                oaiId = "oai:" + mods.getRecordInfo().getRecordIdentifier().getSource() + ":" + r.getIdentifier().getValue();
             }
         }
-        return query;
+        return oaiId;
     }
 
-    private void addPartNumber(RelatedItem r, Item item) {
-        if (item != null && item.getMods().getTitleInfos() != null) {
-            for(TitleInfo titleInfo : item.getMods().getTitleInfos()) {
-                titleInfo.setPartNumber(r.getTitleInfo().get(0).getPartNumber());
-            }
+    private Mods addPartNumber(RelatedItem r, Mods mods) {
+        if (mods.getTitleInfos() == null || r.getTitleInfo() == null || r.getTitleInfo().isEmpty()) {
+            return mods;
         }
+        String partNumber = r.getTitleInfo().get(0).getPartNumber();
+        List<TitleInfo> titleInfos = new ArrayList<>();
+        for (TitleInfo titleInfo : mods.getTitleInfos()) {
+            TitleInfo copy = new TitleInfo();
+            BeanUtils.copyProperties(titleInfo, copy);
+            copy.setPartNumber(partNumber);
+            titleInfos.add(copy);
+        }
+        Mods copy = new Mods();
+        BeanUtils.copyProperties(mods, copy);
+        copy.setTitleInfos(titleInfos);
+        return copy;
     }
 }
-
@@ -1,14 +1,12 @@
 package no.nb.microservices.catalogitem.core.item.service;
 
+import no.nb.microservices.catalogitem.core.item.model.FetchPlan;
 import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.core.search.model.ItemWrapper;
-import org.apache.htrace.Trace;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ItemWrapperServiceImpl implements ItemWrapperService {
@@ -20,24 +18,29 @@ public class ItemWrapperServiceImpl implements ItemWrapperService {
     }
 
     @Override
-    @Async
-    public Future<Item> getById(ItemWrapper itemWrapper) {
-        Item item = null;
+    public CompletableFuture<Item> getById(ItemWrapper itemWrapper) {
+        CompletableFuture<Item> item;
         try {
             SecurityInfo securityInfo = itemWrapper.getSecurityInfo();
+            FetchPlan fetchPlan = itemWrapper.getFetchPlan();
 
-            Trace.continueSpan(itemWrapper.getSpan());
             if (itemWrapper.getItemResource() == null) {
-                item = itemService.getItemById(itemWrapper.getItemResource().getItemId(), itemWrapper.getSearchRequest().getFields(), itemWrapper.getSearchRequest().getExpand(), securityInfo);
+                item = itemService.getItemById(itemWrapper.getId(), fetchPlan, securityInfo);
             } else {
-                item = itemService.getItemWithResource(itemWrapper.getItemResource(), itemWrapper.getSearchRequest().getFields(), itemWrapper.getSearchRequest().getExpand(), securityInfo);
+                item = itemService.getItemWithResource(itemWrapper.getItemResource(), fetchPlan, securityInfo, itemWrapper.getHasAccess(), itemWrapper.getMods(),
+                        itemWrapper.getRelatedItemResolver());
             }
+        } catch (RuntimeException ex) {
+            countDown(itemWrapper);
+            throw ex;
+        }
+        return item.whenComplete((result, ex) -> countDown(itemWrapper));
+    }
 
-
-        } finally {
+    private static void countDown(ItemWrapper itemWrapper) {
+        if (itemWrapper.getLatch() != null) {
             itemWrapper.getLatch().countDown();
         }
-        return new AsyncResult<>(item);
     }
 
 }
@@ -0,0 +1,119 @@
+package no.nb.microservices.catalogitem.core.item.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import no.nb.microservices.catalogitem.config.RelatedItemsSettings;
+import no.nb.microservices.catalogitem.core.item.model.Item;
+
+/**
+ * Keeps track of the related items fetched while serving one request, so an
+ * item shared by many others (a series or a host) is only fetched once.
+ *
+ * The memoized items are flat, i.e. without related items of their own, so
+ * waiting on one never depends on the traversal of another item. Cycles are
+ * broken by never resolving an oaiid that is already on the path from the
+ * requested item.
+ */
+public class RelatedItemResolver {
+
+    private static final String REQUEST_ATTRIBUTE = RelatedItemResolver.class.getName();
+
+    private final int maxDepth;
+    private final int maxFanOut;
+    private final ConcurrentMap<String, CompletableFuture<Item>> items = new ConcurrentHashMap<>();
+
+    public RelatedItemResolver(int maxDepth, int maxFanOut) {
+        super();
+        this.maxDepth = maxDepth;
+        this.maxFanOut = maxFanOut;
+    }
+
+    /**
+     * Returns the resolver bound to the current request, or a new one when
+     * called outside of a request. Must be called on the request thread.
+     */
+    public static RelatedItemResolver forCurrentRequest(RelatedItemsSettings settings) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new RelatedItemResolver(settings.getMaxDepth(), settings.getMaxFanOut());
+        }
+        RelatedItemResolver resolver = (RelatedItemResolver) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolver == null) {
+            resolver = new RelatedItemResolver(settings.getMaxDepth(), settings.getMaxFanOut());
+            attributes.setAttribute(REQUEST_ATTRIBUTE, resolver, RequestAttributes.SCOPE_REQUEST);
+        }
+        return resolver;
+    }
+
+    /**
+     * @param depth the depth of the item whose related items are resolved, 0 for the requested item
+     */
+    public boolean isExpandable(int depth) {
+        return depth < maxDepth;
+    }
+
+    /**
+     * Resolves the given oaiids, skipping the ones on the current path and
+     * everything above the fan-out limit. Oaiids not seen before in this
+     * request are fetched with one call to the fetcher, which completes with
+     * the flat items found keyed by oaiid.
+     *
+     * @return the resolved oaiids in the given order, completing with null when nothing was found
+     */
+    public Map<String, CompletableFuture<Item>> resolve(Collection<String> oaiIds, Set<String> path,
+            Function<List<String>, CompletableFuture<Map<String, Item>>> fetcher) {
+        List<String> wanted = oaiIds.stream()
+                .filter(oaiId -> !path.contains(oaiId))
+                .distinct()
+                .limit(maxFanOut)
+                .collect(Collectors.toList());
+
+        Map<String, CompletableFuture<Item>> resolved = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Item>> missing = new LinkedHashMap<>();
+        for (String oaiId : wanted) {
+            CompletableFuture<Item> item = new CompletableFuture<>();
+            CompletableFuture<Item> existing = items.putIfAbsent(oaiId, item);
+            if (existing == null) {
+                missing.put(oaiId, item);
+                resolved.put(oaiId, item);
+            } else {
+                resolved.put(oaiId, existing);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            fetch(missing, fetcher);
+        }
+        return resolved;
+    }
+
+    private void fetch(Map<String, CompletableFuture<Item>> missing,
+            Function<List<String>, CompletableFuture<Map<String, Item>>> fetcher) {
+        CompletableFuture<Map<String, Item>> fetched;
+        try {
+            fetched = fetcher.apply(new ArrayList<>(missing.keySet()));
+        } catch (RuntimeException ex) {
+            fetched = new CompletableFuture<>();
+            fetched.completeExceptionally(ex);
+        }
+        fetched.whenComplete((found, ex) -> {
+            Map<String, Item> result = found != null ? found : Collections.<String, Item>emptyMap();
+            missing.forEach((oaiId, item) -> item.complete(result.get(oaiId)));
+        });
+    }
+
+}
@@ -2,7 +2,10 @@ package no.nb.microservices.catalogitem.core.metadata.repository;
 
 import org.springframework.cloud.netflix.feign.FeignClient;
 import org.springframework.http.MediaType;
+import java.util.List;
+
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -19,4 +22,14 @@ public interface MetadataRepository {
             @RequestParam("X-Original-IP-Fra-Frontend") String xRealIp, 
             @RequestParam("amsso") String ssoToken);
 
+    /**
+     * The MODS of every id, in the order of the ids.
+     */
+    @RequestMapping(method = RequestMethod.POST, value = "/catalog/v1/metadata/mods", produces = MediaType.APPLICATION_JSON_VALUE)
+    List<Mods> getModsByIds(@RequestBody List<String> ids,
+            @RequestParam("X-Forwarded-Host") String xHost,
+            @RequestParam("X-Forwarded-Port") String xPort,
+            @RequestParam("X-Original-IP-Fra-Frontend") String xRealIp,
+            @RequestParam("amsso") String ssoToken);
+
 }
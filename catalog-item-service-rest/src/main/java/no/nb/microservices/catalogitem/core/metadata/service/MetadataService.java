@@ -1,12 +1,25 @@
 package no.nb.microservices.catalogitem.core.metadata.service;
 
-import java.util.concurrent.Future;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.util.concurrent.ListenableFuture;
 
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
 import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
 
 public interface MetadataService {
 
-    Future<Mods> getModsById(TracableId id);
-    
+    ListenableFuture<Mods> getModsById(TracableId id);
+
+    /**
+     * Gets the MODS of many items of one request at once. Like
+     * {@link #getModsById(TracableId)}, an item whose MODS can not be had
+     * gets an empty one.
+     *
+     * @return the MODS of every id, keyed by id
+     */
+    CompletableFuture<Map<String, Mods>> getModsByIds(List<TracableId> ids);
+
 }
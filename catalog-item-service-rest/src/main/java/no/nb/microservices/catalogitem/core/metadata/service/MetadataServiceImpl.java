@@ -1,39 +1,207 @@
 package no.nb.microservices.catalogitem.core.metadata.service;
 
-import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
-import com.netflix.hystrix.contrib.javanica.command.AsyncResult;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import no.nb.microservices.catalogitem.config.MetadataSettings;
+import no.nb.microservices.catalogitem.core.cache.Cache;
+import no.nb.microservices.catalogitem.core.cache.SingleFlight;
 import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
 import no.nb.microservices.catalogitem.core.metadata.repository.MetadataRepository;
+import no.nb.microservices.catalogitem.core.utils.BoundedMerge;
+import no.nb.microservices.catalogitem.core.utils.FutureUtils;
 import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
 import org.apache.htrace.Trace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import reactor.rx.Streams;
 
-import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Service
 public class MetadataServiceImpl  implements MetadataService{
+    private static final Logger LOG = LoggerFactory.getLogger(MetadataServiceImpl.class);
+
+    /**
+     * Same group and command key as the annotated command used to have, so
+     * existing Hystrix configuration and dashboards keep working.
+     */
+    private static final HystrixCommand.Setter GET_MODS_COMMAND = HystrixCommand.Setter
+            .withGroupKey(HystrixCommandGroupKey.Factory.asKey("MetadataServiceImpl"))
+            .andCommandKey(HystrixCommandKey.Factory.asKey("getModsById"));
+
+    private static final HystrixCommand.Setter GET_MODS_BY_IDS_COMMAND = HystrixCommand.Setter
+            .withGroupKey(HystrixCommandGroupKey.Factory.asKey("MetadataServiceImpl"))
+            .andCommandKey(HystrixCommandKey.Factory.asKey("getModsByIds"));
 
     MetadataRepository metadataRepository;
+    Cache<ModsCacheKey, Mods> modsCache;
+    MetadataSettings metadataSettings;
+    private final SingleFlight<ModsCacheKey, Mods> revalidations = new SingleFlight<>("modsRevalidation");
 
     @Autowired
-    public MetadataServiceImpl(MetadataRepository metadataRepository) {
+    public MetadataServiceImpl(MetadataRepository metadataRepository, Cache<ModsCacheKey, Mods> modsCache, MetadataSettings metadataSettings) {
         super();
         this.metadataRepository = metadataRepository;
+        this.modsCache = modsCache;
+        this.metadataSettings = metadataSettings;
     }
 
     @Override
-    @HystrixCommand(fallbackMethod = "getModsFallback")
-    public Future<Mods> getModsById(TracableId id) {
-        Trace.continueSpan(id.getSpan());
-        SecurityInfo securityInfo = id.getSecurityInfo();
-        return new AsyncResult<Mods>() {
-            @Override
-            public Mods invoke() {
-                return metadataRepository.getModsById(id.getId(), securityInfo.getxHost(), securityInfo.getxPort(), securityInfo.getxRealIp(), securityInfo.getSsoToken());
+    public ListenableFuture<Mods> getModsById(TracableId id) {
+        ModsCacheKey key = new ModsCacheKey(id);
+        Mods cached = getCached(key, id);
+        if (cached != null) {
+            return new AsyncResult<>(cached);
+        }
+
+        SettableListenableFuture<Mods> mods = new SettableListenableFuture<>();
+        GetModsCommand command = new GetModsCommand(id);
+        command.toObservable().subscribe(m -> mods.set(cacheOrLastKnownGood(key, command, m)), mods::setException);
+        return mods;
+    }
+
+    /**
+     * Fresh MODS, or stale MODS that are refreshed in the background.
+     */
+    private Mods getCached(ModsCacheKey key, TracableId id) {
+        Mods cached = modsCache.getIfPresent(key);
+        if (cached == null) {
+            cached = modsCache.getStaleWhileRevalidate(key);
+            if (cached != null) {
+                revalidate(key, id);
             }
-        };
+        }
+        return cached;
+    }
+
+    /**
+     * At most one refresh per key is running, however many requests are
+     * served the stale MODS meanwhile.
+     */
+    private void revalidate(ModsCacheKey key, TracableId id) {
+        revalidations.execute(key, () -> {
+            CompletableFuture<Mods> refreshed = new CompletableFuture<>();
+            GetModsCommand command = new GetModsCommand(id);
+            command.toObservable().subscribe(m -> refreshed.complete(cacheOrLastKnownGood(key, command, m)), refreshed::completeExceptionally);
+            return refreshed;
+        });
+    }
+
+    /**
+     * The empty fallback MODS is never cached, and is replaced by the last
+     * known good MODS when there is one, so a metadata service outage does
+     * not blank out records.
+     */
+    private Mods cacheOrLastKnownGood(ModsCacheKey key, GetModsCommand command, Mods mods) {
+        if (!command.isFallback()) {
+            modsCache.put(key, mods);
+            return mods;
+        }
+        Mods lastKnownGood = modsCache.getStaleIfError(key);
+        return lastKnownGood != null ? lastKnownGood : mods;
+    }
+
+    /**
+     * Cached MODS are used as they are. The rest is fetched in bulk when the
+     * metadata service supports it, otherwise one by one with a limited
+     * number of requests running at the same time.
+     */
+    @Override
+    public CompletableFuture<Map<String, Mods>> getModsByIds(List<TracableId> ids) {
+        Map<String, Mods> mods = new ConcurrentHashMap<>();
+        Map<String, TracableId> missing = new LinkedHashMap<>();
+        for (TracableId id : ids) {
+            Mods cached = getCached(new ModsCacheKey(id), id);
+            if (cached != null) {
+                mods.put(id.getId(), cached);
+            } else {
+                missing.putIfAbsent(id.getId(), id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(mods);
+        }
+
+        List<TracableId> toFetch = new ArrayList<>(missing.values());
+        List<CompletableFuture<Void>> fetched = new ArrayList<>();
+        if (metadataSettings.isBulkMods()) {
+            int chunkSize = metadataSettings.getMaxIdsPerBulkRequest();
+            for (int from = 0; from < toFetch.size(); from += chunkSize) {
+                List<TracableId> chunk = toFetch.subList(from, Math.min(from + chunkSize, toFetch.size()));
+                fetched.add(getModsInBulk(chunk).thenAccept(mods::putAll));
+            }
+        } else {
+            fetched.add(getModsOneByOne(toFetch).thenAccept(mods::putAll));
+        }
+        return CompletableFuture.allOf(fetched.toArray(new CompletableFuture[fetched.size()]))
+                .thenApply(done -> mods);
+    }
+
+    /**
+     * One bulk request for all the ids. When it fails, or the answer does
+     * not line up with the ids, they are fetched one by one instead.
+     */
+    private CompletableFuture<Map<String, Mods>> getModsInBulk(List<TracableId> ids) {
+        CompletableFuture<List<Mods>> response = new CompletableFuture<>();
+        new GetModsByIdsCommand(ids).toObservable().subscribe(response::complete, response::completeExceptionally);
+
+        return response
+                .thenApply(found -> {
+                    if (found == null || found.size() != ids.size()) {
+                        throw new IllegalStateException("Expected MODS of " + ids.size() + " ids, got " + (found == null ? 0 : found.size()));
+                    }
+                    Map<String, Mods> mods = new HashMap<>();
+                    for (int i = 0; i < ids.size(); i++) {
+                        TracableId id = ids.get(i);
+                        Mods m = found.get(i);
+                        if (m != null) {
+                            modsCache.put(new ModsCacheKey(id), m);
+                        }
+                        mods.put(id.getId(), m != null ? m : new Mods());
+                    }
+                    return mods;
+                })
+                .handle((mods, ex) -> {
+                    if (ex != null) {
+                        LOG.warn("Failed getting MODS of " + ids.size() + " ids in bulk, getting them one by one", ex);
+                        return getModsOneByOne(ids);
+                    }
+                    return CompletableFuture.completedFuture(mods);
+                })
+                .thenCompose(mods -> mods);
+    }
+
+    private CompletableFuture<Map<String, Mods>> getModsOneByOne(List<TracableId> ids) {
+        BoundedMerge<TracableId, Mods> requests = new BoundedMerge<>(metadataSettings.getMaxConcurrentRequests(),
+                id -> FutureUtils.toCompletableFuture(getModsById(id)));
+        Streams.from(ids).subscribe(requests);
+
+        return requests.whenDone().thenApply(done -> {
+            List<CompletableFuture<Mods>> results = requests.getResults();
+            Map<String, Mods> mods = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                String id = ids.get(i).getId();
+                mods.put(id, results.get(i).exceptionally(ex -> {
+                    LOG.warn("Failed getting MODS for id " + id, ex);
+                    return new Mods();
+                }).join());
+            }
+            return mods;
+        });
     }
 
     private Mods getModsFallback(TracableId id) {
@@ -41,4 +209,57 @@ public class MetadataServiceImpl  implements MetadataService{
         return new Mods();
     }
 
+    private class GetModsCommand extends HystrixCommand<Mods> {
+        private final TracableId id;
+        private volatile boolean fallback;
+
+        GetModsCommand(TracableId id) {
+            super(GET_MODS_COMMAND);
+            this.id = id;
+        }
+
+        @Override
+        protected Mods run() {
+            Trace.continueSpan(id.getSpan());
+            SecurityInfo securityInfo = id.getSecurityInfo();
+            return metadataRepository.getModsById(id.getId(), securityInfo.getxHost(), securityInfo.getxPort(), securityInfo.getxRealIp(), securityInfo.getSsoToken());
+        }
+
+        @Override
+        protected Mods getFallback() {
+            fallback = true;
+            return getModsFallback(id);
+        }
+
+        /**
+         * The empty fallback MODS must never be cached.
+         */
+        boolean isFallback() {
+            return fallback;
+        }
+    }
+
+    /**
+     * No fallback, a failed bulk request is retried one id at a time.
+     */
+    private class GetModsByIdsCommand extends HystrixCommand<List<Mods>> {
+        private final List<TracableId> ids;
+
+        GetModsByIdsCommand(List<TracableId> ids) {
+            super(GET_MODS_BY_IDS_COMMAND);
+            this.ids = ids;
+        }
+
+        @Override
+        protected List<Mods> run() {
+            TracableId first = ids.get(0);
+            Trace.continueSpan(first.getSpan());
+            SecurityInfo securityInfo = first.getSecurityInfo();
+            List<String> modsIds = ids.stream()
+                    .map(TracableId::getId)
+                    .collect(Collectors.toList());
+            return metadataRepository.getModsByIds(modsIds, securityInfo.getxHost(), securityInfo.getxPort(), securityInfo.getxRealIp(), securityInfo.getSsoToken());
+        }
+    }
+
 }
@@ -0,0 +1,58 @@
+package no.nb.microservices.catalogitem.core.metadata.service;
+
+import java.util.Objects;
+
+import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
+
+/**
+ * Identifies a MODS response. Every SecurityInfo field forwarded to the
+ * metadata service is part of the key, as each of them can change the
+ * response: the forwarded host and port end up in links, and the client IP
+ * and SSO token can decide what the user is allowed to see.
+ */
+public final class ModsCacheKey {
+
+    private final String id;
+    private final String xHost;
+    private final String xPort;
+    private final String xRealIp;
+    private final String ssoToken;
+
+    public ModsCacheKey(TracableId id) {
+        super();
+        SecurityInfo securityInfo = id.getSecurityInfo();
+        this.id = id.getId();
+        this.xHost = securityInfo.getxHost();
+        this.xPort = securityInfo.getxPort();
+        this.xRealIp = securityInfo.getxRealIp();
+        this.ssoToken = securityInfo.getSsoToken();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ModsCacheKey)) {
+            return false;
+        }
+        ModsCacheKey other = (ModsCacheKey) obj;
+        return Objects.equals(id, other.id)
+                && Objects.equals(xHost, other.xHost)
+                && Objects.equals(xPort, other.xPort)
+                && Objects.equals(xRealIp, other.xRealIp)
+                && Objects.equals(ssoToken, other.ssoToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, xHost, xPort, xRealIp, ssoToken);
+    }
+
+    @Override
+    public String toString() {
+        return "ModsCacheKey [id=" + id + ", xHost=" + xHost + ", xPort=" + xPort + "]";
+    }
+
+}
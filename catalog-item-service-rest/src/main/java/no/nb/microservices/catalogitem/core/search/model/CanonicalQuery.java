@@ -0,0 +1,270 @@
+package no.nb.microservices.catalogitem.core.search.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import no.nb.microservices.catalogsearchindex.NBSearchType;
+
+/**
+ * The normalized form of what a search request forwards to the index, so
+ * requests differing only in parameter order or spacing are equal.
+ * Filters, should clauses and boosts do not depend on their order and are
+ * sorted, while sort keeps its order with the direction lower cased. Runs
+ * of whitespace in the query are collapsed, but its case is kept as field
+ * names and operators are case sensitive. Fields and expand only shape
+ * the items made from the response and are left out.
+ *
+ * Immutable, and made once per request by
+ * {@link SearchRequest#getCanonicalQuery()}. The fingerprint is a 64 bit
+ * hash of the canonical form that is the same across instances and
+ * restarts, for keying caches and metrics without comparing the lists.
+ */
+public final class CanonicalQuery {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String q;
+    private final List<String> filter;
+    private final List<String> should;
+    private final List<String> boost;
+    private final List<String> sort;
+    private final String aggs;
+    private final NBSearchType searchType;
+    private final String topRight;
+    private final String bottomLeft;
+    private final String precision;
+    private final boolean grouping;
+    private final boolean explain;
+    private final String canonicalForm;
+    private final long fingerprint;
+
+    private CanonicalQuery(String q, List<String> filter, List<String> should, List<String> boost, List<String> sort,
+            String aggs, NBSearchType searchType, String topRight, String bottomLeft, String precision,
+            boolean grouping, boolean explain) {
+        this.q = q;
+        this.filter = filter;
+        this.should = should;
+        this.boost = boost;
+        this.sort = sort;
+        this.aggs = aggs;
+        this.searchType = searchType;
+        this.topRight = topRight;
+        this.bottomLeft = bottomLeft;
+        this.precision = precision;
+        this.grouping = grouping;
+        this.explain = explain;
+        this.canonicalForm = canonicalForm();
+        this.fingerprint = fingerprint(canonicalForm);
+    }
+
+    public static CanonicalQuery of(SearchRequest searchRequest) {
+        return new CanonicalQuery(normalizeWhitespace(searchRequest.getQ()),
+                sorted(searchRequest.getFilter()),
+                sorted(searchRequest.getShould()),
+                sorted(searchRequest.getBoost()),
+                normalizeSort(searchRequest.getSort()),
+                searchRequest.getAggs() != null ? searchRequest.getAggs().trim() : null,
+                searchRequest.getSearchType(),
+                searchRequest.getTopRight(),
+                searchRequest.getBottomLeft(),
+                searchRequest.getPrecision(),
+                searchRequest.isGrouping(),
+                searchRequest.isExplain());
+    }
+
+    /**
+     * The same query without sort, boost and explain, which are not
+     * forwarded for aggregations.
+     */
+    public CanonicalQuery forAggregations() {
+        if (sort.isEmpty() && boost.isEmpty() && !explain) {
+            return this;
+        }
+        return new CanonicalQuery(q, filter, should, Collections.emptyList(), Collections.emptyList(), aggs,
+                searchType, topRight, bottomLeft, precision, grouping, false);
+    }
+
+    /**
+     * True when the query matches everything and narrows by filters only.
+     */
+    public boolean isMatchAll() {
+        return "*".equals(q);
+    }
+
+    public String getQ() {
+        return q;
+    }
+
+    public List<String> getFilter() {
+        return filter;
+    }
+
+    public List<String> getShould() {
+        return should;
+    }
+
+    public List<String> getBoost() {
+        return boost;
+    }
+
+    public List<String> getSort() {
+        return sort;
+    }
+
+    public String getAggs() {
+        return aggs;
+    }
+
+    public NBSearchType getSearchType() {
+        return searchType;
+    }
+
+    public String getTopRight() {
+        return topRight;
+    }
+
+    public String getBottomLeft() {
+        return bottomLeft;
+    }
+
+    public String getPrecision() {
+        return precision;
+    }
+
+    public boolean isGrouping() {
+        return grouping;
+    }
+
+    public boolean isExplain() {
+        return explain;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * The fingerprint as 16 hex digits, for logs and metric names.
+     */
+    public String getFingerprintHex() {
+        return String.format("%016x", fingerprint);
+    }
+
+    private static String normalizeWhitespace(String value) {
+        return value != null ? value.trim().replaceAll("\\s+", " ") : null;
+    }
+
+    private static List<String> sorted(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> sorted = new ArrayList<>(values.size());
+        for (String value : values) {
+            sorted.add(normalizeWhitespace(value));
+        }
+        Collections.sort(sorted);
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * The direction after the last comma is not case sensitive,
+     * e.g. title,DESC is title,desc.
+     */
+    private static List<String> normalizeSort(List<String> sort) {
+        if (sort == null || sort.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> normalized = new ArrayList<>(sort.size());
+        for (String value : sort) {
+            String trimmed = value.trim();
+            int comma = trimmed.lastIndexOf(',');
+            if (comma != -1) {
+                trimmed = trimmed.substring(0, comma) + trimmed.substring(comma).toLowerCase(Locale.ROOT);
+            }
+            normalized.add(trimmed);
+        }
+        return Collections.unmodifiableList(normalized);
+    }
+
+    /**
+     * Every value is prefixed by its length, so no value can run into the
+     * next one, e.g. filter a,b and filter a followed by b differ.
+     */
+    private String canonicalForm() {
+        StringBuilder form = new StringBuilder(64);
+        append(form, "q", q);
+        append(form, "filter", filter);
+        append(form, "should", should);
+        append(form, "boost", boost);
+        append(form, "sort", sort);
+        append(form, "aggs", aggs);
+        append(form, "searchType", searchType != null ? searchType.name() : null);
+        append(form, "topRight", topRight);
+        append(form, "bottomLeft", bottomLeft);
+        append(form, "precision", precision);
+        append(form, "grouping", String.valueOf(grouping));
+        append(form, "explain", String.valueOf(explain));
+        return form.toString();
+    }
+
+    private static void append(StringBuilder form, String name, List<String> values) {
+        form.append(name).append('[').append(values.size()).append(']');
+        for (String value : values) {
+            append(form, "", value);
+        }
+    }
+
+    private static void append(StringBuilder form, String name, String value) {
+        form.append(name);
+        if (value == null) {
+            form.append('-');
+        } else {
+            form.append(value.length()).append(':').append(value);
+        }
+        form.append(';');
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, mixed with the MurmurHash3 finalizer
+     * so that the low bits are usable as bucket index too.
+     */
+    private static long fingerprint(String canonicalForm) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : canonicalForm.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CanonicalQuery)) {
+            return false;
+        }
+        CanonicalQuery other = (CanonicalQuery) obj;
+        return fingerprint == other.fingerprint && canonicalForm.equals(other.canonicalForm);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "CanonicalQuery [" + getFingerprintHex() + ", q=" + q + ", filter=" + filter + ", sort=" + sort + "]";
+    }
+}
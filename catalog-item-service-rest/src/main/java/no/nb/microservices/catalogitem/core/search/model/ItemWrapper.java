@@ -1,45 +1,50 @@
 package no.nb.microservices.catalogitem.core.search.model;
 
 import no.nb.htrace.core.Traceable;
-import no.nb.microservices.catalogitem.core.item.model.Item;
+import no.nb.microservices.catalogitem.core.item.model.FetchPlan;
+import no.nb.microservices.catalogitem.core.item.service.RelatedItemResolver;
 import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
 import no.nb.microservices.catalogsearchindex.ItemResource;
 import org.apache.htrace.Span;
 import org.apache.htrace.Trace;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 
 public class ItemWrapper implements Traceable {
     private String id;
     private ItemResource itemResource;
     private CountDownLatch latch;
-    private List<Item> items;
     private Span span = Trace.currentSpan();
     private SearchRequest searchRequest;
+    private FetchPlan fetchPlan;
 
     private SecurityInfo securityInfo = new SecurityInfo();
+    private CompletableFuture<Boolean> hasAccess;
+    private CompletableFuture<Mods> mods;
+    private RelatedItemResolver relatedItemResolver;
 
-    public ItemWrapper(ItemResource itemResource, CountDownLatch latch, List<Item> items, SearchRequest searchRequest) {
+    public ItemWrapper(ItemResource itemResource, SearchRequest searchRequest) {
         this.itemResource = itemResource;
-        this.latch = latch;
-        this.items = items;
         this.searchRequest = searchRequest;
     }
 
-    public ItemWrapper(String id, CountDownLatch latch, List<Item> items, SearchRequest searchRequest) {
+    public ItemWrapper(String id, SearchRequest searchRequest) {
         this.id = id;
-        this.latch = latch;
-        this.items = items;
         this.searchRequest = searchRequest;
     }
 
+    /**
+     * Counted down when the item is done, or null when nobody waits for the
+     * items one by one.
+     */
     public CountDownLatch getLatch() {
         return latch;
     }
 
-    public List<Item> getItems() {
-        return items;
+    public void setLatch(CountDownLatch latch) {
+        this.latch = latch;
     }
 
     public ItemResource getItemResource() {
@@ -67,6 +72,56 @@ public class ItemWrapper implements Traceable {
         return searchRequest;
     }
 
+    /**
+     * The plan shared by the page, or one compiled from the search request.
+     */
+    public FetchPlan getFetchPlan() {
+        if (fetchPlan == null) {
+            fetchPlan = FetchPlan.compile(searchRequest.getFields(), searchRequest.getExpand());
+        }
+        return fetchPlan;
+    }
+
+    public void setFetchPlan(FetchPlan fetchPlan) {
+        this.fetchPlan = fetchPlan;
+    }
+
+    /**
+     * Access decided for the whole page, or null when the item should ask
+     * for itself.
+     */
+    public CompletableFuture<Boolean> getHasAccess() {
+        return hasAccess;
+    }
+
+    public void setHasAccess(CompletableFuture<Boolean> hasAccess) {
+        this.hasAccess = hasAccess;
+    }
+
+    /**
+     * MODS fetched for the whole page, or null when the item should ask for
+     * itself.
+     */
+    public CompletableFuture<Mods> getMods() {
+        return mods;
+    }
+
+    public void setMods(CompletableFuture<Mods> mods) {
+        this.mods = mods;
+    }
+
+    /**
+     * The related items resolver of the request the item is for, or null
+     * when the item should use the one of the current request.
+     */
+    public RelatedItemResolver getRelatedItemResolver() {
+        return relatedItemResolver;
+    }
+
+    public void setRelatedItemResolver(RelatedItemResolver relatedItemResolver) {
+        this.relatedItemResolver = relatedItemResolver;
+    }
+
     public String getId() {
         return id;
     }
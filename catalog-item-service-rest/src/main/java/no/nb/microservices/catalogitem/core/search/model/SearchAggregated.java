@@ -13,6 +13,8 @@ public class SearchAggregated {
     private String scrollId;
     private SearchRequest searchRequest;
     private List<ContentSearch> contentSearches;
+    private SearchStatus status = SearchStatus.COMPLETE;
+    private int droppedContentSearches;
 
     public SearchAggregated(Page<Item> page, List<AggregationResource> aggregations, String scrollId, SearchRequest searchRequest) {
         this.page = page;
@@ -60,4 +62,24 @@ public class SearchAggregated {
     public List<ContentSearch> getContentSearches() {
         return contentSearches;
     }
+
+    public SearchStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(SearchStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Number of content searches left out because they were not ready in
+     * time.
+     */
+    public int getDroppedContentSearches() {
+        return droppedContentSearches;
+    }
+
+    public void setDroppedContentSearches(int droppedContentSearches) {
+        this.droppedContentSearches = droppedContentSearches;
+    }
 }
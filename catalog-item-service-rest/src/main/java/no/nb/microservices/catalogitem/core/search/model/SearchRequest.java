@@ -1,5 +1,6 @@
 package no.nb.microservices.catalogitem.core.search.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import no.nb.microservices.catalogsearchindex.NBSearchType;
@@ -29,6 +30,11 @@ public class SearchRequest implements Serializable, Cloneable {
     private String expand;
     private List<String> filter = new ArrayList<>();
 
+    /**
+     * Made on first use and dropped by every setter.
+     */
+    private transient CanonicalQuery canonicalQuery;
+
     public SearchRequest() {
         super();
     }
@@ -39,6 +45,7 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setQ(String q) {
         this.q = q;
+        this.canonicalQuery = null;
     }
 
     public List<String> getFields() {
@@ -47,24 +54,25 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setFields(List<String> fields) {
         this.fields = fields;
+        this.canonicalQuery = null;
     }
 
     public List<String> getSort() {
-        removeEncoding(sort);
         return sort;
     }
 
     public void setSort(String[] sort) {
-        this.sort = Arrays.asList(sort);
+        this.sort = decode(sort);
+        this.canonicalQuery = null;
     }
 
     public List<String> getBoost() {
-        removeEncoding(boost);
         return boost;
     }
 
     public void setBoost(String[] boost) {
-        this.boost = Arrays.asList(boost);
+        this.boost = decode(boost);
+        this.canonicalQuery = null;
     }
     public String getAggs() {
         return aggs;
@@ -72,6 +80,7 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setAggs(String aggs) {
         this.aggs = aggs;
+        this.canonicalQuery = null;
     }
 
     public NBSearchType getSearchType() {
@@ -80,6 +89,7 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setSearchType(NBSearchType searchType) {
         this.searchType = searchType;
+        this.canonicalQuery = null;
     }
 
     public String getTopRight() {
@@ -88,6 +98,7 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setTopRight(String topRight) {
         this.topRight = topRight;
+        this.canonicalQuery = null;
     }
 
     public String getBottomLeft() {
@@ -96,6 +107,7 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setBottomLeft(String bottomLeft) {
         this.bottomLeft = bottomLeft;
+        this.canonicalQuery = null;
     }
 
     public String getPrecision() {
@@ -104,6 +116,7 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setPrecision(String precision) {
         this.precision = precision;
+        this.canonicalQuery = null;
     }
 
     public boolean isGrouping() {
@@ -112,16 +125,17 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setGrouping(boolean grouping) {
         this.grouping = grouping;
+        this.canonicalQuery = null;
     }
 
 
     public List<String> getShould() {
-        removeEncoding(should);
         return should;
     }
 
     public void setShould(String[] should) {
-        this.should = Arrays.asList(should);
+        this.should = decode(should);
+        this.canonicalQuery = null;
     }
 
     public boolean isExplain() {
@@ -130,15 +144,26 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setExplain(boolean explain) {
         this.explain = explain;
+        this.canonicalQuery = null;
     }
 
     public List<String> getFilter() {
-        removeEncoding(filter);
         return filter;
     }
     
     public void setFilter(String[] filter) {
-        this.filter = Arrays.asList(filter);
+        this.filter = decode(filter);
+        this.canonicalQuery = null;
+    }
+
+    /**
+     * Commas in list values arrive URL encoded, e.g. title%2Cdesc, and are
+     * decoded once here rather than on every get.
+     */
+    private List<String> decode(String[] params) {
+        List<String> decoded = Arrays.asList(params);
+        removeEncoding(decoded);
+        return decoded;
     }
 
     protected void removeEncoding(List<String> params) {
@@ -155,6 +180,19 @@ public class SearchRequest implements Serializable, Cloneable {
 
     public void setExpand(String expand) {
         this.expand = expand;
+        this.canonicalQuery = null;
+    }
+
+    /**
+     * The normalized form of this request, made once and kept until a
+     * setter changes the request.
+     */
+    @JsonIgnore
+    public CanonicalQuery getCanonicalQuery() {
+        if (canonicalQuery == null) {
+            canonicalQuery = CanonicalQuery.of(this);
+        }
+        return canonicalQuery;
     }
 
     @Override
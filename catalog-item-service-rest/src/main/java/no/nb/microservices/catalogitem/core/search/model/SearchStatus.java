@@ -0,0 +1,11 @@
+package no.nb.microservices.catalogitem.core.search.model;
+
+/**
+ * Tells whether a search result is complete. A super search section that
+ * is not complete is returned empty.
+ */
+public enum SearchStatus {
+    COMPLETE,
+    TIMED_OUT,
+    REJECTED
+}
@@ -1,14 +1,37 @@
 package no.nb.microservices.catalogitem.core.search.service;
 
+import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.core.search.model.SearchAggregated;
 import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
 import no.nb.microservices.catalogitem.core.search.model.SuperSearchAggregated;
 import no.nb.microservices.catalogitem.core.search.model.SuperSearchRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.util.function.Consumer;
+
 public interface ISearchService {
 
     SearchAggregated search(SearchRequest searchRequest, Pageable pageable);
 
+    /**
+     * Same as search, but hands every item to onItem as soon as it is
+     * hydrated, in the order the items get ready and possibly from several
+     * threads. onItem has been called for every item when this returns.
+     */
+    SearchAggregated search(SearchRequest searchRequest, Pageable pageable, Consumer<Item> onItem);
+
+    /**
+     * Aggregations and total for a query without fetching any items. The
+     * page in the result is always empty.
+     */
+    SearchAggregated aggregations(SearchRequest searchRequest);
+
+    /**
+     * Hydrates the next batch of a scroll, handing every item to onItem as
+     * soon as it is hydrated. The scroll id of the result points at the
+     * batch after. A batch without items ends the scroll.
+     */
+    SearchAggregated scroll(String scrollId, Consumer<Item> onItem);
+
     SuperSearchAggregated superSearch(SuperSearchRequest searchRequest, Pageable pageable);
 }
@@ -0,0 +1,138 @@
+package no.nb.microservices.catalogitem.core.search.service;
+
+import no.nb.microservices.catalogitem.config.RelatedItemsSettings;
+import no.nb.microservices.catalogitem.config.SearchSettings;
+import no.nb.microservices.catalogitem.config.SuperSearchSettings;
+import no.nb.microservices.catalogitem.core.content.service.ContentSearchService;
+import no.nb.microservices.catalogitem.core.index.model.SearchResult;
+import no.nb.microservices.catalogitem.core.index.service.IndexService;
+import no.nb.microservices.catalogitem.core.item.model.FetchPlan;
+import no.nb.microservices.catalogitem.core.item.model.Item;
+import no.nb.microservices.catalogitem.core.item.service.ItemWrapperService;
+import no.nb.microservices.catalogitem.core.item.service.RelatedItemResolver;
+import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
+import no.nb.microservices.catalogitem.core.metadata.service.MetadataService;
+import no.nb.microservices.catalogitem.core.search.exception.LatchException;
+import no.nb.microservices.catalogitem.core.search.model.ItemWrapper;
+import no.nb.microservices.catalogitem.core.search.model.SearchAggregated;
+import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
+import no.nb.microservices.catalogitem.core.security.service.AccessDecisionEngine;
+import no.nb.microservices.catalogitem.core.utils.BoundedMerge;
+import no.nb.microservices.catalogitem.core.utils.FutureUtils;
+import no.nb.microservices.catalogitem.rest.model.ContentSearch;
+import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
+import no.nb.microservices.catalogsearchindex.ItemResource;
+import org.apache.htrace.Span;
+import org.apache.htrace.Trace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.rx.Streams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Hydrates the items of a page, and runs the content searches of a
+ * newspaper section, with a bounded number in flight at a time, where
+ * SearchServiceImpl starts all of them at once. The access decision and
+ * MODS for the page feed every item as in SearchServiceImpl.
+ *
+ * This is a bounded-concurrency executor and not a reactive pipeline.
+ * Reactor only publishes the elements of a list that is already in
+ * memory, and {@link BoundedMerge} does the limiting by requesting a new
+ * element whenever a result completes. The work itself runs on the
+ * existing executors, and the caller blocks until the page is done.
+ *
+ * The result has the same shape as from SearchServiceImpl, which it is
+ * meant to be compared against (search.mode=reactive).
+ */
+@Service
+@ConditionalOnProperty(prefix = "search", name = "mode", havingValue = "reactive")
+public class ReactiveSearchService extends SearchServiceImpl {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveSearchService.class);
+
+    private final ItemWrapperService itemWrapperService;
+    private final ContentSearchService contentSearchService;
+    private final SuperSearchSettings superSearchSettings;
+    private final SearchSettings searchSettings;
+
+    @Autowired
+    public ReactiveSearchService(ItemWrapperService itemWrapperService, IndexService indexService, ContentSearchService contentSearchService, AccessDecisionEngine accessDecisionEngine,
+            MetadataService metadataService, RelatedItemsSettings relatedItemsSettings, SuperSearchSettings superSearchSettings,
+            @Qualifier("superSearchExecutor") ExecutorService superSearchExecutor, SearchSettings searchSettings) {
+        super(itemWrapperService, indexService, contentSearchService, accessDecisionEngine, metadataService, relatedItemsSettings, superSearchSettings, superSearchExecutor);
+        this.itemWrapperService = itemWrapperService;
+        this.contentSearchService = contentSearchService;
+        this.superSearchSettings = superSearchSettings;
+        this.searchSettings = searchSettings;
+    }
+
+    @Override
+    protected List<Item> consumeItems(SearchRequest searchRequest, SearchResult result, Consumer<Item> onItem,
+            SecurityInfo securityInfo, RelatedItemResolver resolver) {
+        FetchPlan fetchPlan = FetchPlan.compile(searchRequest.getFields(), searchRequest.getExpand());
+        CompletableFuture<Map<String, Boolean>> hasAccess = getAccessForPage(fetchPlan, result, securityInfo);
+        CompletableFuture<Map<String, Mods>> mods = getModsForPage(fetchPlan, result, securityInfo);
+
+        BoundedMerge<ItemResource, Item> items = new BoundedMerge<>(searchSettings.getMaxConcurrentItems(), itemResource -> {
+            ItemWrapper itemWrapper = createItemWrapper(itemResource, searchRequest, fetchPlan, securityInfo, resolver);
+            usePageResults(itemWrapper, hasAccess, mods);
+            return handOver(itemWrapperService.getById(itemWrapper), onItem);
+        });
+        Streams.from(result.getItems()).subscribe(items);
+
+        try {
+            items.whenDone().get();
+        } catch (InterruptedException ex) {
+            items.cancel();
+            throw new LatchException(ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+
+        List<Item> hydrated = new ArrayList<>();
+        for (CompletableFuture<Item> item : items.getResults()) {
+            try {
+                hydrated.add(item.join());
+            } catch (CompletionException | CancellationException ex) {
+                LOG.error("Failed hydrating item", ex);
+            }
+        }
+        return hydrated;
+    }
+
+    @Override
+    protected void addContentSearches(SearchAggregated search, String searchQuery, SecurityInfo securityInfo) {
+        Span span = Trace.currentSpan();
+        List<Item> items = search.getPage().getContent();
+        BoundedMerge<Item, ContentSearch> contentSearches = new BoundedMerge<>(searchSettings.getMaxConcurrentContentSearches(),
+                item -> FutureUtils.toCompletableFuture(contentSearchService.search(searchQuery, new TracableId(span, item.getId(), securityInfo), hasPublicContent(item))));
+        Streams.from(items).subscribe(contentSearches);
+
+        List<CompletableFuture<ContentSearch>> started;
+        try {
+            contentSearches.whenDone().get(superSearchSettings.getContentSearchTimeoutMillis(), TimeUnit.MILLISECONDS);
+            started = contentSearches.getResults();
+        } catch (TimeoutException | ExecutionException e) {
+            started = contentSearches.cancel();
+        } catch (InterruptedException e) {
+            started = contentSearches.cancel();
+            Thread.currentThread().interrupt();
+        }
+        setContentSearches(search, started, items.size() - started.size());
+    }
+}
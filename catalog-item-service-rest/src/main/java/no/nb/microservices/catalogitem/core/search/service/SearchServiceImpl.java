@@ -1,23 +1,34 @@
 package no.nb.microservices.catalogitem.core.search.service;
 
+import no.nb.microservices.catalogitem.config.RelatedItemsSettings;
+import no.nb.microservices.catalogitem.config.SuperSearchSettings;
 import no.nb.microservices.catalogitem.core.content.service.ContentSearchService;
 import no.nb.microservices.catalogitem.core.index.model.SearchResult;
 import no.nb.microservices.catalogitem.core.index.service.IndexService;
+import no.nb.microservices.catalogitem.core.item.model.FetchPlan;
 import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.core.item.service.ItemWrapperService;
+import no.nb.microservices.catalogitem.core.item.service.RelatedItemResolver;
 import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
+import no.nb.microservices.catalogitem.core.metadata.service.MetadataService;
 import no.nb.microservices.catalogitem.core.search.exception.LatchException;
 import no.nb.microservices.catalogitem.core.search.model.*;
+import no.nb.microservices.catalogitem.core.security.service.AccessDecisionEngine;
+import no.nb.microservices.catalogitem.core.utils.FutureUtils;
 import no.nb.microservices.catalogitem.core.utils.SecurityInfoService;
 import no.nb.microservices.catalogitem.rest.model.ContentSearch;
+import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
 import no.nb.microservices.catalogsearchindex.AggregationResource;
 import no.nb.microservices.catalogsearchindex.FacetValueResource;
 import no.nb.microservices.catalogsearchindex.ItemResource;
+import org.apache.htrace.Span;
 import org.apache.htrace.Trace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -26,50 +37,107 @@ import org.springframework.hateoas.PagedResources;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
+@ConditionalOnProperty(prefix = "search", name = "mode", havingValue = "blocking", matchIfMissing = true)
 public class SearchServiceImpl implements ISearchService {
     private static final Logger LOG = LoggerFactory.getLogger(SearchServiceImpl.class);
 
     private final IndexService indexService;
     private final ItemWrapperService itemWrapperService;
     private final ContentSearchService contentSearchService;
+    private final AccessDecisionEngine accessDecisionEngine;
+    private final MetadataService metadataService;
+    private final RelatedItemsSettings relatedItemsSettings;
+    private final SuperSearchSettings superSearchSettings;
+    private final ExecutorService superSearchExecutor;
 
     @Autowired
-    public SearchServiceImpl(ItemWrapperService itemWrapperService, IndexService indexService, ContentSearchService contentSearchService) {
+    public SearchServiceImpl(ItemWrapperService itemWrapperService, IndexService indexService, ContentSearchService contentSearchService, AccessDecisionEngine accessDecisionEngine,
+            MetadataService metadataService, RelatedItemsSettings relatedItemsSettings, SuperSearchSettings superSearchSettings,
+            @Qualifier("superSearchExecutor") ExecutorService superSearchExecutor) {
         this.itemWrapperService = itemWrapperService;
         this.indexService = indexService;
         this.contentSearchService = contentSearchService;
+        this.accessDecisionEngine = accessDecisionEngine;
+        this.metadataService = metadataService;
+        this.relatedItemsSettings = relatedItemsSettings;
+        this.superSearchSettings = superSearchSettings;
+        this.superSearchExecutor = superSearchExecutor;
     }
 
     @Override
     public SearchAggregated search(SearchRequest searchRequest, Pageable pageable) {
+        return search(searchRequest, pageable, item -> {});
+    }
+
+    @Override
+    public SearchAggregated search(SearchRequest searchRequest, Pageable pageable, Consumer<Item> onItem) {
+        return search(searchRequest, pageable, onItem, new SecurityInfoService().getSecurityInfo(),
+                RelatedItemResolver.forCurrentRequest(relatedItemsSettings));
+    }
+
+    /**
+     * Searches on behalf of the given user. Only reads the request through
+     * its arguments, so it can run off the request thread.
+     */
+    private SearchAggregated search(SearchRequest searchRequest, Pageable pageable, Consumer<Item> onItem,
+            SecurityInfo securityInfo, RelatedItemResolver resolver) {
         SearchResult result = indexService.search(searchRequest, pageable, new SecurityInfo());
-        List<Item> items = consumeItems(searchRequest, result);
+        List<Item> items = consumeItems(searchRequest, result, onItem, securityInfo, resolver);
         Page<Item> page = new PageImpl<>(items, pageable, result.getTotalElements());
         return new SearchAggregated(page, result.getAggregations(), result.getScrollId(), searchRequest);
     }
 
+    @Override
+    public SearchAggregated aggregations(SearchRequest searchRequest) {
+        SearchResult result = indexService.aggregations(searchRequest, new SecurityInfo());
+        Page<Item> page = new PageImpl<>(Collections.<Item>emptyList(), new PageRequest(0, 1), result.getTotalElements());
+        return new SearchAggregated(page, result.getAggregations(), null, searchRequest);
+    }
+
+    @Override
+    public SearchAggregated scroll(String scrollId, Consumer<Item> onItem) {
+        SearchResult result = indexService.scroll(scrollId, new SecurityInfo());
+        SearchRequest searchRequest = new SearchRequest();
+        List<Item> items = consumeItems(searchRequest, result, onItem, new SecurityInfoService().getSecurityInfo(),
+                RelatedItemResolver.forCurrentRequest(relatedItemsSettings));
+        Page<Item> page = new PageImpl<>(items, new PageRequest(0, Math.max(1, items.size())), result.getTotalElements());
+        return new SearchAggregated(page, result.getAggregations(), result.getScrollId(), searchRequest);
+    }
+
     @Override
     public SuperSearchAggregated superSearch(SuperSearchRequest superSearchRequest, Pageable pageable) {
         SearchAggregated result = doAggsSearch(superSearchRequest);
         if (result != null) {
             List<String> possibleMediaTypesToSearch = getPossibleMediaTypesToSearch(result.getAggregations());
             SecurityInfo securityInfo = new SecurityInfoService().getSecurityInfo();
+            RelatedItemResolver resolver = RelatedItemResolver.forCurrentRequest(relatedItemsSettings);
 
-            Map<String, SearchAggregated> searchAggregateds = new HashMap<>();
+            Map<String, Callable<SearchAggregated>> sections = new LinkedHashMap<>();
             List<String> wantedMediaTypes = superSearchRequest.getWantedMediaTypes(possibleMediaTypesToSearch);
             for (String mediaType : wantedMediaTypes) {
-                searchAggregateds.put(mediaType, searchForMediaTypes(mediaType, pageable, superSearchRequest, securityInfo));
+                sections.put(mediaType, () -> searchForMediaTypes(mediaType, pageable, superSearchRequest, securityInfo, resolver));
             }
 
             List<String> otherMediaTypes = superSearchRequest.getOtherMediaTypes(possibleMediaTypesToSearch, wantedMediaTypes);
             if (!otherMediaTypes.isEmpty()) {
-                searchAggregateds.put("other", searchForOtherMediaTypes(pageable, superSearchRequest, otherMediaTypes));
+                sections.put("other", () -> searchForOtherMediaTypes(pageable, superSearchRequest, otherMediaTypes, securityInfo, resolver));
             }
+            Map<String, SearchAggregated> searchAggregateds = searchSections(sections, superSearchRequest, pageable);
 
             PagedResources.PageMetadata pageMetadata = new PagedResources.PageMetadata(result.getPage().getSize(), result.getPage().getNumber(), result.getPage().getTotalElements(), result.getPage().getTotalPages());
             return new SuperSearchAggregated(pageMetadata, searchAggregateds);
@@ -77,15 +145,91 @@ public class SearchServiceImpl implements ISearchService {
         return new SuperSearchAggregated(new PagedResources.PageMetadata(0, 0, 0), new HashMap<>());
     }
 
-    private List<Item> consumeItems(SearchRequest searchRequest, SearchResult result) {
+    /**
+     * Searches all sections concurrently on the super search executor and
+     * waits for them until the super search deadline. A section that is
+     * rejected or misses the deadline is returned empty with its status
+     * set, a section that fails fails the whole super search.
+     *
+     * The sections get what they need from the request as arguments, and
+     * not the request attributes, as a section can outlive the request when
+     * it is stuck in a call that cancelling does not stop.
+     */
+    private Map<String, SearchAggregated> searchSections(Map<String, Callable<SearchAggregated>> sections, SearchRequest searchRequest, Pageable pageable) {
+        Span span = Trace.currentSpan();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(superSearchSettings.getTimeoutMillis());
+
+        Map<String, SearchAggregated> searchAggregateds = new HashMap<>();
+        Map<String, Future<SearchAggregated>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Callable<SearchAggregated>> section : sections.entrySet()) {
+            try {
+                futures.put(section.getKey(), superSearchExecutor.submit(inSpan(section.getValue(), span)));
+            } catch (RejectedExecutionException ex) {
+                LOG.warn("Super search section {} rejected", section.getKey());
+                searchAggregateds.put(section.getKey(), createEmptySection(searchRequest, pageable, SearchStatus.REJECTED));
+            }
+        }
+
+        try {
+            for (Map.Entry<String, Future<SearchAggregated>> future : futures.entrySet()) {
+                try {
+                    long timeout = Math.max(0, deadline - System.nanoTime());
+                    searchAggregateds.put(future.getKey(), future.getValue().get(timeout, TimeUnit.NANOSECONDS));
+                } catch (TimeoutException ex) {
+                    future.getValue().cancel(true);
+                    LOG.warn("Super search section {} timed out", future.getKey());
+                    searchAggregateds.put(future.getKey(), createEmptySection(searchRequest, pageable, SearchStatus.TIMED_OUT));
+                }
+            }
+        } catch (InterruptedException ex) {
+            cancelAll(futures.values());
+            Thread.currentThread().interrupt();
+            throw new LatchException(ex);
+        } catch (ExecutionException ex) {
+            cancelAll(futures.values());
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+        return searchAggregateds;
+    }
+
+    private <T> Callable<T> inSpan(Callable<T> task, Span span) {
+        return () -> {
+            Trace.continueSpan(span);
+            return task.call();
+        };
+    }
+
+    private void cancelAll(Collection<Future<SearchAggregated>> futures) {
+        for (Future<SearchAggregated> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private SearchAggregated createEmptySection(SearchRequest searchRequest, Pageable pageable, SearchStatus status) {
+        Page<Item> page = new PageImpl<>(Collections.<Item>emptyList(), new PageRequest(0, pageable.getPageSize()), 0);
+        SearchAggregated section = new SearchAggregated(page, Collections.emptyList(), null, searchRequest);
+        section.setStatus(status);
+        return section;
+    }
+
+    protected List<Item> consumeItems(SearchRequest searchRequest, SearchResult result, Consumer<Item> onItem,
+            SecurityInfo securityInfo, RelatedItemResolver resolver) {
         final CountDownLatch latch = new CountDownLatch(result.getItems().size());
         List<Item> items = Collections.synchronizedList(new ArrayList<>());
         List<Future<Item>> workList = new ArrayList<>();
+        FetchPlan fetchPlan = FetchPlan.compile(searchRequest.getFields(), searchRequest.getExpand());
+        CompletableFuture<Map<String, Boolean>> hasAccess = getAccessForPage(fetchPlan, result, securityInfo);
+        CompletableFuture<Map<String, Mods>> mods = getModsForPage(fetchPlan, result, securityInfo);
 
         for (ItemResource itemResource : result.getItems()) {
 
-            ItemWrapper itemWrapper = createItemWrapper(latch, items, itemResource, searchRequest);
-            Future<Item> item = itemWrapperService.getById(itemWrapper);
+            ItemWrapper itemWrapper = createItemWrapper(itemResource, searchRequest, fetchPlan, securityInfo, resolver);
+            itemWrapper.setLatch(latch);
+            usePageResults(itemWrapper, hasAccess, mods);
+            Future<Item> item = handOver(itemWrapperService.getById(itemWrapper), onItem);
             workList.add(item);
         }
 
@@ -101,9 +245,71 @@ public class SearchServiceImpl implements ISearchService {
         return items;
     }
 
-    private ItemWrapper createItemWrapper(final CountDownLatch latch, List<Item> items, ItemResource itemResource, SearchRequest searchRequest) {
-        ItemWrapper itemWrapper = new ItemWrapper(itemResource, latch, items, searchRequest);
-        itemWrapper.setSecurityInfo(new SecurityInfoService().getSecurityInfo());
+    /**
+     * Completes when onItem has been called with the hydrated item.
+     */
+    protected static CompletableFuture<Item> handOver(CompletableFuture<Item> item, Consumer<Item> onItem) {
+        return item.thenApply(hydrated -> {
+            onItem.accept(hydrated);
+            return hydrated;
+        });
+    }
+
+    /**
+     * Decides access to every item on the page with at most one NI call, or
+     * returns null when access is not part of the response.
+     */
+    protected CompletableFuture<Map<String, Boolean>> getAccessForPage(FetchPlan fetchPlan, SearchResult result, SecurityInfo securityInfo) {
+        if (result.getItems().isEmpty() || !fetchPlan.needsAccess()) {
+            return null;
+        }
+        return accessDecisionEngine.hasAccess(result.getItems(), Trace.currentSpan(), securityInfo)
+                .exceptionally(ex -> {
+                    LOG.warn("Failed getting access for page", ex);
+                    return Collections.emptyMap();
+                });
+    }
+
+    /**
+     * Gets the MODS of every item on the page that needs it in one batch, or
+     * returns null when none does.
+     */
+    protected CompletableFuture<Map<String, Mods>> getModsForPage(FetchPlan fetchPlan, SearchResult result, SecurityInfo securityInfo) {
+        Span span = Trace.currentSpan();
+        List<TracableId> ids = result.getItems().stream()
+                .filter(fetchPlan::needsMods)
+                .map(itemResource -> new TracableId(span, itemResource.getItemId(), securityInfo))
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return null;
+        }
+        return metadataService.getModsByIds(ids)
+                .exceptionally(ex -> {
+                    LOG.warn("Failed getting MODS for page", ex);
+                    return Collections.emptyMap();
+                });
+    }
+
+    /**
+     * Hands the item its share of the access and MODS fetched for the page.
+     * Either may be null, leaving the item to fetch it itself.
+     */
+    protected void usePageResults(ItemWrapper itemWrapper, CompletableFuture<Map<String, Boolean>> hasAccess, CompletableFuture<Map<String, Mods>> mods) {
+        String id = itemWrapper.getItemResource().getItemId();
+        if (hasAccess != null) {
+            itemWrapper.setHasAccess(hasAccess.thenApply(decisions -> Boolean.TRUE.equals(decisions.get(id))));
+        }
+        if (mods != null && itemWrapper.getFetchPlan().needsMods(itemWrapper.getItemResource())) {
+            itemWrapper.setMods(mods.thenApply(page -> page.getOrDefault(id, new Mods())));
+        }
+    }
+
+    protected ItemWrapper createItemWrapper(ItemResource itemResource, SearchRequest searchRequest, FetchPlan fetchPlan,
+            SecurityInfo securityInfo, RelatedItemResolver resolver) {
+        ItemWrapper itemWrapper = new ItemWrapper(itemResource, searchRequest);
+        itemWrapper.setFetchPlan(fetchPlan);
+        itemWrapper.setSecurityInfo(securityInfo);
+        itemWrapper.setRelatedItemResolver(resolver);
         itemWrapper.setSpan(Trace.currentSpan());
 
         return itemWrapper;
@@ -121,7 +327,7 @@ public class SearchServiceImpl implements ISearchService {
         try {
             SearchRequest aggsSearchRequest = (SearchRequest) searchRequest.clone();
             aggsSearchRequest.setAggs("mediatype:20");
-            return search(aggsSearchRequest, new PageRequest(0, 1));
+            return aggregations(aggsSearchRequest);
         } catch (CloneNotSupportedException e) {
             e.printStackTrace();
         }
@@ -143,14 +349,15 @@ public class SearchServiceImpl implements ISearchService {
         return mediaTypes;
     }
 
-    private SearchAggregated searchForMediaTypes(String mediaType, Pageable pageable, SuperSearchRequest superSearchRequest, SecurityInfo securityInfo) {
+    private SearchAggregated searchForMediaTypes(String mediaType, Pageable pageable, SuperSearchRequest superSearchRequest, SecurityInfo securityInfo,
+            RelatedItemResolver resolver) {
         SearchRequest mediaTypeSearchRequest = createNewSearchRequestInstance(superSearchRequest);
         addMediaTypeFilter(mediaType, mediaTypeSearchRequest);
 
-        SearchAggregated search = search(mediaTypeSearchRequest, new PageRequest(0, pageable.getPageSize()));
+        SearchAggregated search = search(mediaTypeSearchRequest, new PageRequest(0, pageable.getPageSize()), item -> {}, securityInfo, resolver);
 
         if("aviser".equalsIgnoreCase(mediaType)) {
-            search.setContentSearches(getContentSearchs(search.getPage().getContent(), mediaTypeSearchRequest.getQ(), securityInfo));
+            addContentSearches(search, mediaTypeSearchRequest.getQ(), securityInfo);
         }
         return search;
     }
@@ -165,11 +372,12 @@ public class SearchServiceImpl implements ISearchService {
         mediaTypeSearchRequest.setFilter(filters);
     }
 
-    private SearchAggregated searchForOtherMediaTypes(Pageable pageable, SuperSearchRequest superSearchRequest, List<String> otherMediaTypes) {
+    private SearchAggregated searchForOtherMediaTypes(Pageable pageable, SuperSearchRequest superSearchRequest, List<String> otherMediaTypes,
+            SecurityInfo securityInfo, RelatedItemResolver resolver) {
         SearchRequest otherSearchRequest = createNewSearchRequestInstance(superSearchRequest);
         otherSearchRequest.setQ(superSearchRequest.getQ() + " AND (" + String.join(" OR ", otherMediaTypes) + ")");
 
-        return search(otherSearchRequest, new PageRequest(0, pageable.getPageSize()));
+        return search(otherSearchRequest, new PageRequest(0, pageable.getPageSize()), item -> {}, securityInfo, resolver);
     }
 
     private SearchRequest createNewSearchRequestInstance(SearchRequest searchRequest) {
@@ -183,35 +391,76 @@ public class SearchServiceImpl implements ISearchService {
         return newSearchRequest;
     }
 
-    private List<ContentSearch> getContentSearchs(List<Item> content, String searchQuery, SecurityInfo securityInfo) {
-        List<Future<ContentSearch>> futureContentSearches = new ArrayList<>();
-        for(Item item : content) {
+    /**
+     * Adds the content search snippets that are ready within the content
+     * search budget. The rest, and those the content search executor had no
+     * room for, are left out and counted as dropped.
+     */
+    protected void addContentSearches(SearchAggregated search, String searchQuery, SecurityInfo securityInfo) {
+        List<CompletableFuture<ContentSearch>> futureContentSearches = new ArrayList<>();
+        int rejected = 0;
+        for (Item item : search.getPage().getContent()) {
             TracableId tracableId = new TracableId(Trace.currentSpan(), item.getId(), securityInfo);
-            futureContentSearches.add(contentSearchService.search(searchQuery, tracableId));
-        }
-
-        for(Future<ContentSearch> contentSearchFuture : futureContentSearches) {
-            while(!contentSearchFuture.isDone()) {
-                try {
-                    Thread.sleep(1L);
-                } catch (InterruptedException ex) {
-                    LOG.error("Interrupted", ex);
-                }
+            try {
+                futureContentSearches.add(FutureUtils.toCompletableFuture(contentSearchService.search(searchQuery, tracableId, hasPublicContent(item))));
+            } catch (RejectedExecutionException e) {
+                rejected++;
             }
         }
 
+        waitForContentSearches(futureContentSearches);
+        setContentSearches(search, futureContentSearches, rejected);
+    }
+
+    /**
+     * Snippets of items with public content are the same for every user.
+     */
+    protected boolean hasPublicContent(Item item) {
+        return accessDecisionEngine.isPublic(item.getItemResource());
+    }
+
+    /**
+     * Sets the snippets that are done on the section. Those still running,
+     * rejected or never started are counted as dropped.
+     */
+    protected void setContentSearches(SearchAggregated search, List<CompletableFuture<ContentSearch>> futureContentSearches, int notStarted) {
         List<ContentSearch> contentSearches = new ArrayList<>();
-        for (Future<ContentSearch> futureContentSearch : futureContentSearches) {
+        int dropped = notStarted;
+        for (CompletableFuture<ContentSearch> futureContentSearch : futureContentSearches) {
+            if (!futureContentSearch.isDone()) {
+                dropped++;
+                continue;
+            }
             try {
-                ContentSearch contentSearch = futureContentSearch.get();
-                if(contentSearch != null) {
+                ContentSearch contentSearch = futureContentSearch.getNow(null);
+                if (contentSearch != null) {
                     contentSearches.add(contentSearch);
                 }
-            } catch (InterruptedException | ExecutionException e) {
-                LOG.debug("Cant get contentSearch", e);
-                LOG.error("Cant get contentSearch", e.getMessage());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    dropped++;
+                } else {
+                    LOG.error("Cant get contentSearch", e.getCause());
+                }
+            } catch (CancellationException e) {
+                LOG.error("Cant get contentSearch: {}", e.getMessage());
             }
         }
-        return contentSearches;
+        if (dropped > 0) {
+            LOG.warn("Dropped {} of {} content searches not ready within {} ms", dropped, search.getPage().getContent().size(), superSearchSettings.getContentSearchTimeoutMillis());
+        }
+        search.setContentSearches(contentSearches);
+        search.setDroppedContentSearches(dropped);
+    }
+
+    private void waitForContentSearches(List<CompletableFuture<ContentSearch>> futureContentSearches) {
+        try {
+            CompletableFuture.allOf(futureContentSearches.toArray(new CompletableFuture[futureContentSearches.size()]))
+                    .get(superSearchSettings.getContentSearchTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // What is not done by now is dropped, failures are logged one by one
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -0,0 +1,49 @@
+package no.nb.microservices.catalogitem.core.security.repository;
+
+import java.util.Objects;
+
+/**
+ * Identifies an access decision made by NI.
+ */
+public final class AccessCacheKey {
+
+    private final String id;
+    private final String clientIp;
+    private final String ssoToken;
+
+    public AccessCacheKey(String id, String clientIp, String ssoToken) {
+        super();
+        this.id = id;
+        this.clientIp = clientIp;
+        this.ssoToken = ssoToken;
+    }
+
+    public String getSsoToken() {
+        return ssoToken;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof AccessCacheKey)) {
+            return false;
+        }
+        AccessCacheKey other = (AccessCacheKey) obj;
+        return Objects.equals(id, other.id)
+                && Objects.equals(clientIp, other.clientIp)
+                && Objects.equals(ssoToken, other.ssoToken);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, clientIp, ssoToken);
+    }
+
+    @Override
+    public String toString() {
+        return "AccessCacheKey [id=" + id + ", clientIp=" + clientIp + "]";
+    }
+
+}
@@ -0,0 +1,69 @@
+package no.nb.microservices.catalogitem.core.security.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Stand-in for NI when running with the local profile or in tests. Grants
+ * access to everything unless told otherwise.
+ */
+@Repository
+@Profile("local")
+public class LocalSecurityRepository implements SecurityRepository {
+
+    private final Map<String, Boolean> decisions = new HashMap<>();
+    private final boolean defaultDecision;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public LocalSecurityRepository() {
+        this(true);
+    }
+
+    public LocalSecurityRepository(boolean defaultDecision) {
+        super();
+        this.defaultDecision = defaultDecision;
+    }
+
+    public LocalSecurityRepository withDecision(String id, boolean hasAccess) {
+        decisions.put(id, hasAccess);
+        return this;
+    }
+
+    @Override
+    public boolean hasAccess(String id, String xRealIp, String ssoToken) {
+        calls.incrementAndGet();
+        return decide(id);
+    }
+
+    @Override
+    public Map<String, Boolean> hasAccess(Collection<String> ids, String xRealIp, String ssoToken) {
+        calls.incrementAndGet();
+        Map<String, Boolean> hasAccess = new LinkedHashMap<>();
+        ids.forEach(id -> hasAccess.put(id, decide(id)));
+        return hasAccess;
+    }
+
+    @Override
+    public void invalidate(String ssoToken) {
+        // Nothing is cached
+    }
+
+    /**
+     * Number of hasAccess calls, single or bulk.
+     */
+    public int getCalls() {
+        return calls.get();
+    }
+
+    private boolean decide(String id) {
+        Boolean decision = decisions.get(id);
+        return decision != null ? decision : defaultDecision;
+    }
+
+}
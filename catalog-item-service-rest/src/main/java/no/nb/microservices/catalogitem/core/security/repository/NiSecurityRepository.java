@@ -1,35 +1,191 @@
 package no.nb.microservices.catalogitem.core.security.repository;
 
-import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
 import no.nb.htrace.annotation.Traceable;
+import no.nb.microservices.catalogitem.config.NiSettings;
+import no.nb.microservices.catalogitem.core.cache.Cache;
+import no.nb.microservices.catalogitem.core.cache.SingleFlight;
 import no.nb.sesam.ni.niclient.NiClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Repository
+@Profile("!local")
 public class NiSecurityRepository implements SecurityRepository {
+    private static final Logger LOG = LoggerFactory.getLogger(NiSecurityRepository.class);
+
+    /**
+     * Single id, bulk and background checks all run under this key, so they
+     * share its configuration, thread pool and circuit breaker.
+     */
+    private static final HystrixCommand.Setter HAS_ACCESS_COMMAND = HystrixCommand.Setter
+            .withGroupKey(HystrixCommandGroupKey.Factory.asKey("NiSecurityRepository"))
+            .andCommandKey(HystrixCommandKey.Factory.asKey("hasAccess"));
 
     private final NiClient niClient;
+    private final Cache<AccessCacheKey, Boolean> accessCache;
+    private final NiSettings niSettings;
+    private final SingleFlight<AccessCacheKey, Boolean> revalidations = new SingleFlight<>("accessRevalidation");
     
     @Autowired    
-    public NiSecurityRepository(NiClient niClient) {
+    public NiSecurityRepository(NiClient niClient, Cache<AccessCacheKey, Boolean> accessCache, NiSettings niSettings) {
         super();
         this.niClient = niClient;
+        this.accessCache = accessCache;
+        this.niSettings = niSettings;
     }
 
+    /**
+     * A cached decision is returned without running a command, so only the
+     * calls that actually go to NI take a thread of the hasAccess pool and
+     * count towards its circuit breaker. Only decisions returned by NI are
+     * cached, never the fallback.
+     */
     @Override
     @Traceable(description="NI hasAccess")
-    @HystrixCommand(fallbackMethod = "hasAccessFallback")
     public boolean hasAccess(String id, String clientIp, String ssoToken) {
+        AccessCacheKey key = new AccessCacheKey(id, clientIp, ssoToken);
+        Boolean cached = getCached(key, id, clientIp, ssoToken);
+        if (cached != null) {
+            return cached;
+        }
+        return new HasAccessCommand(key, id, clientIp, ssoToken).execute();
+    }
+
+    /**
+     * NI has no bulk operation, so every id that is not cached is asked for
+     * with a command of its own, and the decisions are collected until
+     * ni.bulkTimeoutMillis has passed. A decision that is done by then is
+     * kept, and only the ids NI failed to answer in time get their last
+     * known decision, or are denied.
+     */
+    @Override
+    @Traceable(description="NI hasAccess bulk")
+    public Map<String, Boolean> hasAccess(Collection<String> ids, String clientIp, String ssoToken) {
+        Map<String, CompletableFuture<Boolean>> decisions = new LinkedHashMap<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            AccessCacheKey key = new AccessCacheKey(id, clientIp, ssoToken);
+            Boolean cached = getCached(key, id, clientIp, ssoToken);
+            if (cached != null) {
+                decisions.put(id, CompletableFuture.completedFuture(cached));
+            } else {
+                CompletableFuture<Boolean> decision = new CompletableFuture<>();
+                new HasAccessCommand(key, id, clientIp, ssoToken).observe().subscribe(decision::complete, decision::completeExceptionally);
+                decisions.put(id, decision);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(niSettings.getBulkTimeoutMillis());
+        Map<String, Boolean> hasAccess = new LinkedHashMap<>();
+        decisions.forEach((id, decision) -> hasAccess.put(id, awaitDecision(id, new AccessCacheKey(id, clientIp, ssoToken), decision, deadline)));
+        return hasAccess;
+    }
+
+    private boolean awaitDecision(String id, AccessCacheKey key, CompletableFuture<Boolean> decision, long deadline) {
         try {
-            return niClient.hasAccess(ssoToken, id, null, clientIp);
+            return decision.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            LOG.warn("No access info for id {} within {} ms", id, niSettings.getBulkTimeoutMillis());
+        } catch (ExecutionException ex) {
+            LOG.warn("Error getting access info for id " + id, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return getLastKnownGood(key);
+    }
+
+    /**
+     * A fresh decision, or a stale one that is asked for again in the
+     * background.
+     */
+    private Boolean getCached(AccessCacheKey key, String id, String clientIp, String ssoToken) {
+        Boolean cached = accessCache.getIfPresent(key);
+        if (cached == null) {
+            cached = accessCache.getStaleWhileRevalidate(key);
+            if (cached != null) {
+                revalidate(key, id, clientIp, ssoToken);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * At most one refresh per key is running, however many requests are
+     * served the stale decision meanwhile. The refresh runs as a Hystrix
+     * command like any other call to NI, so it is bounded by its thread
+     * pool and circuit breaker.
+     */
+    private void revalidate(AccessCacheKey key, String id, String clientIp, String ssoToken) {
+        revalidations.execute(key, () -> {
+            CompletableFuture<Boolean> refreshed = new CompletableFuture<>();
+            new HasAccessCommand(key, id, clientIp, ssoToken).observe().subscribe(refreshed::complete, refreshed::completeExceptionally);
+            return refreshed;
+        });
+    }
+
+    private boolean getLastKnownGood(AccessCacheKey key) {
+        Boolean lastKnownGood = accessCache.getStaleIfError(key);
+        return lastKnownGood != null && lastKnownGood;
+    }
+
+    private boolean askNi(AccessCacheKey key, String id, String clientIp, String ssoToken) {
+        try {
+            boolean hasAccess = niClient.hasAccess(ssoToken, id, null, clientIp);
+            accessCache.put(key, hasAccess);
+            return hasAccess;
         } catch (Exception ex) {
             throw new SecurityException("Error getting access info for id " + id, ex);
         }
     }
 
-    private boolean hasAccessFallback(String id, String clientIp, String ssoToken) {
-        return false;
+    /**
+     * Asks NI for one id, falling back to the last known decision when
+     * there is one, else denied.
+     */
+    private class HasAccessCommand extends HystrixCommand<Boolean> {
+        private final AccessCacheKey key;
+        private final String id;
+        private final String clientIp;
+        private final String ssoToken;
+
+        HasAccessCommand(AccessCacheKey key, String id, String clientIp, String ssoToken) {
+            super(HAS_ACCESS_COMMAND);
+            this.key = key;
+            this.id = id;
+            this.clientIp = clientIp;
+            this.ssoToken = ssoToken;
+        }
+
+        @Override
+        protected Boolean run() {
+            return askNi(key, id, clientIp, ssoToken);
+        }
+
+        @Override
+        protected Boolean getFallback() {
+            return getLastKnownGood(key);
+        }
+    }
+
+    @Override
+    public void invalidate(String ssoToken) {
+        if (ssoToken != null) {
+            accessCache.invalidateIf(key -> ssoToken.equals(key.getSsoToken()));
+        }
     }
 
 }
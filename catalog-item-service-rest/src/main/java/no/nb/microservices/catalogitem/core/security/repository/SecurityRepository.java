@@ -1,5 +1,8 @@
 package no.nb.microservices.catalogitem.core.security.repository;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * 
  * @author ronnymikalsen
@@ -9,4 +12,17 @@ public interface SecurityRepository {
 
     boolean hasAccess(String id, String xRealIp, String ssoToken);
 
+    /**
+     * Decides access to many items for the same user in one call.
+     *
+     * @return a decision for every given id
+     */
+    Map<String, Boolean> hasAccess(Collection<String> ids, String xRealIp, String ssoToken);
+
+    /**
+     * Forgets every access decision made for the token, e.g. when it is
+     * logged out.
+     */
+    void invalidate(String ssoToken);
+
 }
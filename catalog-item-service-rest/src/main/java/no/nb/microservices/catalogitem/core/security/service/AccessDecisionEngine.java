@@ -0,0 +1,122 @@
+package no.nb.microservices.catalogitem.core.security.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.htrace.Span;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+
+import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
+import no.nb.microservices.catalogitem.core.utils.FutureUtils;
+import no.nb.microservices.catalogsearchindex.ItemResource;
+
+/**
+ * Decides access from the content classes of an item whenever they leave
+ * no doubt, and asks NI only when the answer depends on who and where the
+ * user is.
+ */
+@Service
+public class AccessDecisionEngine implements PublicMetrics {
+
+    /**
+     * Content classes of material anybody may see from anywhere.
+     */
+    public static final Set<String> PUBLIC_CONTENT_CLASSES = Collections.unmodifiableSet(new LinkedHashSet<>(
+            Arrays.asList("public", "mavispublic", "statfjordpublic", "friggpublic", "showonly")));
+
+    private final SecurityService securityService;
+    private final AtomicLong localDecisions = new AtomicLong();
+    private final AtomicLong niDecisions = new AtomicLong();
+    private final AtomicLong rejectedDecisions = new AtomicLong();
+
+    @Autowired
+    public AccessDecisionEngine(SecurityService securityService) {
+        super();
+        this.securityService = securityService;
+    }
+
+    /**
+     * @param resource the index resource of the item, null when unknown
+     */
+    public CompletableFuture<Boolean> hasAccess(TracableId id, ItemResource resource) {
+        if (isPublic(resource)) {
+            localDecisions.incrementAndGet();
+            return CompletableFuture.completedFuture(true);
+        }
+        niDecisions.incrementAndGet();
+        try {
+            return FutureUtils.toCompletableFuture(securityService.hasAccess(id));
+        } catch (RejectedExecutionException ex) {
+            rejectedDecisions.incrementAndGet();
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    /**
+     * Decides access to a page of items, asking NI about the ambiguous ones
+     * in one call.
+     *
+     * @return a decision for every item id
+     */
+    public CompletableFuture<Map<String, Boolean>> hasAccess(Collection<ItemResource> resources, Span span, SecurityInfo securityInfo) {
+        Map<String, Boolean> decisions = new HashMap<>();
+        List<TracableId> ambiguous = new ArrayList<>();
+        for (ItemResource resource : resources) {
+            if (isPublic(resource)) {
+                decisions.put(resource.getItemId(), true);
+            } else {
+                ambiguous.add(new TracableId(span, resource.getItemId(), securityInfo));
+            }
+        }
+        localDecisions.addAndGet(decisions.size());
+        if (ambiguous.isEmpty()) {
+            return CompletableFuture.completedFuture(decisions);
+        }
+        niDecisions.addAndGet(ambiguous.size());
+        try {
+            return FutureUtils.toCompletableFuture(securityService.hasAccess(ambiguous))
+                    .thenApply(niDecided -> {
+                        decisions.putAll(niDecided);
+                        return decisions;
+                    });
+        } catch (RejectedExecutionException ex) {
+            rejectedDecisions.addAndGet(ambiguous.size());
+            ambiguous.forEach(id -> decisions.put(id.getId(), false));
+            return CompletableFuture.completedFuture(decisions);
+        }
+    }
+
+    public boolean isPublic(ItemResource resource) {
+        return resource != null && resource.getContentClasses() != null
+                && resource.getContentClasses().stream().anyMatch(PUBLIC_CONTENT_CLASSES::contains);
+    }
+
+    /**
+     * access.decisions.local counts the NI calls avoided, and
+     * access.decisions.rejected the NI decisions denied because the access
+     * executor was full.
+     */
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Collection<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<Long>("access.decisions.local", localDecisions.get()));
+        metrics.add(new Metric<Long>("access.decisions.ni", niDecisions.get()));
+        metrics.add(new Metric<Long>("access.decisions.rejected", rejectedDecisions.get()));
+        return metrics;
+    }
+
+}
@@ -1,12 +1,16 @@
 package no.nb.microservices.catalogitem.core.security.service;
 
-import java.util.concurrent.Future;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.apache.htrace.Trace;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
 
 import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
@@ -17,14 +21,32 @@ public class NiSecurityService implements SecurityService {
 
     @Autowired
     SecurityRepository securityRepository;
-    
+
     @Override
-    @Async
-    public Future<Boolean> hasAccess(TracableId id) {
+    @Async("accessExecutor")
+    public ListenableFuture<Boolean> hasAccess(TracableId id) {
         Trace.continueSpan(id.getSpan());
         SecurityInfo securityInfo = id.getSecurityInfo();
         Boolean hasAccess =  securityRepository.hasAccess(id.getId(), securityInfo.getxRealIp(), securityInfo.getSsoToken());
         return new AsyncResult<Boolean>(hasAccess);
     }
 
+    @Override
+    @Async("accessExecutor")
+    public ListenableFuture<Map<String, Boolean>> hasAccess(List<TracableId> ids) {
+        if (ids.isEmpty()) {
+            return new AsyncResult<Map<String, Boolean>>(Collections.emptyMap());
+        }
+        Trace.continueSpan(ids.get(0).getSpan());
+        SecurityInfo securityInfo = ids.get(0).getSecurityInfo();
+        List<String> itemIds = ids.stream().map(TracableId::getId).collect(Collectors.toList());
+        Map<String, Boolean> hasAccess = securityRepository.hasAccess(itemIds, securityInfo.getxRealIp(), securityInfo.getSsoToken());
+        return new AsyncResult<Map<String, Boolean>>(hasAccess);
+    }
+
+    @Override
+    public void invalidate(String ssoToken) {
+        securityRepository.invalidate(ssoToken);
+    }
+
 }
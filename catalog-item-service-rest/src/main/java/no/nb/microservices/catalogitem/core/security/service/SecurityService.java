@@ -1,9 +1,22 @@
 package no.nb.microservices.catalogitem.core.security.service;
 
-import java.util.concurrent.Future;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.concurrent.ListenableFuture;
 
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
 
 public interface SecurityService {
-    Future<Boolean> hasAccess(TracableId id);
-}
\ No newline at end of file
+    ListenableFuture<Boolean> hasAccess(TracableId id);
+
+    /**
+     * Decides access to a whole page of items in one call. The ids must
+     * share the same SecurityInfo.
+     *
+     * @return a decision for every item id
+     */
+    ListenableFuture<Map<String, Boolean>> hasAccess(List<TracableId> ids);
+
+    void invalidate(String ssoToken);
+}
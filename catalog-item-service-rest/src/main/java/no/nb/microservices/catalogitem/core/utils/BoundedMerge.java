@@ -0,0 +1,144 @@
+package no.nb.microservices.catalogitem.core.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Maps every element of a publisher to an asynchronous result with at most
+ * maxConcurrency results in flight. A new element is only requested when a
+ * result completes, so a slow downstream holds the publisher back instead
+ * of piling up work on the executors.
+ */
+public final class BoundedMerge<T, R> implements Subscriber<T> {
+
+    private final int maxConcurrency;
+    private final Function<? super T, CompletableFuture<R>> mapper;
+    private final List<CompletableFuture<R>> results = new ArrayList<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger requesting = new AtomicInteger();
+    private volatile Subscription subscription;
+    private int inFlight;
+    private boolean completed;
+    private boolean cancelled;
+
+    public BoundedMerge(int maxConcurrency, Function<? super T, CompletableFuture<R>> mapper) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        request(maxConcurrency);
+    }
+
+    @Override
+    public void onNext(T element) {
+        CompletableFuture<R> result;
+        try {
+            result = mapper.apply(element);
+        } catch (RuntimeException ex) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(ex);
+        }
+        synchronized (this) {
+            results.add(result);
+            inFlight++;
+        }
+        result.whenComplete((value, ex) -> onResult());
+    }
+
+    @Override
+    public void onError(Throwable ex) {
+        done.completeExceptionally(ex);
+    }
+
+    @Override
+    public void onComplete() {
+        boolean finished;
+        synchronized (this) {
+            completed = true;
+            finished = inFlight == 0;
+        }
+        if (finished) {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Completes when the publisher is done and every result has completed,
+     * failed results included.
+     */
+    public CompletableFuture<Void> whenDone() {
+        return done;
+    }
+
+    /**
+     * Stops requesting elements. Results already started keep running.
+     *
+     * @return the results started so far, in the order of their elements
+     */
+    public List<CompletableFuture<R>> cancel() {
+        synchronized (this) {
+            cancelled = true;
+        }
+        Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+        return getResults();
+    }
+
+    /**
+     * @return the results started so far, in the order of their elements
+     */
+    public synchronized List<CompletableFuture<R>> getResults() {
+        return new ArrayList<>(results);
+    }
+
+    private void onResult() {
+        boolean finished;
+        boolean more;
+        synchronized (this) {
+            inFlight--;
+            finished = completed && inFlight == 0;
+            more = !completed && !cancelled;
+        }
+        if (finished) {
+            done.complete(null);
+        } else if (more) {
+            request(1);
+        }
+    }
+
+    /**
+     * Results complete on many threads, but requests must reach the
+     * subscription one at a time. Whoever gets here first drains the demand
+     * added meanwhile, including demand added by itself through onNext.
+     */
+    private void request(long n) {
+        requested.addAndGet(n);
+        if (requesting.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            long demand = requested.getAndSet(0);
+            if (demand > 0) {
+                subscription.request(demand);
+            }
+            missed = requesting.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,43 @@
+package no.nb.microservices.catalogitem.core.utils;
+
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public final class FutureUtils {
+
+    private FutureUtils() {
+        super();
+    }
+
+    public static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> listenableFuture) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        listenableFuture.addCallback(completableFuture::complete, completableFuture::completeExceptionally);
+        return completableFuture;
+    }
+
+    /**
+     * Calls an @Async method, and turns the rejection of a full executor
+     * into a failed future, so that it takes the fallback of a failed call.
+     */
+    public static <T> CompletableFuture<T> callAsync(Supplier<ListenableFuture<T>> asyncCall) {
+        try {
+            return toCompletableFuture(asyncCall.get());
+        } catch (RejectedExecutionException ex) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(ex);
+            return rejected;
+        }
+    }
+
+    public static <T> CompletableFuture<List<T>> allAsList(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()]))
+                .thenApply(done -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,38 @@
+package no.nb.microservices.catalogitem.rest.controller;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import no.nb.commons.web.util.UserUtils;
+import no.nb.htrace.annotation.Traceable;
+import no.nb.microservices.catalogitem.core.security.service.SecurityService;
+
+@RestController
+@RequestMapping(value = "/catalog/v1/access")
+public class AccessController {
+
+    private final SecurityService securityService;
+
+    @Autowired
+    public AccessController(SecurityService securityService) {
+        super();
+        this.securityService = securityService;
+    }
+
+    /**
+     * Forgets the cached access decisions of the caller's SSO token. To be
+     * called when the token is logged out.
+     */
+    @Traceable(description="invalidate access")
+    @RequestMapping(method = RequestMethod.DELETE)
+    public ResponseEntity<Void> invalidate(HttpServletRequest request) {
+        securityService.invalidate(UserUtils.getSsoToken(request));
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
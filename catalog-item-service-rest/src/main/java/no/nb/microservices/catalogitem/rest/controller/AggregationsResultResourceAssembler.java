@@ -0,0 +1,42 @@
+package no.nb.microservices.catalogitem.rest.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import no.nb.microservices.catalogitem.core.search.model.SearchAggregated;
+import no.nb.microservices.catalogitem.rest.model.ItemSearchResource;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedResources.PageMetadata;
+import org.springframework.hateoas.ResourceAssembler;
+import org.springframework.hateoas.mvc.ControllerLinkBuilderFactory;
+import org.springframework.hateoas.mvc.UriComponentsContributor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+/**
+ * Builds a count-only search resource. There are no items and no
+ * pagination links, only the total and the aggregations.
+ */
+public class AggregationsResultResourceAssembler implements ResourceAssembler<SearchAggregated, ItemSearchResource> {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public ItemSearchResource toResource(SearchAggregated result) {
+        ItemSearchResource resource = new ItemSearchResource(new PageMetadata(0, 0, result.getPage().getTotalElements()));
+
+        JsonNode jsonNode = objectMapper.convertValue(result.getAggregations(), JsonNode.class);
+        resource.getEmbedded().setAggregations(jsonNode);
+
+        ControllerLinkBuilderFactory controllerLinkBuilderFactory = new ControllerLinkBuilderFactory();
+        List<UriComponentsContributor> uriComponentsContributors = Arrays.asList(new SearchRequestUriComponentsContributor());
+        controllerLinkBuilderFactory.setUriComponentsContributors(uriComponentsContributors);
+        resource.add(controllerLinkBuilderFactory
+                .linkTo(methodOn(ItemController.class).aggregations(result.getSearchRequest()))
+                .withRel(Link.REL_SELF));
+
+        return resource;
+    }
+}
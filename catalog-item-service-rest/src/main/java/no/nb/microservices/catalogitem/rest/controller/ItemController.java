@@ -1,8 +1,12 @@
 package no.nb.microservices.catalogitem.rest.controller;
 
+import java.io.IOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -11,14 +15,19 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import no.nb.htrace.annotation.Traceable;
+import no.nb.microservices.catalogitem.core.item.model.BulkItem;
 import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.core.item.service.ItemService;
 import no.nb.microservices.catalogitem.core.search.model.SearchAggregated;
 import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
 import no.nb.microservices.catalogitem.core.search.service.ISearchService;
+import no.nb.microservices.catalogitem.rest.controller.assembler.BulkItemsResourceAssembler;
 import no.nb.microservices.catalogitem.rest.controller.assembler.ItemResultResourceAssembler;
 import no.nb.microservices.catalogitem.rest.controller.assembler.RelatedItemsResourceAssembler;
+import no.nb.microservices.catalogitem.rest.model.BulkItemsResource;
 import no.nb.microservices.catalogitem.rest.model.ItemResource;
 import no.nb.microservices.catalogitem.rest.model.ItemSearchResource;
 import no.nb.microservices.catalogitem.rest.model.RelatedItemResource;
@@ -29,6 +38,7 @@ public class ItemController {
 
     private final ISearchService searchService;
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
     @InitBinder
     public void sortBinderInit(WebDataBinder binder) {
@@ -36,10 +46,11 @@ public class ItemController {
     }
 
     @Autowired
-    public ItemController(ISearchService searchService, ItemService itemService) {
+    public ItemController(ISearchService searchService, ItemService itemService, @Qualifier("_halObjectMapper") ObjectMapper objectMapper) {
         super();
         this.searchService = searchService;
         this.itemService = itemService;
+        this.objectMapper = objectMapper;
     }
 
     @Traceable(description="items")
@@ -50,6 +61,32 @@ public class ItemController {
         return new ResponseEntity<>(resource, HttpStatus.OK);
     }
 
+    /**
+     * Same search as newline delimited JSON. Every item is written as an
+     * ItemResource line as soon as it is hydrated, in the order the items
+     * get ready. The last line is the ItemSearchResource without items:
+     * page, aggregations and links.
+     */
+    @Traceable(description="itemStream")
+    @RequestMapping(method = RequestMethod.GET, produces = ItemStreamWriter.APPLICATION_NDJSON_VALUE)
+    public void searchStream(SearchRequest searchRequest, @PageableDefault Pageable pageable, HttpServletResponse response) throws IOException {
+        response.setContentType(ItemStreamWriter.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        ItemStreamWriter writer = new ItemStreamWriter(response.getOutputStream(), objectMapper);
+
+        SearchAggregated result = searchService.search(searchRequest, pageable, writer.items());
+        writer.write(new SearchResultResourceAssembler().toSummary(result));
+        writer.close();
+    }
+
+    @Traceable(description="aggregations")
+    @RequestMapping(value = "/aggregations", method = RequestMethod.GET)
+    public ResponseEntity<ItemSearchResource> aggregations(SearchRequest searchRequest) {
+        SearchAggregated result = searchService.aggregations(searchRequest);
+        ItemSearchResource resource = new AggregationsResultResourceAssembler().toResource(result);
+        return new ResponseEntity<>(resource, HttpStatus.OK);
+    }
+
     @Traceable(description="item")
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
     public ResponseEntity<ItemResource> getItem(@PathVariable(value = "id") String id,
@@ -60,6 +97,20 @@ public class ItemController {
         return new ResponseEntity<>(resource, HttpStatus.OK);
     }
 
+    /**
+     * Gets many items by sesamid or URN at once. Every id gets a result with
+     * a status, in the order of the request.
+     */
+    @Traceable(description="bulk")
+    @RequestMapping(value = "/_bulk", method = RequestMethod.POST)
+    public ResponseEntity<BulkItemsResource> getItems(@RequestBody List<String> ids,
+            @RequestParam(required=false) List<String> fields,
+            @RequestParam(required=false, defaultValue = "metadata") String expand) {
+        List<BulkItem> items = itemService.getItemsByIds(ids, fields, expand);
+        BulkItemsResource resource = new BulkItemsResourceAssembler().toResource(items);
+        return new ResponseEntity<>(resource, HttpStatus.OK);
+    }
+
     @Traceable(description="relatedItems")
     @RequestMapping(value = "/{id}/relatedItems", method = RequestMethod.GET)
     public ResponseEntity<RelatedItemResource> getRelatedItems(@PathVariable(value = "id") String id) {
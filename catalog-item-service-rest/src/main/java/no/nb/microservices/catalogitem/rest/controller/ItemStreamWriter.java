@@ -0,0 +1,78 @@
+package no.nb.microservices.catalogitem.rest.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import no.nb.microservices.catalogitem.core.item.model.Item;
+import no.nb.microservices.catalogitem.rest.controller.assembler.ItemResultResourceAssembler;
+
+/**
+ * Writes newline delimited JSON, one value per line, flushing after every
+ * line. Values may come from several threads and are written one at a
+ * time. A failed write, typically a client that went away, is kept and
+ * thrown from close, later values are ignored.
+ */
+class ItemStreamWriter {
+
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final OutputStream out;
+    private final ObjectMapper objectMapper;
+    private IOException failure;
+
+    ItemStreamWriter(OutputStream out, ObjectMapper objectMapper) {
+        this.out = out;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes items as ItemResource lines. Items are handed over on the
+     * threads that hydrate them, so this brings along the request
+     * attributes of the calling thread for building links.
+     */
+    Consumer<Item> items() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        return item -> {
+            RequestAttributes current = RequestContextHolder.getRequestAttributes();
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                write(new ItemResultResourceAssembler().toResource(item));
+            } finally {
+                RequestContextHolder.setRequestAttributes(current);
+            }
+        };
+    }
+
+    synchronized void write(Object value) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException ex) {
+            failure = ex;
+        }
+    }
+
+    /**
+     * @return false once a write has failed
+     */
+    synchronized boolean isOpen() {
+        return failure == null;
+    }
+
+    synchronized void close() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        out.flush();
+    }
+}
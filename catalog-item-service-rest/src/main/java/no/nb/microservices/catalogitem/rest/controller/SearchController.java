@@ -7,8 +7,10 @@ import no.nb.microservices.catalogitem.core.search.service.ISearchService;
 import no.nb.microservices.catalogitem.rest.controller.assembler.SuperSearchResultResourceAssembler;
 import no.nb.microservices.catalogitem.rest.model.ItemSearchResource;
 import no.nb.microservices.catalogitem.rest.model.SuperItemSearchResource;
-import org.apache.commons.lang3.NotImplementedException;
+import no.nb.microservices.catalogitem.core.search.model.SearchAggregated;
+import no.nb.microservices.catalogitem.core.item.model.Item;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -17,15 +19,23 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.function.Consumer;
+
 @RestController
 @RequestMapping(value = "/catalog/v1")
 public class SearchController {
 
     private final ISearchService searchService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public SearchController(ISearchService searchService) {
+    public SearchController(ISearchService searchService, @Qualifier("_halObjectMapper") ObjectMapper objectMapper) {
         this.searchService = searchService;
+        this.objectMapper = objectMapper;
     }
 
     @InitBinder
@@ -48,6 +58,32 @@ public class SearchController {
     @RequestMapping(value = "/scroll", method = RequestMethod.GET)
     public ResponseEntity<ItemSearchResource> search(
             @RequestParam(value = "scrollId") String scrollId) {
-        throw new NotImplementedException("Scroll not implemented");
+        SearchAggregated result = searchService.scroll(scrollId, item -> {});
+        ItemSearchResource resource = new SearchResultResourceAssembler().toResource(result);
+        return new ResponseEntity<>(resource, HttpStatus.OK);
+    }
+
+    /**
+     * Walks the rest of the scroll as newline delimited JSON, one
+     * ItemResource line per item as soon as it is hydrated. Only one batch
+     * is held at a time. The last line is the summary of the last batch.
+     */
+    @Traceable(description="scrollStream")
+    @RequestMapping(value = "/scroll", method = RequestMethod.GET, produces = ItemStreamWriter.APPLICATION_NDJSON_VALUE)
+    public void scrollStream(@RequestParam(value = "scrollId") String scrollId, HttpServletResponse response) throws IOException {
+        response.setContentType(ItemStreamWriter.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        ItemStreamWriter writer = new ItemStreamWriter(response.getOutputStream(), objectMapper);
+        Consumer<Item> items = writer.items();
+
+        SearchAggregated batch;
+        String nextScrollId = scrollId;
+        do {
+            batch = searchService.scroll(nextScrollId, items);
+            nextScrollId = batch.getScrollId();
+        } while (nextScrollId != null && batch.getPage().hasContent() && writer.isOpen());
+
+        writer.write(new SearchResultResourceAssembler().toSummary(batch));
+        writer.close();
     }
 }
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.core.search.model.SearchAggregated;
 import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
+import no.nb.microservices.catalogitem.core.search.model.SearchStatus;
 import no.nb.microservices.catalogitem.rest.controller.assembler.ItemResultResourceAssembler;
 import no.nb.microservices.catalogitem.rest.model.ItemResource;
 import no.nb.microservices.catalogitem.rest.model.ItemSearchResource;
@@ -34,18 +35,36 @@ public class SearchResultResourceAssembler implements ResourceAssembler<SearchAg
     @Override
     public ItemSearchResource toResource(SearchAggregated result) {
 
-        ItemSearchResource resources = new ItemSearchResource(asPageMetadata(result.getPage()));
+        ItemSearchResource resources = toSummary(result);
 
         for (Item item : result.getPage().getContent()) {
             ItemResource itemResource = new ItemResultResourceAssembler().toResource(item);
             resources.getEmbedded().getItems().add(itemResource);
         }
 
+        return resources;
+    }
+
+    /**
+     * Everything but the items: page, aggregations, content searches and
+     * links.
+     */
+    public ItemSearchResource toSummary(SearchAggregated result) {
+
+        ItemSearchResource resources = new ItemSearchResource(asPageMetadata(result.getPage()));
+
         resources.getEmbedded().setContentSearch(result.getContentSearches());
+        if (result.getDroppedContentSearches() > 0) {
+            resources.setDroppedContentSearches(result.getDroppedContentSearches());
+        }
 
         JsonNode jsonNode = objectMapper.convertValue(result.getAggregations(), JsonNode.class);
         resources.getEmbedded().setAggregations(jsonNode);
 
+        if (result.getStatus() != SearchStatus.COMPLETE) {
+            resources.setStatus(result.getStatus().name());
+        }
+
         return addPaginationLinks(resources, result);
     }
 
@@ -2,6 +2,7 @@ package no.nb.microservices.catalogitem.rest.controller.assembler;
 
 import java.util.List;
 
+import no.nb.microservices.catalogitem.core.security.service.AccessDecisionEngine;
 import no.nb.microservices.catalogitem.rest.model.AccessInfo;
 import no.nb.microservices.catalogsearchindex.ItemResource;
 
@@ -44,8 +45,7 @@ public final class AccessInfoBuilder {
     private String accessAllowedFrom() {
         String result = "";
         List<String> contentClasses = getItemResource().getContentClasses();
-        if (contentClasses.contains("public") || contentClasses.contains("mavispublic") || contentClasses.contains("statfjordpublic") || 
-                contentClasses.contains("friggpublic") || contentClasses.contains("showonly")) {
+        if (contentClasses.stream().anyMatch(AccessDecisionEngine.PUBLIC_CONTENT_CLASSES::contains)) {
             result = "EVERYWHERE";
         } else if (contentClasses.contains("bokhylla")) {
             result = "NORWAY";
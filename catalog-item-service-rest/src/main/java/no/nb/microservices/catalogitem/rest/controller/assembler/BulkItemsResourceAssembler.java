@@ -0,0 +1,25 @@
+package no.nb.microservices.catalogitem.rest.controller.assembler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.hateoas.ResourceAssembler;
+
+import no.nb.microservices.catalogitem.core.item.model.BulkItem;
+import no.nb.microservices.catalogitem.rest.model.BulkItemResource;
+import no.nb.microservices.catalogitem.rest.model.BulkItemsResource;
+import no.nb.microservices.catalogitem.rest.model.ItemResource;
+
+public class BulkItemsResourceAssembler implements ResourceAssembler<List<BulkItem>, BulkItemsResource> {
+
+    @Override
+    public BulkItemsResource toResource(List<BulkItem> bulkItems) {
+        ItemResultResourceAssembler itemAssembler = new ItemResultResourceAssembler();
+        List<BulkItemResource> resources = new ArrayList<>();
+        for (BulkItem bulkItem : bulkItems) {
+            ItemResource item = bulkItem.getStatus() == BulkItem.Status.OK ? itemAssembler.toResource(bulkItem.getItem()) : null;
+            resources.add(new BulkItemResource(bulkItem.getId(), bulkItem.getStatus().name(), item));
+        }
+        return new BulkItemsResource(resources);
+    }
+}
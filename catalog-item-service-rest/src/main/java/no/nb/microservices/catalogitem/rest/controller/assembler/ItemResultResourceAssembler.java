@@ -1,32 +1,32 @@
 package no.nb.microservices.catalogitem.rest.controller.assembler;
 
+import no.nb.microservices.catalogitem.core.item.model.FetchPlan;
 import no.nb.microservices.catalogitem.core.item.model.Item;
-import no.nb.microservices.catalogitem.core.utils.ItemUtils;
+import no.nb.microservices.catalogitem.core.item.model.RelatedItems;
 import no.nb.microservices.catalogitem.rest.controller.ItemController;
 import no.nb.microservices.catalogitem.rest.model.ItemResource;
 import no.nb.microservices.catalogmetadata.model.mods.v3.RelatedItem;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
 
 public class ItemResultResourceAssembler extends ResourceAssemblerSupport<Item, ItemResource> {
 
-    public static final List<String> SUPPORTED_RELATED_ITEMS = Arrays.asList("constituent", "host", "preceding", "succeeding", "series");
     public ItemResultResourceAssembler() {
         super(ItemController.class, ItemResource.class);
     }
 
     @Override
     public ItemResource toResource(Item item) {
+        FetchPlan fetchPlan = item.getFetchPlan();
         StringJoiner expand = new StringJoiner(",");
         expand.add("metadata");
 
         ItemResource resource = new ItemResource(item.getId());
-        if (ItemUtils.showField(item.getFields(), "_links")) {
-            createLinks(item, resource);
+        if (fetchPlan.showsLinks()) {
+            createLinks(item, ResourceLinks.forCurrentRequest(), resource);
         }
 
         if (hasRelatedItems(item)) {
@@ -35,14 +35,14 @@ public class ItemResultResourceAssembler extends ResourceAssemblerSupport<Item,
 
         resource.setExpand(expand.toString());
 
-        if (ItemUtils.showField(item.getFields(), "accessInfo")) {
+        if (fetchPlan.showsAccessInfo()) {
             resource.setAccessInfo(
                     new AccessInfoBuilder().setItemResource(item.getItemResource()).access(item.hasAccess()).build());
         }
 
-        if (ItemUtils.isExpand(item.getExpand(), "metadata")) {
+        if (fetchPlan.showsMetadata() && fetchPlan.expandsMetadata()) {
             resource.setMetadata(new MetadataBuilder().withItem(item).withExpand().build());
-        } else {
+        } else if (fetchPlan.showsMetadata()) {
             resource.setMetadata(new MetadataBuilder().withItem(item).build());
         }
 
@@ -55,22 +55,22 @@ public class ItemResultResourceAssembler extends ResourceAssemblerSupport<Item,
         return resource;
     }
 
-    private void createLinks(Item item, ItemResource resource) {
+    private void createLinks(Item item, ResourceLinks links, ItemResource resource) {
         StreamingInfoStrategy streamingInfoStrategy = StreamingInfoFactory
                 .getStreamingInfoStrategy(getFirstMediatype(item));
-        resource.add(createSelfLink(item));
-        resource.add(createModsLink(item));
-        resource.add(createPresentationLink(item));
-        resource.add(createEnwLink(item));
-        resource.add(createRisLink(item));
-        resource.add(createWikiLink(item));
+        resource.add(links.link(ResourceTemplateLink.ITEM_SELF, Link.REL_SELF, item.getId()));
+        resource.add(links.link(ResourceTemplateLink.MODS, "mods", item.getId()));
+        resource.add(links.link(ResourceTemplateLink.PRESENTATION, "presentation", item.getId()));
+        resource.add(links.link(ResourceTemplateLink.ENW, "enw", item.getId()));
+        resource.add(links.link(ResourceTemplateLink.RIS, "ris", item.getId()));
+        resource.add(links.link(ResourceTemplateLink.WIKI, "wiki", item.getId()));
         resource.add(createThumbnailLinks(item));
         if (hasRelatedItems(item)) {
-            resource.add(createRelatedItemsLink(item));
+            resource.add(links.link(ResourceTemplateLink.RELATED_ITEMS, "relatedItems", item.getId()));
         }
 
         if (streamingInfoStrategy.hasStreamingLink()) {
-            resource.add(createPlaylistLink(item));
+            resource.add(links.link(ResourceTemplateLink.PLAYLIST, "playlist", item.getId()));
         }
     }
 
@@ -85,7 +85,7 @@ public class ItemResultResourceAssembler extends ResourceAssemblerSupport<Item,
     }
 
     private boolean isSupportedRelatedItems(RelatedItem r) {
-        return ItemResultResourceAssembler.SUPPORTED_RELATED_ITEMS.contains(r.getType());
+        return RelatedItems.SUPPORTED_TYPES.contains(r.getType());
     }
 
     private boolean hasRelatedItemIdentifier(RelatedItem r) {
@@ -93,38 +93,6 @@ public class ItemResultResourceAssembler extends ResourceAssemblerSupport<Item,
                 || r.getIdentifier() != null;
     }
 
-    private Link createSelfLink(Item item) {
-        return ResourceLinkBuilder.linkTo(ResourceTemplateLink.ITEM_SELF, item.getId()).withSelfRel();
-    }
-
-    private Link createModsLink(Item item) {
-        return ResourceLinkBuilder.linkTo(ResourceTemplateLink.MODS, item.getId()).withRel("mods");
-    }
-
-    private Link createPresentationLink(Item item) {
-        return ResourceLinkBuilder.linkTo(ResourceTemplateLink.PRESENTATION, item.getId()).withRel("presentation");
-    }
-
-    private Link createEnwLink(Item item) {
-        return ResourceLinkBuilder.linkTo(ResourceTemplateLink.ENW, item.getId()).withRel("enw");
-    }
-
-    private Link createRisLink(Item item) {
-        return ResourceLinkBuilder.linkTo(ResourceTemplateLink.RIS, item.getId()).withRel("ris");
-    }
-
-    private Link createWikiLink(Item item) {
-        return ResourceLinkBuilder.linkTo(ResourceTemplateLink.WIKI, item.getId()).withRel("wiki");
-    }
-
-    private Link createPlaylistLink(Item item) {
-        return ResourceLinkBuilder.linkTo(ResourceTemplateLink.PLAYLIST, item.getId()).withRel("playlist");
-    }
-
-    private Link createRelatedItemsLink(Item item) {
-        return ResourceLinkBuilder.linkTo(ResourceTemplateLink.RELATED_ITEMS, item.getId()).withRel("relatedItems");
-    }
-
     private String getFirstMediatype(Item item) {
         if (item.getItemResource() != null && !item.getItemResource().getMediaTypes().isEmpty()) {
             return item.getItemResource().getMediaTypes().get(0);
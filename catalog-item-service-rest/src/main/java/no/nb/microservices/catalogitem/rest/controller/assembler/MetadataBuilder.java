@@ -1,5 +1,6 @@
 package no.nb.microservices.catalogitem.rest.controller.assembler;
 
+import no.nb.microservices.catalogitem.core.item.model.FetchPlan;
 import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.rest.model.Metadata;
 import no.nb.microservices.catalogmetadata.model.mods.v3.Abstract;
@@ -17,10 +18,15 @@ public final class MetadataBuilder {
     private Mods mods;
     private ItemResource itemResource;
     private boolean simplified;
+    private FetchPlan fetchPlan = FetchPlan.DEFAULT;
 
+    /**
+     * Only the metadata fields in the item's fetch plan are built.
+     */
     public MetadataBuilder withItem(Item item) {
         this.mods = item.getMods();
         this.itemResource = item.getItemResource();
+        this.fetchPlan = item.getFetchPlan();
         this.simplified = true;
         return this;
     }
@@ -39,16 +45,42 @@ public final class MetadataBuilder {
 
     public Metadata buildSimplified() {
         Metadata metadata = new Metadata();
-        metadata.setTitle(getTitle());
-        metadata.setMediaTypes(getMediaTypes());
-        metadata.setCreators(getCreators());
-        metadata.setOriginInfo(new OriginInfoBuilder().withItemResource(getItemResource()).build());
-        metadata.setIdentifiers(new IdentifiersBuilder().withItemResource(itemResource).build());
-        metadata.setContentClasses(getContentClasses());
-        metadata.setMetadataClasses(getMetadataClasses());
+        setIndexFields(metadata);
+        if (shows("originInfo")) {
+            metadata.setOriginInfo(new OriginInfoBuilder().withItemResource(getItemResource()).build());
+        }
+        if (shows("identifiers")) {
+            metadata.setIdentifiers(new IdentifiersBuilder().withItemResource(itemResource).build());
+        }
         return metadata;
     }
 
+    /**
+     * The fields taken from the index resource alone, the same simplified
+     * and expanded.
+     */
+    private void setIndexFields(Metadata metadata) {
+        if (shows("title")) {
+            metadata.setTitle(getTitle());
+        }
+        if (shows("mediaTypes")) {
+            metadata.setMediaTypes(getMediaTypes());
+        }
+        if (shows("creators")) {
+            metadata.setCreators(getCreators());
+        }
+        if (shows("contentClasses")) {
+            metadata.setContentClasses(getContentClasses());
+        }
+        if (shows("metadataClasses")) {
+            metadata.setMetadataClasses(getMetadataClasses());
+        }
+    }
+
+    private boolean shows(String field) {
+        return fetchPlan.showsMetadataField(field);
+    }
+
     private List<String> getMetadataClasses() {
         if (itemResource != null) {
             return itemResource.getMetadataClasses();
@@ -67,41 +99,68 @@ public final class MetadataBuilder {
 
     public Metadata buildFull() {
         Metadata metadata = new Metadata();
-        metadata.setTitle(getTitle());
-        metadata.setTitleInfos(new TitleInfosBuilder()
-                .withTitleInfos(mods.getTitleInfos())
-                .build());
-
-        metadata.setPeople(new NamesBuilder()
-                .withNames(mods.getNames())
-                .buildPersonList());
-        metadata.setCorporates(new NamesBuilder()
-                .withNames(mods.getNames())
-                .buildCorporatesList());
-        metadata.setOriginInfo(new OriginInfoBuilder().withOriginInfo(mods.getOriginInfo()).withItemResource(getItemResource()).withExpand().build());
-        metadata.setGeographic(new GeographicBuilder().withOriginInfo(mods.getOriginInfo()).withLocation(getLocation()).build());
-        metadata.setClassification(new ClassificationBuilder().withClassifications(mods.getClassifications()).build());
-        metadata.setIdentifiers(new IdentifiersBuilder()
-                .withIdentifiers(mods.getIdentifiers())
-                .withExpand()
-                .build());
-        metadata.setRecordInfo(new RecordInfoBuilder().withRecordInfo(mods.getRecordInfo()).build());
-        metadata.setSubject(new SubjectBuilder().withSubjects(mods.getSubjects()).build());
-        metadata.setSummary(getSummary());
-        metadata.setTypeOfResource(getTypeOfResource());
-        metadata.setGenre(getGenre());
-        metadata.setNotes(getNotes(getNotesPredicate()));
-        metadata.setStatementOfResponsibility(getNotes(getStatementOfResponsibilityPredicate()));
-        metadata.setLanguages(new LanguageBuilder(mods).build());
-        metadata.setPageCount(getPageCount());
-        metadata.setMediaTypes(getMediaTypes());
-        metadata.setCreators(getCreators());
-        metadata.setContentClasses(getContentClasses());
-        metadata.setMetadataClasses(getMetadataClasses());
-
-        StreamingInfoStrategy streamingInfoStrategy = StreamingInfoFactory.getStreamingInfoStrategy(getFirstMediatype());
-        metadata.setStreamingInfo(streamingInfoStrategy.getStreamingInfo(mods));
-
+        setIndexFields(metadata);
+        if (shows("titleInfos")) {
+            metadata.setTitleInfos(new TitleInfosBuilder()
+                    .withTitleInfos(mods.getTitleInfos())
+                    .build());
+        }
+        if (shows("people")) {
+            metadata.setPeople(new NamesBuilder()
+                    .withNames(mods.getNames())
+                    .buildPersonList());
+        }
+        if (shows("corporates")) {
+            metadata.setCorporates(new NamesBuilder()
+                    .withNames(mods.getNames())
+                    .buildCorporatesList());
+        }
+        if (shows("originInfo")) {
+            metadata.setOriginInfo(new OriginInfoBuilder().withOriginInfo(mods.getOriginInfo()).withItemResource(getItemResource()).withExpand().build());
+        }
+        if (shows("geographic")) {
+            metadata.setGeographic(new GeographicBuilder().withOriginInfo(mods.getOriginInfo()).withLocation(getLocation()).build());
+        }
+        if (shows("classification")) {
+            metadata.setClassification(new ClassificationBuilder().withClassifications(mods.getClassifications()).build());
+        }
+        if (shows("identifiers")) {
+            metadata.setIdentifiers(new IdentifiersBuilder()
+                    .withIdentifiers(mods.getIdentifiers())
+                    .withExpand()
+                    .build());
+        }
+        if (shows("recordInfo")) {
+            metadata.setRecordInfo(new RecordInfoBuilder().withRecordInfo(mods.getRecordInfo()).build());
+        }
+        if (shows("subject")) {
+            metadata.setSubject(new SubjectBuilder().withSubjects(mods.getSubjects()).build());
+        }
+        if (shows("summary")) {
+            metadata.setSummary(getSummary());
+        }
+        if (shows("typeOfResource")) {
+            metadata.setTypeOfResource(getTypeOfResource());
+        }
+        if (shows("genre")) {
+            metadata.setGenre(getGenre());
+        }
+        if (shows("notes")) {
+            metadata.setNotes(getNotes(getNotesPredicate()));
+        }
+        if (shows("statementOfResponsibility")) {
+            metadata.setStatementOfResponsibility(getNotes(getStatementOfResponsibilityPredicate()));
+        }
+        if (shows("languages")) {
+            metadata.setLanguages(new LanguageBuilder(mods).build());
+        }
+        if (shows("pageCount")) {
+            metadata.setPageCount(getPageCount());
+        }
+        if (shows("streamingInfo")) {
+            StreamingInfoStrategy streamingInfoStrategy = StreamingInfoFactory.getStreamingInfoStrategy(getFirstMediatype());
+            metadata.setStreamingInfo(streamingInfoStrategy.getStreamingInfo(mods));
+        }
         return metadata;
     }
 
@@ -7,7 +7,6 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
-import org.springframework.web.util.UriTemplate;
 
 import javax.servlet.http.HttpServletRequest;
 import java.net.URI;
@@ -19,8 +18,7 @@ class ResourceLinkBuilder extends LinkBuilderSupport<ResourceLinkBuilder> {
     }
 
     public static ResourceLinkBuilder linkTo(ResourceTemplateLink resourceTemplate, Object... parameters) {
-        UriTemplate template = new UriTemplate(resourceTemplate.getTemplate());
-        URI uri = template.expand(parameters);
+        URI uri = URI.create(resourceTemplate.expand(parameters));
         return new ResourceLinkBuilder(getBuilder()).slash(uri);
     }
 
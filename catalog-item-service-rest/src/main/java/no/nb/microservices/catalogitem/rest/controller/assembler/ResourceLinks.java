@@ -0,0 +1,46 @@
+package no.nb.microservices.catalogitem.rest.controller.assembler;
+
+import org.springframework.hateoas.Link;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Makes the links of the current request. Scheme, host and port are
+ * resolved from the request and its forwarded headers once, and the links
+ * are the base URI followed by the expanded template, giving the same href
+ * as {@link ResourceLinkBuilder#linkTo(ResourceTemplateLink, Object...)}
+ * without a URI builder per link.
+ */
+final class ResourceLinks {
+
+    private static final String REQUEST_ATTRIBUTE = ResourceLinks.class.getName();
+
+    private final String baseUri;
+
+    ResourceLinks(String baseUri) {
+        this.baseUri = baseUri.endsWith("/") ? baseUri.substring(0, baseUri.length() - 1) : baseUri;
+    }
+
+    /**
+     * Returns the links bound to the current request, resolving its base
+     * URI the first time. Must be called with the request attributes of the
+     * request in place.
+     */
+    static ResourceLinks forCurrentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        ResourceLinks links = (ResourceLinks) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (links == null) {
+            links = new ResourceLinks(ResourceLinkBuilder.getBuilder().build().toUriString());
+            attributes.setAttribute(REQUEST_ATTRIBUTE, links, RequestAttributes.SCOPE_REQUEST);
+        }
+        return links;
+    }
+
+    Link link(ResourceTemplateLink template, String rel, Object... parameters) {
+        return new Link(baseUri + template.expand(parameters), rel);
+    }
+
+    String getBaseUri() {
+        return baseUri;
+    }
+}
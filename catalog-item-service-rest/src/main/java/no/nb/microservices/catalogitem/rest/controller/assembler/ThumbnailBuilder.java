@@ -34,9 +34,9 @@ public class ThumbnailBuilder {
         List<Link> links = new ArrayList<>();
 
         if (StringUtils.isNotEmpty(getItemResource().getThumbnailUrn())) {
-            links.add(new Link(ResourceTemplateLink.THUMBNAIL.getTemplate().replace("{id}", getItemResource().getThumbnailUrn()).replace("{height}", "256")).withRel(THUMBNAIL_LARGE));
-            links.add(new Link(ResourceTemplateLink.THUMBNAIL.getTemplate().replace("{id}", getItemResource().getThumbnailUrn()).replace("{height}", "128")).withRel(THUMBNAIL_MEDIUM));
-            links.add(new Link(ResourceTemplateLink.THUMBNAIL.getTemplate().replace("{id}", getItemResource().getThumbnailUrn()).replace("{height}", "64")).withRel(THUMBNAIL_SMALL));
+            links.add(new Link(ResourceTemplateLink.THUMBNAIL.expand(getItemResource().getThumbnailUrn(), "256")).withRel(THUMBNAIL_LARGE));
+            links.add(new Link(ResourceTemplateLink.THUMBNAIL.expand(getItemResource().getThumbnailUrn(), "128")).withRel(THUMBNAIL_MEDIUM));
+            links.add(new Link(ResourceTemplateLink.THUMBNAIL.expand(getItemResource().getThumbnailUrn(), "64")).withRel(THUMBNAIL_SMALL));
         }
         else if (mods != null
                 && mods.getLocation() != null
@@ -0,0 +1,195 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class LocalCacheTest {
+
+    private final AtomicLong time = new AtomicLong();
+
+    @Test
+    public void whenKeyIsCachedThenItIsAHit() {
+        LocalCache<String, String> cache = createCache(10);
+
+        assertNull(cache.getIfPresent("id1"));
+        cache.put("id1", "mods1");
+
+        assertEquals("mods1", cache.getIfPresent("id1"));
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+        assertEquals(0.5, cache.getStats().getHitRatio(), 0.0);
+    }
+
+    @Test
+    public void whenTimeToLiveHasPassedThenEntryIsExpired() {
+        LocalCache<String, String> cache = createCache(10);
+        cache.put("id1", "mods1");
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        assertNull(cache.getIfPresent("id1"));
+        assertEquals(1, cache.getStats().getExpirations());
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    public void whenCacheIsFullThenKeysRequestedOnceAreNotAdmitted() {
+        LocalCache<String, String> cache = createCache(2);
+        getThenPut(cache, "popular1");
+        getThenPut(cache, "popular2");
+        cache.getIfPresent("popular1");
+        cache.getIfPresent("popular2");
+
+        for (int i = 0; i < 10; i++) {
+            getThenPut(cache, "oneHitWonder" + i);
+        }
+
+        assertEquals("popular1", cache.getIfPresent("popular1"));
+        assertEquals("popular2", cache.getIfPresent("popular2"));
+        assertEquals(10, cache.getStats().getRejections());
+    }
+
+    @Test
+    public void whenCacheIsFullThenFrequentKeyEvictsLeastRecentlyUsed() {
+        LocalCache<String, String> cache = createCache(2);
+        getThenPut(cache, "id1");
+        getThenPut(cache, "id2");
+        cache.getIfPresent("id3");
+        cache.getIfPresent("id3");
+
+        getThenPut(cache, "id3");
+
+        assertNull(cache.getIfPresent("id1"));
+        assertEquals("id3", cache.getIfPresent("id3"));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    public void whenCacheIsFullThenExpiredEntryIsReplaced() {
+        LocalCache<String, String> cache = createCache(1);
+        getThenPut(cache, "id1");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        getThenPut(cache, "id2");
+
+        assertEquals("id2", cache.getIfPresent("id2"));
+        assertEquals(0, cache.getStats().getRejections());
+    }
+
+    @Test
+    public void whenMaximumSizeIsZeroThenNothingIsCached() {
+        LocalCache<String, String> cache = createCache(0);
+
+        getThenPut(cache, "id1");
+
+        assertNull(cache.getIfPresent("id1"));
+    }
+
+    @Test
+    public void whenKeyIsInvalidatedThenItIsAMiss() {
+        LocalCache<String, String> cache = createCache(10);
+        getThenPut(cache, "id1");
+
+        cache.invalidate("id1");
+
+        assertNull(cache.getIfPresent("id1"));
+    }
+
+    @Test
+    public void whenWithinStaleWhileRevalidateThenStaleValueIsServed() {
+        LocalCache<String, String> cache = new LocalCache<>("test", 10, 60, 30, 0, TimeUnit.SECONDS, time::get);
+        cache.put("id1", "mods1");
+        assertNull("Fresh values are not stale", cache.getStaleWhileRevalidate("id1"));
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(70));
+
+        assertNull(cache.getIfPresent("id1"));
+        assertEquals("mods1", cache.getStaleWhileRevalidate("id1"));
+        assertEquals(1, cache.getStats().getStaleWhileRevalidateHits());
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertNull(cache.getStaleWhileRevalidate("id1"));
+    }
+
+    @Test
+    public void whenWithinStaleIfErrorThenLastKnownGoodIsKept() {
+        LocalCache<String, String> cache = new LocalCache<>("test", 10, 60, 0, 3600, TimeUnit.SECONDS, time::get);
+        cache.put("id1", "mods1");
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(600));
+
+        assertNull(cache.getIfPresent("id1"));
+        assertNull(cache.getStaleWhileRevalidate("id1"));
+        assertEquals("mods1", cache.getStaleIfError("id1"));
+        assertEquals(1, cache.getStats().getStaleIfErrorHits());
+        assertEquals(1, cache.getStats().getSize());
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(3600));
+
+        assertNull(cache.getStaleIfError("id1"));
+        assertNull(cache.getIfPresent("id1"));
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    public void whenReadsOutnumberTheReadBufferThenTheyStillCountTowardsAdmission() {
+        LocalCache<String, String> cache = createCache(1);
+        getThenPut(cache, "id1");
+        for (int i = 0; i < 3 * ReadBuffer.SIZE; i++) {
+            cache.getIfPresent("id2");
+        }
+
+        getThenPut(cache, "id2");
+
+        assertEquals("id2", cache.getIfPresent("id2"));
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    public void whenReadAndWrittenConcurrentlyThenSizeIsBoundedAndEveryReadIsCounted() throws Exception {
+        LocalCache<String, String> cache = createCache(50);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        getThenPut(cache, "id" + ((i * 31 + thread) % 200));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        CacheStats stats = cache.getStats();
+        assertTrue(stats.getSize() <= 50);
+        assertEquals(80000, stats.getHits() + stats.getMisses());
+    }
+
+    private LocalCache<String, String> createCache(int maximumSize) {
+        return new LocalCache<>("test", maximumSize, 60, TimeUnit.SECONDS, time::get);
+    }
+
+    private void getThenPut(LocalCache<String, String> cache, String key) {
+        if (cache.getIfPresent(key) == null) {
+            cache.put(key, key);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package no.nb.microservices.catalogitem.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>("test");
+
+    @Test
+    public void whenKeyIsInFlightThenOperationIsShared() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<String> operation = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("id1", () -> { executions.incrementAndGet(); return operation; });
+        CompletableFuture<String> second = flight.execute("id1", () -> { executions.incrementAndGet(); return operation; });
+        operation.complete("mods");
+
+        assertEquals("mods", first.get());
+        assertEquals("mods", second.get());
+        assertEquals(1, executions.get());
+        assertEquals(0.5, flight.getDedupRatio(), 0.0);
+    }
+
+    @Test
+    public void whenOperationIsDoneThenNextCallRunsItAgain() throws Exception {
+        flight.execute("id1", () -> CompletableFuture.completedFuture("first")).get();
+
+        assertEquals("second", flight.execute("id1", () -> CompletableFuture.completedFuture("second")).get());
+        assertEquals(2, flight.getExecutions());
+        assertEquals(0, flight.getInFlight());
+    }
+
+    @Test
+    public void whenOperationFailsThenEveryCallerFailsAndKeyIsReleased() throws Exception {
+        CompletableFuture<String> operation = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("id1", () -> operation);
+        CompletableFuture<String> second = flight.execute("id1", () -> operation);
+
+        operation.completeExceptionally(new IllegalStateException("Metadata is down"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertEquals(0, flight.getInFlight());
+    }
+
+    @Test
+    public void whenCallerCancelsThenOthersStillGetTheResult() throws Exception {
+        CompletableFuture<String> operation = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("id1", () -> operation);
+        CompletableFuture<String> second = flight.execute("id1", () -> operation);
+
+        first.cancel(true);
+        operation.complete("mods");
+
+        assertEquals("mods", second.get());
+    }
+}
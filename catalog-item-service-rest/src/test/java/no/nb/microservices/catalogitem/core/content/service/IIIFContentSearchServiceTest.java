@@ -2,22 +2,27 @@ package no.nb.microservices.catalogitem.core.content.service;
 
 import no.nb.microservices.catalogcontentsearch.rest.model.AnnotationList;
 import no.nb.microservices.catalogcontentsearch.rest.model.Hit;
+import no.nb.microservices.catalogitem.core.cache.Cache;
+import no.nb.microservices.catalogitem.core.cache.LocalCache;
 import no.nb.microservices.catalogitem.core.content.repository.ContentRepository;
 import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
 import no.nb.microservices.catalogitem.rest.model.ContentSearch;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -27,15 +32,20 @@ public class IIIFContentSearchServiceTest {
     @Mock
     private ContentRepository contentRepository;
 
-    @InjectMocks
     private IIIFContentSearchService contentSearchService;
 
+    @Before
+    public void setup() {
+        Cache<ContentSearchCacheKey, Optional<Hit>> cache = new LocalCache<>("contentSearch", 100, 1, TimeUnit.MINUTES);
+        contentSearchService = new IIIFContentSearchService(contentRepository, cache);
+    }
+
     @Test
     public void whenContentSearchThenReturnContentSearchWithId() throws Exception {
         AnnotationList annotationList = createAnnotationList("id1", "text before ", "text after");
         when(contentRepository.search("id1", "queryString", null, null, null, null)).thenReturn(annotationList);
 
-        Future<ContentSearch> futureSearch = contentSearchService.search("queryString", new TracableId(null, "id1", new SecurityInfo()));
+        Future<ContentSearch> futureSearch = contentSearchService.search("queryString", new TracableId(null, "id1", new SecurityInfo()), false);
 
         while(!futureSearch.isDone()) { Thread.sleep(1L); }
         ContentSearch contentSearch = futureSearch.get();
@@ -48,7 +58,7 @@ public class IIIFContentSearchServiceTest {
         AnnotationList annotationList = createAnnotationList("id1", "text before ", "text after");
         when(contentRepository.search("id1", "queryString", null, null, null, null)).thenReturn(annotationList);
 
-        Future<ContentSearch> futureSearch = contentSearchService.search("queryString", new TracableId(null, "id1", new SecurityInfo()));
+        Future<ContentSearch> futureSearch = contentSearchService.search("queryString", new TracableId(null, "id1", new SecurityInfo()), false);
 
         while(!futureSearch.isDone()) { Thread.sleep(1L); }
         ContentSearch contentSearch = futureSearch.get();
@@ -56,6 +66,70 @@ public class IIIFContentSearchServiceTest {
         verify(contentRepository, times(1)).search("id1", "queryString", null, null, null, null);
     }
 
+    @Test
+    public void whenContentSearchHasNoHitThenReturnFutureOfNull() throws Exception {
+        when(contentRepository.search("id1", "queryString", null, null, null, null)).thenReturn(new AnnotationList());
+
+        Future<ContentSearch> futureSearch = contentSearchService.search("queryString", new TracableId(null, "id1", new SecurityInfo()), false);
+
+        assertThat(futureSearch.get(), is(nullValue()));
+    }
+
+    @Test
+    public void whenSameQueryIsSearchedAgainThenReturnCachedSnippetWithTheNewQueryString() throws Exception {
+        AnnotationList annotationList = createAnnotationList("id1", "text before ", "text after");
+        when(contentRepository.search("id1", "Query  String", null, null, null, null)).thenReturn(annotationList);
+
+        contentSearchService.search("Query  String", new TracableId(null, "id1", new SecurityInfo()), false).get();
+        ContentSearch contentSearch = contentSearchService.search(" query string", new TracableId(null, "id1", new SecurityInfo()), false).get();
+
+        assertThat(contentSearch.getText(), is("text before <em> query string</em> text after"));
+        verify(contentRepository, times(1)).search(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenContentSearchHasNoHitThenNoHitIsCached() throws Exception {
+        when(contentRepository.search("id1", "queryString", null, null, null, null)).thenReturn(new AnnotationList());
+
+        contentSearchService.search("queryString", new TracableId(null, "id1", new SecurityInfo()), false).get();
+        ContentSearch contentSearch = contentSearchService.search("queryString", new TracableId(null, "id1", new SecurityInfo()), false).get();
+
+        assertThat(contentSearch, is(nullValue()));
+        verify(contentRepository, times(1)).search("id1", "queryString", null, null, null, null);
+    }
+
+    @Test
+    public void whenAnotherUserSearchesRestrictedContentThenSnippetIsNotShared() throws Exception {
+        AnnotationList annotationList = createAnnotationList("id1", "text before ", "text after");
+        when(contentRepository.search(eq("id1"), eq("queryString"), anyString(), anyString(), anyString(), anyString())).thenReturn(annotationList);
+        SecurityInfo otherUser = new SecurityInfo();
+        otherUser.setSsoToken("token");
+
+        contentSearchService.search("queryString", new TracableId(null, "id1", new SecurityInfo()), false).get();
+        contentSearchService.search("queryString", new TracableId(null, "id1", otherUser), false).get();
+
+        verify(contentRepository, times(2)).search(eq("id1"), eq("queryString"), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenAnotherUserSearchesPublicContentThenSnippetIsSharedAndAskedForAnonymously() throws Exception {
+        AnnotationList annotationList = createAnnotationList("id1", "text before ", "text after");
+        when(contentRepository.search("id1", "queryString", null, null, null, null)).thenReturn(annotationList);
+        SecurityInfo user = new SecurityInfo();
+        user.setxRealIp("10.0.0.1");
+        user.setSsoToken("token1");
+        SecurityInfo otherUser = new SecurityInfo();
+        otherUser.setxRealIp("10.0.0.2");
+        otherUser.setSsoToken("token2");
+
+        contentSearchService.search("queryString", new TracableId(null, "id1", user), true).get();
+        ContentSearch contentSearch = contentSearchService.search("queryString", new TracableId(null, "id1", otherUser), true).get();
+
+        assertThat(contentSearch.getText(), is("text before <em>queryString</em> text after"));
+        verify(contentRepository, times(1)).search(anyString(), anyString(), anyString(), anyString(), anyString(), anyString());
+        verify(contentRepository).search("id1", "queryString", null, null, null, null);
+    }
+
     private AnnotationList createAnnotationList(String id, String textBefore, String textAfter) {
         AnnotationList annotationList = new AnnotationList();
         List<Hit> hits = new ArrayList<>();
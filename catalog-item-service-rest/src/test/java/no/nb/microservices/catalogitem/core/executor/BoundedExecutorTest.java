@@ -0,0 +1,70 @@
+package no.nb.microservices.catalogitem.core.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BoundedExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedExecutor executor;
+
+    @After
+    public void cleanUp() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void whenPoolAndQueueAreFullThenTaskIsRejectedAndCounted() {
+        executor = new BoundedExecutor("test", 1, 1, new ThreadPoolExecutor.AbortPolicy());
+        executor.execute(this::block);
+        executor.execute(this::block);
+
+        try {
+            executor.execute(this::block);
+        } catch (RejectedExecutionException ex) {
+            assertEquals(1, executor.getRejectedCount());
+            assertEquals(1, executor.getQueue().size());
+            return;
+        }
+        throw new AssertionError("The third task should be rejected");
+    }
+
+    @Test
+    public void whenCallerRunsThenTaskRunsOnCallingThreadAndIsCounted() {
+        executor = new BoundedExecutor("test", 1, 0, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.execute(this::block);
+        Thread caller = Thread.currentThread();
+        Thread[] ranOn = new Thread[1];
+
+        executor.execute(() -> ranOn[0] = Thread.currentThread());
+
+        assertTrue(ranOn[0] == caller);
+        assertEquals(1, executor.getRejectedCount());
+    }
+
+    @Test
+    public void threadsAreNamedAfterTheExecutor() throws Exception {
+        executor = new BoundedExecutor("index", 1, 1, new ThreadPoolExecutor.AbortPolicy());
+
+        String name = executor.submit(() -> Thread.currentThread().getName()).get(1, TimeUnit.SECONDS);
+
+        assertTrue(name.startsWith("index-"));
+    }
+
+    private void block() {
+        try {
+            release.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package no.nb.microservices.catalogitem.core.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import no.nb.microservices.catalogitem.config.ConfigurationException;
+
+public class VirtualThreadExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private VirtualThreadExecutor executor;
+
+    @After
+    public void cleanUp() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void tasksRunOnNamedThreads() throws Exception {
+        assumeTrue(VirtualThreadExecutor.isSupported());
+        executor = new VirtualThreadExecutor("index", 10);
+
+        String name = executor.submit(() -> Thread.currentThread().getName()).get(1, TimeUnit.SECONDS);
+
+        assertTrue(name.startsWith("index-"));
+    }
+
+    @Test
+    public void whenMaxConcurrencyIsReachedThenTaskIsRejectedAndCounted() throws Exception {
+        assumeTrue(VirtualThreadExecutor.isSupported());
+        executor = new VirtualThreadExecutor("contentSearch", 1);
+        executor.execute(this::block);
+
+        try {
+            executor.execute(this::block);
+        } catch (RejectedExecutionException ex) {
+            assertEquals(1, executor.getRejectedCount());
+            return;
+        }
+        throw new AssertionError("The second task should be rejected");
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void whenVirtualThreadsAreNotSupportedThenFailAtStartup() {
+        assumeFalse(VirtualThreadExecutor.isSupported());
+        new VirtualThreadExecutor("index", 10);
+    }
+
+    private void block() {
+        try {
+            release.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
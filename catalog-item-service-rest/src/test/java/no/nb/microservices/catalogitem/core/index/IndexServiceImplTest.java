@@ -1,16 +1,25 @@
 package no.nb.microservices.catalogitem.core.index;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -20,12 +29,17 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.PagedResources;
 
+import no.nb.microservices.catalogitem.core.cache.LocalCache;
+import no.nb.microservices.catalogitem.core.index.model.SearchResult;
 import no.nb.microservices.catalogitem.core.index.repository.IndexRepository;
 import no.nb.microservices.catalogitem.core.index.service.IndexService;
 import no.nb.microservices.catalogitem.core.index.service.IndexServiceImpl;
+import no.nb.microservices.catalogitem.core.index.service.SearchResultCache;
 import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
 import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
 import no.nb.microservices.catalogsearchindex.EmbeddedWrapper;
+import no.nb.microservices.catalogsearchindex.ItemResource;
 import no.nb.microservices.catalogsearchindex.NBSearchType;
 import no.nb.microservices.catalogsearchindex.SearchResource;
 
@@ -38,7 +52,9 @@ public class IndexServiceImplTest {
     @Before
     public void setup() {
         mockIndexRepository = mock(IndexRepository.class);
-        indexService = new IndexServiceImpl(mockIndexRepository);
+        SearchResultCache searchResultCache = new SearchResultCache(new LocalCache<>("browseSearch", 10, 60, TimeUnit.SECONDS),
+                new LocalCache<>("querySearch", 10, 60, TimeUnit.SECONDS), new LocalCache<>("aggregations", 10, 60, TimeUnit.SECONDS));
+        indexService = new IndexServiceImpl(mockIndexRepository, new LocalCache<>("indexDocument", 100, 60, TimeUnit.SECONDS), searchResultCache);
     }
 
     @Test
@@ -88,6 +104,154 @@ public class IndexServiceImplTest {
                 anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString());
     }
 
+    @Test
+    public void aggregationsAsksForTheSmallestPageAndReturnsNoItems() {
+        SearchResource searchResource = createSearchResource();
+        searchResource.getEmbedded().getItems().add(new ItemResource());
+
+        when(mockIndexRepository.search(eq("searchString"), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString())).thenReturn(searchResource);
+
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("searchString");
+        searchRequest.setAggs("mediatype");
+
+        SearchResult result = indexService.aggregations(searchRequest, createSecurityInfo());
+
+        assertTrue(result.getItems().isEmpty());
+        assertEquals(100, result.getTotalElements());
+        verify(mockIndexRepository).search(eq("searchString"), anyString(), eq(0), eq(1), anyList(), anyBoolean(), anyList(), anyList(), eq("mediatype"), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                eq(false), anyObject(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void scrollForwardsTheScrollId() {
+        SearchResource searchResource = createSearchResource();
+        searchResource.getEmbedded().getItems().add(new ItemResource());
+        when(mockIndexRepository.scroll(eq("scroll1"), anyString(), anyString(), anyString(), anyString())).thenReturn(searchResource);
+
+        SearchResult result = indexService.scroll("scroll1", createSecurityInfo());
+
+        assertEquals(1, result.getItems().size());
+        assertEquals(100, result.getTotalElements());
+        verify(mockIndexRepository).scroll(eq("scroll1"), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenItemIsFoundBySearchThenItsDocumentIsCachedBySesamidAndUrn() {
+        SearchResource searchResource = createSearchResource();
+        ItemResource found = createItemResource("id1", "URN:NBN:no-nb_digibok_1");
+        searchResource.getEmbedded().getItems().add(found);
+        when(mockIndexRepository.search(anyString(), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString())).thenReturn(searchResource);
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("searchString");
+
+        indexService.search(searchRequest, new PageRequest(0, 10), new SecurityInfo());
+
+        assertSame(found, indexService.getCachedItemResource("id1"));
+        assertSame(found, indexService.getCachedItemResource("URN:NBN:no-nb_digibok_1"));
+    }
+
+    @Test
+    public void whenSearchForwardsCallerThenItsHitsAreNotCached() {
+        SearchResource searchResource = createSearchResource();
+        searchResource.getEmbedded().getItems().add(createItemResource("id1", null));
+        when(mockIndexRepository.search(anyString(), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString())).thenReturn(searchResource);
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("searchString");
+
+        indexService.search(searchRequest, new PageRequest(0, 10), createSecurityInfo());
+
+        assertNull(indexService.getCachedItemResource("id1"));
+    }
+
+    @Test
+    public void whenHitIsExplainedThenItIsNotCached() {
+        SearchResource searchResource = createSearchResource();
+        ItemResource found = createItemResource("id1", null);
+        found.setExplain(JsonNodeFactory.instance.objectNode());
+        searchResource.getEmbedded().getItems().add(found);
+        when(mockIndexRepository.search(anyString(), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString())).thenReturn(searchResource);
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("searchString");
+        searchRequest.setExplain(true);
+
+        indexService.search(searchRequest, new PageRequest(0, 10), new SecurityInfo());
+
+        assertNull(indexService.getCachedItemResource("id1"));
+    }
+
+    @Test
+    public void whenItemIsLookedUpByUrnThenItIsAskedForAnonymouslyAndCachedByTheUrnAskedFor() throws Exception {
+        SearchResource searchResource = createSearchResource();
+        ItemResource found = createItemResource("id1", null);
+        searchResource.getEmbedded().getItems().add(found);
+        when(mockIndexRepository.search(eq("urn:\"URN:NBN:no-nb_digibok_1\""), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString())).thenReturn(searchResource);
+
+        indexService.getSearchResource(new TracableId(null, "URN:NBN:no-nb_digibok_1", createSecurityInfo())).get();
+
+        assertSame(found, indexService.getCachedItemResource("URN:NBN:no-nb_digibok_1"));
+        assertSame(found, indexService.getCachedItemResource("id1"));
+        verify(mockIndexRepository).search(eq("urn:\"URN:NBN:no-nb_digibok_1\""), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), (String) isNull(), (String) isNull(), (String) isNull(), (String) isNull());
+    }
+
+    @Test
+    public void whenSameSearchWithFiltersInOtherOrderThenIndexIsAskedOnce() {
+        when(mockIndexRepository.search(anyString(), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString())).thenReturn(createSearchResource());
+        SearchRequest first = new SearchRequest();
+        first.setQ("ibsen  peer gynt");
+        first.setFilter(new String[] {"mediatype:bøker", "year:1867"});
+        SearchRequest second = new SearchRequest();
+        second.setQ("ibsen peer gynt ");
+        second.setFilter(new String[] {"year:1867", "mediatype:bøker"});
+
+        SearchResult firstResult = indexService.search(first, new PageRequest(0, 10), new SecurityInfo());
+        SearchResult secondResult = indexService.search(second, new PageRequest(0, 10), new SecurityInfo());
+
+        assertSame(firstResult, secondResult);
+        verify(mockIndexRepository, times(1)).search(anyString(), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenSearchIsExplainedThenItIsNotCached() {
+        when(mockIndexRepository.search(anyString(), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString())).thenReturn(createSearchResource());
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("ibsen");
+        searchRequest.setExplain(true);
+
+        indexService.search(searchRequest, new PageRequest(0, 10), new SecurityInfo());
+        indexService.search(searchRequest, new PageRequest(0, 10), new SecurityInfo());
+
+        verify(mockIndexRepository, times(2)).search(anyString(), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    private ItemResource createItemResource(String id, String urn) {
+        ItemResource itemResource = new ItemResource();
+        itemResource.setItemId(id);
+        itemResource.setUrn(urn);
+        return itemResource;
+    }
+
     private SearchResource createSearchResource() {
         PagedResources.PageMetadata metadata = new PagedResources.PageMetadata(0, 10, 100);
         SearchResource searchResource = new SearchResource(metadata);
@@ -0,0 +1,60 @@
+package no.nb.microservices.catalogitem.core.item.model;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import no.nb.microservices.catalogsearchindex.ItemResource;
+
+public class FetchPlanTest {
+
+    @Test
+    public void whenOnlyIdAndLinksThenNeitherModsNorAccessIsNeeded() {
+        FetchPlan fetchPlan = FetchPlan.compile(Arrays.asList("id", "_links"), "metadata,relatedItems");
+
+        assertTrue(fetchPlan.showsLinks());
+        assertTrue(fetchPlan.needsIndex());
+        assertFalse(fetchPlan.needsAccess());
+        assertFalse(fetchPlan.needsMods(createOutsideOfNbResource()));
+        assertFalse(fetchPlan.showsMetadata());
+    }
+
+    @Test
+    public void whenOnlyIdThenNothingIsNeeded() {
+        FetchPlan fetchPlan = FetchPlan.compile(Arrays.asList("id"), null);
+
+        assertFalse(fetchPlan.needsIndex());
+        assertFalse(fetchPlan.needsAccess());
+        assertFalse(fetchPlan.needsMods(null));
+    }
+
+    @Test
+    public void whenNoFieldsThenEverySectionIsShown() {
+        FetchPlan fetchPlan = FetchPlan.compile(null, null);
+
+        assertTrue(fetchPlan.showsLinks());
+        assertTrue(fetchPlan.showsAccessInfo());
+        assertTrue(fetchPlan.showsMetadataField("title"));
+        assertFalse(fetchPlan.needsMods(null));
+        assertTrue("Items outside of NB get their thumbnail from MODS", fetchPlan.needsMods(createOutsideOfNbResource()));
+    }
+
+    @Test
+    public void whenMetadataFieldsThenOnlyThoseAreShown() {
+        FetchPlan fetchPlan = FetchPlan.compile(Arrays.asList("metadata.title"), "metadata");
+
+        assertTrue(fetchPlan.showsMetadataField("title"));
+        assertFalse(fetchPlan.showsMetadataField("people"));
+        assertTrue(fetchPlan.needsMods(null));
+    }
+
+    private ItemResource createOutsideOfNbResource() {
+        ItemResource resource = new ItemResource();
+        resource.setContentClasses(Arrays.asList("public", "jpeg"));
+        resource.setMediaTypes(Arrays.asList("bilder"));
+        return resource;
+    }
+}
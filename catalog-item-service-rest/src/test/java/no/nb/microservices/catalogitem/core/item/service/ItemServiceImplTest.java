@@ -1,40 +1,70 @@
 package no.nb.microservices.catalogitem.core.item.service;
 
 
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.concurrent.Future;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import no.nb.commons.web.util.UserUtils;
+import no.nb.microservices.catalogitem.config.BulkSettings;
+import no.nb.microservices.catalogitem.config.RelatedItemsSettings;
+import no.nb.microservices.catalogitem.core.cache.LocalCache;
+import no.nb.microservices.catalogitem.core.cache.SingleFlight;
 import no.nb.microservices.catalogitem.core.index.model.SearchResult;
+import no.nb.microservices.catalogitem.core.index.repository.IndexRepository;
 import no.nb.microservices.catalogitem.core.index.service.IndexService;
+import no.nb.microservices.catalogitem.core.index.service.IndexServiceImpl;
+import no.nb.microservices.catalogitem.core.index.service.SearchResultCache;
+import no.nb.microservices.catalogitem.core.item.model.BulkItem;
+import no.nb.microservices.catalogitem.core.item.model.FetchPlan;
 import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.core.metadata.service.MetadataService;
+import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
+import no.nb.microservices.catalogitem.core.security.service.AccessDecisionEngine;
 import no.nb.microservices.catalogitem.core.security.service.SecurityService;
+import no.nb.microservices.catalogmetadata.model.mods.v3.Identifier;
 import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
+import no.nb.microservices.catalogmetadata.model.mods.v3.RelatedItem;
+import no.nb.microservices.catalogmetadata.model.mods.v3.TitleInfo;
 import no.nb.microservices.catalogmetadata.test.mods.v3.TestMods;
+import no.nb.microservices.catalogsearchindex.EmbeddedWrapper;
 import no.nb.microservices.catalogsearchindex.SearchResource;
 import no.nb.microservices.catalogsearchindex.ItemResource;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ItemServiceImplTest {
 
-    @InjectMocks
     private ItemServiceImpl itemService;
 
     @Mock
@@ -46,18 +76,28 @@ public class ItemServiceImplTest {
     @Mock
     IndexService indexService;
 
+    private BulkSettings bulkSettings;
+    private SingleFlight<ItemFetchKey, ItemResource> itemResourceFlight;
+    private SingleFlight<ItemFetchKey, Mods> modsFlight;
+
     @Before
     public void setup() {
+        bulkSettings = new BulkSettings();
+        itemResourceFlight = new SingleFlight<>("itemResource");
+        modsFlight = new SingleFlight<>("mods");
+        itemService = new ItemServiceImpl(metadataService, new AccessDecisionEngine(securityService), indexService, new RelatedItemsSettings(), bulkSettings,
+                itemResourceFlight, modsFlight);
+        when(securityService.hasAccess(anyListOf(TracableId.class))).thenReturn(new AsyncResult<>(Collections.emptyMap()));
         mockRequest();
     }
 
     @Test
     public void testGetItem() {
         String id = "id1";
-        Future<Mods> mods = new AsyncResult<Mods>(TestMods.aDefaultBookMods().build());
-        Future<Boolean> hasAccess = new AsyncResult<Boolean>(true);
+        ListenableFuture<Mods> mods = new AsyncResult<Mods>(TestMods.aDefaultBookMods().build());
+        ListenableFuture<Boolean> hasAccess = new AsyncResult<Boolean>(true);
         when(metadataService.getModsById(anyObject())).thenReturn(mods);
-        when(securityService.hasAccess(anyObject())).thenReturn(hasAccess);
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(hasAccess);
         
         Item item = itemService.getItemById(id, null, "metadata");
         
@@ -69,22 +109,56 @@ public class ItemServiceImplTest {
     @Test
     public void testExpandRelatedItems() {
         String id = "id1";
-        ItemResource resource = new ItemResource();
-        SearchResult searchResult = new SearchResult(Arrays.asList(resource), 1, null, null);
-        Future<Mods> mods = new AsyncResult<Mods>(TestMods.aDefaultMusicAlbum().build());
-        Future<Boolean> hasAccess = new AsyncResult<Boolean>(true);
-        Future<SearchResource> searchResource = new AsyncResult<>(new SearchResource(new PagedResources.PageMetadata(1,1,1,1)));
-        
-        when(metadataService.getModsById(anyObject())).thenReturn(mods);
-        when(securityService.hasAccess(anyObject())).thenReturn(hasAccess);
+        Mods mods = createModsWithRelatedItems();
+        SearchResult searchResult = new SearchResult(Arrays.asList(createItemResource("preceding1"), createItemResource("succeeding1"), createItemResource("constituent1")), 3, null, null);
+        ListenableFuture<Boolean> hasAccess = new AsyncResult<Boolean>(true);
+        ListenableFuture<SearchResource> searchResource = new AsyncResult<>(new SearchResource(new PagedResources.PageMetadata(1,1,1,1)));
+
+        when(metadataService.getModsById(anyObject())).thenAnswer(invocation -> {
+            String requestedId = ((TracableId) invocation.getArguments()[0]).getId();
+            return new AsyncResult<>(id.equals(requestedId) ? mods : createModsWithOaiId("oai:bibsys.no:" + requestedId));
+        });
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(hasAccess);
         when(indexService.getSearchResource(anyObject())).thenReturn(searchResource);
-        when(indexService.search(anyObject(), anyObject(), anyObject())).thenReturn(searchResult);
+        when(indexService.searchAsync(anyObject(), anyObject(), anyObject())).thenReturn(new AsyncResult<>(searchResult));
 
         Item item = itemService.getItemById(id, null, "relatedItems");
         
-        assertNotNull("Item should have consitutents in relatedItems", item.getRelatedItems().getConstituents());
+        assertThat("Item should have consitutents in relatedItems", item.getRelatedItems().getConstituents(), hasSize(1));
         assertNotNull("Item should have preceding in relatedItems", item.getRelatedItems().getPreceding());
         assertNotNull("Item should have succeeding in relatedItems", item.getRelatedItems().getSucceding());
+        assertEquals("Preceding should be matched on oaiid", "preceding1", item.getRelatedItems().getPreceding().getItemResource().getItemId());
+        assertEquals("Succeeding should be matched on oaiid", "succeeding1", item.getRelatedItems().getSucceding().getItemResource().getItemId());
+    }
+
+    @Test
+    public void whenExpandRelatedItemsThenAllRelationsAreResolvedWithOneIndexQuery() {
+        Mods mods = createModsWithRelatedItems();
+        when(metadataService.getModsById(anyObject())).thenReturn(new AsyncResult<>(mods));
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(new AsyncResult<>(true));
+        when(indexService.getSearchResource(anyObject())).thenReturn(new AsyncResult<>(null));
+        when(indexService.searchAsync(anyObject(), anyObject(), anyObject())).thenReturn(new AsyncResult<>(new SearchResult(Collections.emptyList(), 0, null, null)));
+
+        itemService.getItemById("id1", null, "relatedItems");
+
+        ArgumentCaptor<SearchRequest> searchRequest = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(indexService, times(1)).searchAsync(searchRequest.capture(), anyObject(), anyObject());
+        assertEquals("oaiid:\"oai:bibsys.no:preceding1\" OR oaiid:\"oai:bibsys.no:succeeding1\" OR oaiid:\"oai:bibsys.no:constituent1\"",
+                searchRequest.getValue().getQ());
+    }
+
+    @Test
+    public void whenItemsInTheSameRequestShareRelatedItemsThenTheyAreFetchedOnce() {
+        Mods mods = createModsWithRelatedItems();
+        when(metadataService.getModsById(anyObject())).thenReturn(new AsyncResult<>(mods));
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(new AsyncResult<>(true));
+        when(indexService.getSearchResource(anyObject())).thenReturn(new AsyncResult<>(null));
+        when(indexService.searchAsync(anyObject(), anyObject(), anyObject())).thenReturn(new AsyncResult<>(new SearchResult(Collections.emptyList(), 0, null, null)));
+
+        itemService.getItemById("issue1", null, "relatedItems");
+        itemService.getItemById("issue2", null, "relatedItems");
+
+        verify(indexService, times(1)).searchAsync(anyObject(), anyObject(), anyObject());
     }
 
     @Test
@@ -94,9 +168,9 @@ public class ItemServiceImplTest {
         resource.setMediaTypes(Arrays.asList("bilder"));
         Mods mods = TestMods.aDefaultMods().build();
         when(metadataService.getModsById(anyObject())).thenReturn(new AsyncResult<>(mods));
-        when(securityService.hasAccess(anyObject())).thenReturn(new AsyncResult<>(true));
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(new AsyncResult<>(true));
 
-        itemService.getItemWithResource(resource, null, null, null);
+        itemService.getItemWithResource(resource, FetchPlan.DEFAULT, null);
 
         verify(metadataService, times(1)).getModsById(anyObject());
         verifyNoMoreInteractions(metadataService);
@@ -107,13 +181,233 @@ public class ItemServiceImplTest {
         ItemResource resource = new ItemResource();
         resource.setContentClasses(Arrays.asList("public", "jp2"));
         resource.setMediaTypes(Arrays.asList("bilder"));
-        when(securityService.hasAccess(anyObject())).thenReturn(new AsyncResult<>(true));
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(new AsyncResult<>(true));
 
-        itemService.getItemWithResource(resource, null, null, null);
+        itemService.getItemWithResource(resource, FetchPlan.DEFAULT, null);
 
         verifyNoMoreInteractions(metadataService);
     }
 
+    @Test
+    public void whenOnlyIdAndLinksAreAskedForThenNeitherMetadataNorAccessIsFetched() throws Exception {
+        ItemResource resource = new ItemResource();
+        resource.setContentClasses(Arrays.asList("restricted", "jpeg"));
+        resource.setMediaTypes(Arrays.asList("bilder"));
+
+        Item item = itemService.getItemWithResource(resource, FetchPlan.compile(Arrays.asList("id", "_links"), "metadata"), null).get();
+
+        assertNotNull(item);
+        verifyZeroInteractions(metadataService, securityService);
+    }
+
+    @Test
+    public void whenOnlyIdIsAskedForThenNothingIsFetched() {
+        Item item = itemService.getItemById("id1", Arrays.asList("id"), "metadata");
+
+        assertEquals("id1", item.getId());
+        verifyZeroInteractions(indexService, metadataService, securityService);
+    }
+
+    @Test
+    public void whenDownstreamCallsAreOutstandingThenItemIsCompletedByCallbacks() throws Exception {
+        SettableListenableFuture<Mods> mods = new SettableListenableFuture<>();
+        SettableListenableFuture<Boolean> hasAccess = new SettableListenableFuture<>();
+        SettableListenableFuture<SearchResource> searchResource = new SettableListenableFuture<>();
+        when(metadataService.getModsById(anyObject())).thenReturn(mods);
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(hasAccess);
+        when(indexService.getSearchResource(anyObject())).thenReturn(searchResource);
+
+        CompletableFuture<Item> item = itemService.getItemById("id1", FetchPlan.compile(null, "metadata"), null);
+        assertFalse("Item should not be done before downstream calls complete", item.isDone());
+
+        mods.set(TestMods.aDefaultBookMods().build());
+        hasAccess.set(true);
+        assertFalse("Item should wait for the index lookup", item.isDone());
+
+        searchResource.set(null);
+        assertTrue("Item should be completed by the last callback", item.isDone());
+        assertTrue("Item should have access", item.get().hasAccess());
+    }
+
+    @Test
+    public void whenIndexDocumentIsCachedThenIndexIsNotAsked() throws Exception {
+        ItemResource cached = createItemResource("id1");
+        when(indexService.getCachedItemResource("id1")).thenReturn(cached);
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(new AsyncResult<>(true));
+
+        Item item = itemService.getItemById("id1", FetchPlan.compile(Arrays.asList("id", "_links", "accessInfo"), null), null).get();
+
+        assertSame(cached, item.getItemResource());
+        verify(indexService, never()).getSearchResource(anyObject());
+    }
+
+    @Test
+    public void whenItemWasFoundBySearchThenForwardedCallerGetsItWithoutAskingTheIndex() throws Exception {
+        IndexRepository indexRepository = mock(IndexRepository.class);
+        IndexServiceImpl cachingIndexService = new IndexServiceImpl(indexRepository, new LocalCache<>("indexDocument", 100, 60, TimeUnit.SECONDS),
+                new SearchResultCache(new LocalCache<>("browseSearch", 10, 60, TimeUnit.SECONDS),
+                        new LocalCache<>("querySearch", 10, 60, TimeUnit.SECONDS), new LocalCache<>("aggregations", 10, 60, TimeUnit.SECONDS)));
+        SearchResource searchResource = new SearchResource(new PagedResources.PageMetadata(10, 0, 1));
+        EmbeddedWrapper embedded = new EmbeddedWrapper();
+        embedded.setItems(new ArrayList<>(Arrays.asList(createItemResource("id1"))));
+        searchResource.setEmbedded(embedded);
+        when(indexRepository.search(anyString(), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString())).thenReturn(searchResource);
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(new AsyncResult<>(true));
+        itemService = new ItemServiceImpl(metadataService, new AccessDecisionEngine(securityService), cachingIndexService, new RelatedItemsSettings(), bulkSettings,
+                itemResourceFlight, modsFlight);
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("ibsen");
+
+        cachingIndexService.search(searchRequest, new PageRequest(0, 10), new SecurityInfo());
+        Item item = itemService.getItemById("id1", FetchPlan.compile(Arrays.asList("id", "_links", "accessInfo"), null), createSecurityInfo("10.0.0.1")).get();
+
+        assertEquals("id1", item.getItemResource().getItemId());
+        assertTrue("Item should have access", item.hasAccess());
+        verify(indexRepository, times(1)).search(anyString(), anyString(), anyInt(), anyInt(), anyList(), anyBoolean(), anyList(), anyList(), anyString(), anyObject(),
+                anyObject(), anyObject(), anyObject(),
+                anyBoolean(), anyObject(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenSameItemIsFetchedConcurrentlyBySameUserThenDownstreamCallsAreShared() throws Exception {
+        SettableListenableFuture<Mods> mods = new SettableListenableFuture<>();
+        SettableListenableFuture<SearchResource> searchResource = new SettableListenableFuture<>();
+        when(metadataService.getModsById(anyObject())).thenReturn(mods);
+        when(indexService.getSearchResource(anyObject())).thenReturn(searchResource);
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(new AsyncResult<>(true));
+        FetchPlan fetchPlan = FetchPlan.compile(null, "metadata");
+
+        CompletableFuture<Item> first = itemService.getItemById("id1", fetchPlan, createSecurityInfo("123.45.123.123"));
+        CompletableFuture<Item> second = itemService.getItemById("id1", fetchPlan, createSecurityInfo("123.45.123.123"));
+        mods.set(TestMods.aDefaultBookMods().build());
+        searchResource.set(null);
+
+        assertTrue("First request should have access", first.get().hasAccess());
+        assertTrue("Second request should have access", second.get().hasAccess());
+        verify(indexService, times(1)).getSearchResource(anyObject());
+        verify(metadataService, times(1)).getModsById(anyObject());
+        assertEquals(0.5, itemResourceFlight.getDedupRatio(), 0.0);
+        assertEquals(0.5, modsFlight.getDedupRatio(), 0.0);
+    }
+
+    @Test
+    public void whenSameItemIsFetchedConcurrentlyByOtherUsersThenFetchesAreSharedButAccessIsNot() throws Exception {
+        SettableListenableFuture<Mods> mods = new SettableListenableFuture<>();
+        SettableListenableFuture<SearchResource> searchResource = new SettableListenableFuture<>();
+        when(metadataService.getModsById(anyObject())).thenReturn(mods);
+        when(indexService.getSearchResource(anyObject())).thenReturn(searchResource);
+        when(securityService.hasAccess(any(TracableId.class))).thenAnswer(invocation ->
+                new AsyncResult<>("token1".equals(((TracableId) invocation.getArguments()[0]).getSecurityInfo().getSsoToken())));
+        FetchPlan fetchPlan = FetchPlan.compile(null, "metadata");
+
+        CompletableFuture<Item> first = itemService.getItemById("id1", fetchPlan, createSecurityInfo("123.45.123.123", "token1"));
+        CompletableFuture<Item> second = itemService.getItemById("id1", fetchPlan, createSecurityInfo("10.0.0.1", "token2"));
+        mods.set(TestMods.aDefaultBookMods().build());
+        searchResource.set(null);
+
+        assertTrue("First user should have access", first.get().hasAccess());
+        assertFalse("Second user should not have access", second.get().hasAccess());
+        ArgumentCaptor<TracableId> modsId = ArgumentCaptor.forClass(TracableId.class);
+        verify(metadataService, times(1)).getModsById(modsId.capture());
+        verify(indexService, times(1)).getSearchResource(anyObject());
+        assertEquals("api.nb.no", modsId.getValue().getSecurityInfo().getxHost());
+        assertNull(modsId.getValue().getSecurityInfo().getSsoToken());
+        assertEquals(0.5, itemResourceFlight.getDedupRatio(), 0.0);
+        assertEquals(0.5, modsFlight.getDedupRatio(), 0.0);
+    }
+
+    @Test
+    public void whenBulkThenIdsAreFoundWithOneIndexQueryAndReturnedInRequestOrder() throws Exception {
+        SearchResult searchResult = new SearchResult(Arrays.asList(createItemResource("id2"), createItemResource("id1")), 2, null, null);
+        when(indexService.searchAsync(anyObject(), anyObject(), anyObject())).thenReturn(new AsyncResult<>(searchResult));
+        when(metadataService.getModsById(anyObject())).thenReturn(new AsyncResult<>(TestMods.aDefaultBookMods().build()));
+
+        List<BulkItem> items = itemService.getItemsByIds(Arrays.asList("id1", "missing", "id2", "id1"), null, "metadata");
+
+        assertEquals(Arrays.asList("id1", "missing", "id2", "id1"), items.stream().map(BulkItem::getId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(BulkItem.Status.OK, BulkItem.Status.NOT_FOUND, BulkItem.Status.OK, BulkItem.Status.OK),
+                items.stream().map(BulkItem::getStatus).collect(Collectors.toList()));
+        assertEquals("id2", items.get(2).getItem().getItemResource().getItemId());
+        ArgumentCaptor<SearchRequest> searchRequest = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(indexService, times(1)).searchAsync(searchRequest.capture(), anyObject(), anyObject());
+        assertEquals("sesamid:\"id1\" OR sesamid:\"missing\" OR sesamid:\"id2\"", searchRequest.getValue().getQ());
+        verify(securityService, times(1)).hasAccess(anyListOf(TracableId.class));
+        verify(metadataService, times(2)).getModsById(anyObject());
+    }
+
+    @Test
+    public void whenBulkItemFailsThenOnlyThatItemIsFailed() throws Exception {
+        SearchResult searchResult = new SearchResult(Arrays.asList(createItemResource("id1"), createItemResource("id2")), 2, null, null);
+        when(indexService.searchAsync(anyObject(), anyObject(), anyObject())).thenReturn(new AsyncResult<>(searchResult));
+        SettableListenableFuture<Mods> failedMods = new SettableListenableFuture<>();
+        failedMods.setException(new IllegalStateException("Metadata is down"));
+        when(metadataService.getModsById(anyObject())).thenAnswer(invocation ->
+                "id2".equals(((TracableId) invocation.getArguments()[0]).getId()) ? failedMods : new AsyncResult<>(TestMods.aDefaultBookMods().build()));
+
+        List<BulkItem> items = itemService.getItemsByIds(Arrays.asList("id1", "id2"), null, "metadata");
+
+        assertEquals(BulkItem.Status.OK, items.get(0).getStatus());
+        assertEquals(BulkItem.Status.FAILED, items.get(1).getStatus());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenBulkHasTooManyIdsThenReject() throws Exception {
+        bulkSettings.setMaxIds(2);
+
+        itemService.getItemsByIds(Arrays.asList("id1", "id2", "id3"), null, "metadata");
+    }
+
+    private Mods createModsWithRelatedItems() {
+        Mods mods = new Mods();
+        mods.setRelatedItems(Arrays.asList(
+                createRelatedItem("preceding", "oai:bibsys.no:preceding1"),
+                createRelatedItem("succeeding", "oai:bibsys.no:succeeding1"),
+                createRelatedItem("constituent", "oai:bibsys.no:constituent1")));
+        return mods;
+    }
+
+    private RelatedItem createRelatedItem(String type, String oaiId) {
+        Identifier identifier = new Identifier();
+        identifier.setType("oaiid");
+        identifier.setValue(oaiId);
+        TitleInfo titleInfo = new TitleInfo();
+        titleInfo.setPartNumber("1");
+        RelatedItem relatedItem = new RelatedItem();
+        relatedItem.setType(type);
+        relatedItem.setIdentifier(identifier);
+        relatedItem.setTitleInfo(Arrays.asList(titleInfo));
+        return relatedItem;
+    }
+
+    private Mods createModsWithOaiId(String oaiId) {
+        Identifier identifier = new Identifier();
+        identifier.setType("oaiid");
+        identifier.setValue(oaiId);
+        Mods mods = new Mods();
+        mods.setIdentifiers(Arrays.asList(identifier));
+        return mods;
+    }
+
+    private ItemResource createItemResource(String id) {
+        ItemResource itemResource = new ItemResource();
+        itemResource.setItemId(id);
+        return itemResource;
+    }
+
+    private SecurityInfo createSecurityInfo(String xRealIp) {
+        return createSecurityInfo(xRealIp, null);
+    }
+
+    private SecurityInfo createSecurityInfo(String xRealIp, String ssoToken) {
+        SecurityInfo securityInfo = new SecurityInfo();
+        securityInfo.setxHost("api.nb.no");
+        securityInfo.setxRealIp(xRealIp);
+        securityInfo.setSsoToken(ssoToken);
+        return securityInfo;
+    }
+
     private void mockRequest() {
         MockHttpServletRequest request = new MockHttpServletRequest("GET", "/catalog/v1/search?q=Junit");
         String ip = "123.45.123.123";
@@ -0,0 +1,86 @@
+package no.nb.microservices.catalogitem.core.item.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import no.nb.microservices.catalogitem.core.item.model.Item;
+import no.nb.microservices.catalogitem.core.item.model.Item.ItemBuilder;
+
+public class RelatedItemResolverTest {
+
+    private final List<List<String>> fetched = new ArrayList<>();
+
+    @Test
+    public void whenOaiIdIsResolvedTwiceThenItIsFetchedOnce() {
+        RelatedItemResolver resolver = new RelatedItemResolver(1, 10);
+
+        Map<String, CompletableFuture<Item>> first = resolver.resolve(Arrays.asList("series", "host"), Collections.emptySet(), fetcher());
+        Map<String, CompletableFuture<Item>> second = resolver.resolve(Arrays.asList("host", "series", "issue"), Collections.emptySet(), fetcher());
+
+        assertEquals(Arrays.asList(Arrays.asList("series", "host"), Arrays.asList("issue")), fetched);
+        assertSame(first.get("series").join(), second.get("series").join());
+        assertSame(first.get("host").join(), second.get("host").join());
+    }
+
+    @Test
+    public void whenOaiIdIsOnPathThenItIsNotResolved() {
+        RelatedItemResolver resolver = new RelatedItemResolver(1, 10);
+
+        Map<String, CompletableFuture<Item>> resolved = resolver.resolve(Arrays.asList("preceding", "succeeding"), Collections.singleton("succeeding"), fetcher());
+
+        assertEquals(Collections.singleton("preceding"), resolved.keySet());
+        assertEquals(Arrays.asList(Arrays.asList("preceding")), fetched);
+    }
+
+    @Test
+    public void whenFanOutIsExceededThenTheFirstOaiIdsAreResolved() {
+        RelatedItemResolver resolver = new RelatedItemResolver(1, 2);
+
+        Map<String, CompletableFuture<Item>> resolved = resolver.resolve(Arrays.asList("a", "a", "b", "c"), Collections.emptySet(), fetcher());
+
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(resolved.keySet()));
+    }
+
+    @Test
+    public void whenFetchFailsThenRelatedItemsAreNotFound() {
+        RelatedItemResolver resolver = new RelatedItemResolver(1, 10);
+        CompletableFuture<Map<String, Item>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("index is down"));
+
+        Map<String, CompletableFuture<Item>> resolved = resolver.resolve(Arrays.asList("a"), Collections.emptySet(), oaiIds -> failed);
+
+        assertNull(resolved.get("a").join());
+    }
+
+    @Test
+    public void isExpandableUntilMaxDepth() {
+        RelatedItemResolver resolver = new RelatedItemResolver(2, 10);
+
+        assertTrue(resolver.isExpandable(0));
+        assertTrue(resolver.isExpandable(1));
+        assertFalse(resolver.isExpandable(2));
+    }
+
+    private Function<List<String>, CompletableFuture<Map<String, Item>>> fetcher() {
+        return oaiIds -> {
+            fetched.add(oaiIds);
+            Map<String, Item> items = new HashMap<>();
+            oaiIds.forEach(oaiId -> items.put(oaiId, new ItemBuilder(oaiId).build()));
+            return CompletableFuture.completedFuture(items);
+        };
+    }
+}
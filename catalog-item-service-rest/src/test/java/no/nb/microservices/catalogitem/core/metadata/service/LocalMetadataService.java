@@ -0,0 +1,52 @@
+package no.nb.microservices.catalogitem.core.metadata.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
+import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
+
+/**
+ * Stands in for the metadata service in tests. Answers with the MODS put
+ * in beforehand, or an empty one for any other id, and keeps the ids of
+ * every batch it is asked for.
+ */
+public class LocalMetadataService implements MetadataService {
+
+    private final Map<String, Mods> mods = new ConcurrentHashMap<>();
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    public LocalMetadataService put(String id, Mods m) {
+        mods.put(id, m);
+        return this;
+    }
+
+    @Override
+    public ListenableFuture<Mods> getModsById(TracableId id) {
+        return new AsyncResult<>(mods.getOrDefault(id.getId(), new Mods()));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Mods>> getModsByIds(List<TracableId> ids) {
+        batches.add(ids.stream()
+                .map(TracableId::getId)
+                .collect(Collectors.toList()));
+        Map<String, Mods> found = new HashMap<>();
+        for (TracableId id : ids) {
+            found.put(id.getId(), mods.getOrDefault(id.getId(), new Mods()));
+        }
+        return CompletableFuture.completedFuture(found);
+    }
+
+    public List<List<String>> getBatches() {
+        return batches;
+    }
+}
@@ -0,0 +1,157 @@
+package no.nb.microservices.catalogitem.core.metadata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import no.nb.microservices.catalogitem.config.MetadataSettings;
+import no.nb.microservices.catalogitem.core.cache.LocalCache;
+import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
+import no.nb.microservices.catalogitem.core.metadata.repository.MetadataRepository;
+import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MetadataServiceImplTest {
+
+    @Mock
+    MetadataRepository metadataRepository;
+
+    private MetadataServiceImpl metadataService;
+    private MetadataSettings metadataSettings;
+
+    @Before
+    public void setup() {
+        metadataSettings = new MetadataSettings();
+        metadataService = new MetadataServiceImpl(metadataRepository, new LocalCache<>("mods", 10, 60, TimeUnit.SECONDS), metadataSettings);
+    }
+
+    @Test
+    public void whenModsIsCachedThenRepositoryIsCalledOnce() throws Exception {
+        Mods mods = new Mods();
+        when(metadataRepository.getModsById(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn(mods);
+
+        metadataService.getModsById(createId("id1", "token")).get();
+        Mods cached = metadataService.getModsById(createId("id1", "token")).get();
+
+        assertSame(mods, cached);
+        verify(metadataRepository, times(1)).getModsById(anyString(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenSecurityInfoDiffersThenModsIsNotShared() throws Exception {
+        when(metadataRepository.getModsById(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn(new Mods());
+
+        metadataService.getModsById(createId("id1", "token")).get();
+        metadataService.getModsById(createId("id1", "otherToken")).get();
+
+        verify(metadataRepository, times(2)).getModsById(anyString(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenRepositoryFailsThenFallbackIsNotCached() throws Exception {
+        when(metadataRepository.getModsById(anyString(), anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(new RuntimeException("metadata service is down"));
+
+        metadataService.getModsById(createId("id1", "token")).get();
+        metadataService.getModsById(createId("id1", "token")).get();
+
+        verify(metadataRepository, times(2)).getModsById(anyString(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenRepositoryFailsThenLastKnownGoodModsIsServed() throws Exception {
+        metadataService = new MetadataServiceImpl(metadataRepository, new LocalCache<>("mods", 10, 0, 0, 60, TimeUnit.SECONDS), metadataSettings);
+        Mods mods = new Mods();
+        when(metadataRepository.getModsById(anyString(), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(mods)
+                .thenThrow(new RuntimeException("metadata service is down"));
+
+        metadataService.getModsById(createId("id1", "token")).get();
+        Mods lastKnownGood = metadataService.getModsById(createId("id1", "token")).get();
+
+        assertSame(mods, lastKnownGood);
+        verify(metadataRepository, times(2)).getModsById(anyString(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenModsIsStaleThenItIsServedAndRefreshed() throws Exception {
+        metadataService = new MetadataServiceImpl(metadataRepository, new LocalCache<>("mods", 10, 0, 60, 0, TimeUnit.SECONDS), metadataSettings);
+        Mods stale = new Mods();
+        when(metadataRepository.getModsById(anyString(), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(stale)
+                .thenReturn(new Mods());
+
+        metadataService.getModsById(createId("id1", "token")).get();
+        Mods served = metadataService.getModsById(createId("id1", "token")).get();
+
+        assertSame(stale, served);
+        verify(metadataRepository, timeout(1000).times(2)).getModsById(anyString(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenBulkIsSupportedThenModsOfManyIdsIsFetchedInOneRequest() throws Exception {
+        metadataSettings.setBulkMods(true);
+        Mods mods1 = new Mods();
+        Mods mods2 = new Mods();
+        when(metadataRepository.getModsByIds(eq(Arrays.asList("id1", "id2")), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(Arrays.asList(mods1, mods2));
+
+        Map<String, Mods> mods = metadataService.getModsByIds(Arrays.asList(createId("id1", "token"), createId("id2", "token"))).get();
+
+        assertSame(mods1, mods.get("id1"));
+        assertSame(mods2, mods.get("id2"));
+        assertSame(mods1, metadataService.getModsById(createId("id1", "token")).get());
+        verify(metadataRepository, never()).getModsById(anyString(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenBulkRequestFailsThenModsIsFetchedOneByOne() throws Exception {
+        metadataSettings.setBulkMods(true);
+        when(metadataRepository.getModsByIds(anyListOf(String.class), anyString(), anyString(), anyString(), anyString()))
+                .thenThrow(new RuntimeException("Not found"));
+        when(metadataRepository.getModsById(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn(new Mods());
+
+        Map<String, Mods> mods = metadataService.getModsByIds(Arrays.asList(createId("id1", "token"), createId("id2", "token"))).get();
+
+        assertEquals(2, mods.size());
+        verify(metadataRepository, times(2)).getModsById(anyString(), anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void whenSomeModsIsCachedThenOnlyTheRestIsFetched() throws Exception {
+        when(metadataRepository.getModsById(anyString(), anyString(), anyString(), anyString(), anyString())).thenReturn(new Mods());
+        metadataService.getModsById(createId("id1", "token")).get();
+
+        Map<String, Mods> mods = metadataService.getModsByIds(Arrays.asList(createId("id1", "token"), createId("id2", "token"), createId("id2", "token"))).get();
+
+        assertEquals(2, mods.size());
+        assertNotNull(mods.get("id2"));
+        verify(metadataRepository, times(1)).getModsById(eq("id1"), anyString(), anyString(), anyString(), anyString());
+        verify(metadataRepository, times(1)).getModsById(eq("id2"), anyString(), anyString(), anyString(), anyString());
+        verify(metadataRepository, never()).getModsByIds(anyListOf(String.class), anyString(), anyString(), anyString(), anyString());
+    }
+
+    private TracableId createId(String id, String ssoToken) {
+        SecurityInfo securityInfo = new SecurityInfo();
+        securityInfo.setxHost("www.nb.no");
+        securityInfo.setxPort("80");
+        securityInfo.setxRealIp("123.45.100.1");
+        securityInfo.setSsoToken(ssoToken);
+        return new TracableId(null, id, securityInfo);
+    }
+}
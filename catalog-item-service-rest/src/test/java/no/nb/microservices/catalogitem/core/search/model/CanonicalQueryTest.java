@@ -0,0 +1,84 @@
+package no.nb.microservices.catalogitem.core.search.model;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class CanonicalQueryTest {
+
+    @Test
+    public void whenOnlyOrderAndSpacingDifferThenQueriesAreEqual() {
+        SearchRequest first = new SearchRequest();
+        first.setQ("olav  tryggvason");
+        first.setFilter(new String[] {"mediatype:books", "contentClasses:public"});
+        first.setSort(new String[] {"year%2CDESC"});
+
+        SearchRequest second = new SearchRequest();
+        second.setQ(" olav tryggvason");
+        second.setFilter(new String[] {"contentClasses:public", "mediatype:books"});
+        second.setSort(new String[] {"year,desc"});
+
+        assertEquals(first.getCanonicalQuery(), second.getCanonicalQuery());
+        assertEquals(first.getCanonicalQuery().getFingerprint(), second.getCanonicalQuery().getFingerprint());
+    }
+
+    @Test
+    public void whenSortOrderDiffersThenQueriesDiffer() {
+        SearchRequest first = new SearchRequest();
+        first.setSort(new String[] {"title,asc", "year,desc"});
+        SearchRequest second = new SearchRequest();
+        second.setSort(new String[] {"year,desc", "title,asc"});
+
+        assertThat(first.getCanonicalQuery(), is(not(second.getCanonicalQuery())));
+        assertThat(first.getCanonicalQuery().getFingerprint(), is(not(second.getCanonicalQuery().getFingerprint())));
+    }
+
+    @Test
+    public void whenValuesRunTogetherThenQueriesDiffer() {
+        SearchRequest first = new SearchRequest();
+        first.setFilter(new String[] {"a;b"});
+        SearchRequest second = new SearchRequest();
+        second.setFilter(new String[] {"a", "b"});
+
+        assertThat(first.getCanonicalQuery(), is(not(second.getCanonicalQuery())));
+    }
+
+    @Test
+    public void whenSameQueryThenFingerprintIsStable() {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("*");
+        searchRequest.setFilter(new String[] {"mediatype:aviser"});
+
+        assertEquals("e9ab2b22ca7aa7f9", searchRequest.getCanonicalQuery().getFingerprintHex());
+    }
+
+    @Test
+    public void whenRequestIsUnchangedThenQueryIsMadeOnce() throws Exception {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("ibsen");
+
+        CanonicalQuery query = searchRequest.getCanonicalQuery();
+        assertSame(query, searchRequest.getCanonicalQuery());
+
+        SearchRequest clone = (SearchRequest) searchRequest.clone();
+        clone.setQ("hamsun");
+        assertNotSame(query, clone.getCanonicalQuery());
+        assertEquals("hamsun", clone.getCanonicalQuery().getQ());
+        assertSame(query, searchRequest.getCanonicalQuery());
+    }
+
+    @Test
+    public void whenAggregationsThenSortBoostAndExplainAreLeftOut() {
+        SearchRequest sorted = new SearchRequest();
+        sorted.setSort(new String[] {"title,asc"});
+        sorted.setBoost(new String[] {"title,5"});
+        sorted.setExplain(true);
+
+        assertEquals(new SearchRequest().getCanonicalQuery(), sorted.getCanonicalQuery().forAggregations());
+    }
+}
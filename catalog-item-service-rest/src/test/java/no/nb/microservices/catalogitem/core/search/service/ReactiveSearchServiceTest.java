@@ -0,0 +1,176 @@
+package no.nb.microservices.catalogitem.core.search.service;
+
+import no.nb.commons.web.util.UserUtils;
+import no.nb.microservices.catalogitem.config.RelatedItemsSettings;
+import no.nb.microservices.catalogitem.config.SearchSettings;
+import no.nb.microservices.catalogitem.config.SuperSearchSettings;
+import no.nb.microservices.catalogitem.core.content.service.ContentSearchService;
+import no.nb.microservices.catalogitem.core.index.model.SearchResult;
+import no.nb.microservices.catalogitem.core.index.service.IndexService;
+import no.nb.microservices.catalogitem.core.item.model.Item;
+import no.nb.microservices.catalogitem.core.item.service.ItemWrapperService;
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
+import no.nb.microservices.catalogitem.core.metadata.service.LocalMetadataService;
+import no.nb.microservices.catalogitem.core.search.model.*;
+import no.nb.microservices.catalogitem.core.security.service.AccessDecisionEngine;
+import no.nb.microservices.catalogitem.core.security.service.SecurityService;
+import no.nb.microservices.catalogitem.rest.model.ContentSearch;
+import no.nb.microservices.catalogsearchindex.AggregationResource;
+import no.nb.microservices.catalogsearchindex.FacetValueResource;
+import no.nb.microservices.catalogsearchindex.ItemResource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReactiveSearchServiceTest {
+    @Mock
+    ContentSearchService contentSearchService;
+    @Mock
+    IndexService indexService;
+    @Mock
+    SecurityService securityService;
+    private SuperSearchSettings superSearchSettings;
+    private SearchSettings searchSettings;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        superSearchSettings = new SuperSearchSettings();
+        searchSettings = new SearchSettings();
+        executor = Executors.newFixedThreadPool(8);
+        when(securityService.hasAccess(anyListOf(TracableId.class))).thenReturn(new AsyncResult<>(Collections.emptyMap()));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/catalog/v1/items?q=Junit");
+        request.addHeader(UserUtils.REAL_IP_HEADER, "123.45.123.123");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @After
+    public void cleanUp() {
+        executor.shutdownNow();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void whenSearchingThenItemsKeepTheIndexOrder() throws Exception {
+        ItemWrapperService itemWrapperService = itemWrapper -> CompletableFuture.supplyAsync(
+                () -> new Item.ItemBuilder(itemWrapper.getItemResource().getItemId()).build(), executor);
+        when(indexService.search(any(), any(), any())).thenReturn(new SearchResult(createItemResources("id1", "id2", "id3", "id4"), 4, null, null));
+
+        SearchAggregated result = createSearchService(itemWrapperService).search(new SearchRequest(), new PageRequest(0, 10));
+
+        List<String> ids = new ArrayList<>();
+        result.getPage().getContent().forEach(item -> ids.add(item.getId()));
+        assertEquals(Arrays.asList("id1", "id2", "id3", "id4"), ids);
+        assertEquals(4, result.getPage().getTotalElements());
+    }
+
+    @Test
+    public void whenSearchingThenNoMoreThanMaxConcurrentItemsAreHydratedAtOnce() throws Exception {
+        searchSettings.setMaxConcurrentItems(2);
+        AtomicInteger hydrating = new AtomicInteger();
+        AtomicInteger maxHydrating = new AtomicInteger();
+        ItemWrapperService itemWrapperService = itemWrapper -> {
+            maxHydrating.accumulateAndGet(hydrating.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                hydrating.decrementAndGet();
+                return new Item.ItemBuilder(itemWrapper.getItemResource().getItemId()).build();
+            }, executor);
+        };
+        when(indexService.search(any(), any(), any())).thenReturn(new SearchResult(createItemResources("id1", "id2", "id3", "id4", "id5", "id6"), 6, null, null));
+
+        SearchAggregated result = createSearchService(itemWrapperService).search(new SearchRequest(), new PageRequest(0, 10));
+
+        assertThat(result.getPage().getContent(), hasSize(6));
+        assertTrue("At most 2 items should be hydrated at once", maxHydrating.get() <= 2);
+    }
+
+    @Test
+    public void whenHydratingAnItemFailsThenItIsLeftOut() throws Exception {
+        ItemWrapperService itemWrapperService = itemWrapper -> {
+            if ("id2".equals(itemWrapper.getItemResource().getItemId())) {
+                throw new IllegalStateException("Metadata is down");
+            }
+            return CompletableFuture.completedFuture(new Item.ItemBuilder(itemWrapper.getItemResource().getItemId()).build());
+        };
+        when(indexService.search(any(), any(), any())).thenReturn(new SearchResult(createItemResources("id1", "id2", "id3"), 3, null, null));
+
+        SearchAggregated result = createSearchService(itemWrapperService).search(new SearchRequest(), new PageRequest(0, 10));
+
+        assertThat(result.getPage().getContent(), hasSize(2));
+    }
+
+    @Test
+    public void whenContentSearchIsNotReadyInTimeThenItIsDroppedAndCounted() throws Exception {
+        superSearchSettings.setContentSearchTimeoutMillis(50);
+        searchSettings.setMaxConcurrentContentSearches(1);
+        SuperSearchRequest searchRequest = new SuperSearchRequest();
+        searchRequest.setQ("q");
+        searchRequest.setMediaTypes(new String[]{"aviser"});
+        when(indexService.aggregations(any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+        when(indexService.search(any(), any(), any())).thenReturn(new SearchResult(createItemResources("id1", "id2", "id3"), 3, Collections.emptyList(), null));
+        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean()))
+                .thenReturn(new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>")))
+                .thenReturn(new SettableListenableFuture<>());
+
+        long start = System.currentTimeMillis();
+        SuperSearchAggregated superSearchAggregated = createSearchService(new ItemWrapperServiceStub()).superSearch(searchRequest, new PageRequest(0, 3));
+
+        assertTrue("Super search should not wait for the slow content search", System.currentTimeMillis() - start < 2000);
+        SearchAggregated newspapers = superSearchAggregated.getSearchAggregateds().get("aviser");
+        assertThat(newspapers.getContentSearches(), hasSize(1));
+        assertEquals("The slow one and the one never started are dropped", 2, newspapers.getDroppedContentSearches());
+        verify(contentSearchService, times(2)).search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean());
+    }
+
+    private ReactiveSearchService createSearchService(ItemWrapperService itemWrapperService) {
+        return new ReactiveSearchService(itemWrapperService, indexService, contentSearchService, new AccessDecisionEngine(securityService),
+                new LocalMetadataService(), new RelatedItemsSettings(), superSearchSettings, executor, searchSettings);
+    }
+
+    private List<ItemResource> createItemResources(String... ids) {
+        List<ItemResource> itemResources = new ArrayList<>();
+        for (String id : ids) {
+            ItemResource itemResource = new ItemResource();
+            itemResource.setItemId(id);
+            itemResources.add(itemResource);
+        }
+        return itemResources;
+    }
+
+    private SearchResult createMediaTypeAggsSearchResult() {
+        AggregationResource aggregationResource = new AggregationResource("mediatype");
+        aggregationResource.setFacetValues(Arrays.asList(new FacetValueResource("aviser", 1)));
+        return new SearchResult(Collections.emptyList(), 1, Arrays.asList(aggregationResource), null);
+    }
+}
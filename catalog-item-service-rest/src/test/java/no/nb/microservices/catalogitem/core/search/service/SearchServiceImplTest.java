@@ -1,6 +1,8 @@
 package no.nb.microservices.catalogitem.core.search.service;
 
 import no.nb.commons.web.util.UserUtils;
+import no.nb.microservices.catalogitem.config.RelatedItemsSettings;
+import no.nb.microservices.catalogitem.config.SuperSearchSettings;
 import no.nb.microservices.catalogitem.core.content.service.ContentSearchService;
 import no.nb.microservices.catalogitem.core.index.model.SearchResult;
 import no.nb.microservices.catalogitem.core.index.service.IndexService;
@@ -8,8 +10,12 @@ import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.core.item.service.ItemWrapperService;
 import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
 import no.nb.microservices.catalogitem.core.item.service.TracableId;
+import no.nb.microservices.catalogitem.core.metadata.service.LocalMetadataService;
 import no.nb.microservices.catalogitem.core.search.model.*;
+import no.nb.microservices.catalogitem.core.security.service.AccessDecisionEngine;
+import no.nb.microservices.catalogitem.core.security.service.SecurityService;
 import no.nb.microservices.catalogitem.rest.model.ContentSearch;
+import no.nb.microservices.catalogmetadata.model.mods.v3.Mods;
 import no.nb.microservices.catalogsearchindex.AggregationResource;
 import no.nb.microservices.catalogsearchindex.FacetValueResource;
 import no.nb.microservices.catalogsearchindex.ItemResource;
@@ -23,18 +29,28 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
@@ -46,11 +62,20 @@ public class SearchServiceImplTest {
     ContentSearchService contentSearchService;
     @Mock
     IndexService indexService;
+    @Mock
+    SecurityService securityService;
     private SearchServiceImpl searchService;
+    private SuperSearchSettings superSearchSettings;
+    private ExecutorService superSearchExecutor;
+    private LocalMetadataService metadataService;
 
     @Before
     public void setup() {
-        searchService = new SearchServiceImpl(new ItemWrapperServiceStub(), indexService, contentSearchService);
+        superSearchSettings = new SuperSearchSettings();
+        metadataService = new LocalMetadataService();
+        superSearchExecutor = Executors.newFixedThreadPool(4);
+        searchService = new SearchServiceImpl(new ItemWrapperServiceStub(), indexService, contentSearchService, new AccessDecisionEngine(securityService), metadataService, new RelatedItemsSettings(), superSearchSettings, superSearchExecutor);
+        when(securityService.hasAccess(anyListOf(TracableId.class))).thenReturn(new AsyncResult<>(Collections.emptyMap()));
         MockHttpServletRequest request = new MockHttpServletRequest("GET","/catalog/v1/search?q=Junit");
 
         String ip = "123.45.123.123";
@@ -62,6 +87,7 @@ public class SearchServiceImplTest {
 
     @After
     public void cleanUp() {
+        superSearchExecutor.shutdownNow();
         RequestContextHolder.resetRequestAttributes();
     }
 
@@ -78,14 +104,55 @@ public class SearchServiceImplTest {
         assertEquals("The result size should be 2", 2, result.getPage().getContent().size());
     }
 
+    @Test
+    public void whenSearchingThenAccessIsDecidedForTheWholePageInOneCall() throws Exception {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("I love Træna");
+        ItemResource item1 = new ItemResource();
+        item1.setItemId("id1");
+        ItemResource item2 = new ItemResource();
+        item2.setItemId("id2");
+        when(indexService.search(anyObject(), anyObject(), anyObject())).thenReturn(new SearchResult(Arrays.asList(item1, item2), 2, null, null));
+
+        searchService.search(searchRequest, new PageRequest(0, 10));
+
+        verify(securityService, times(1)).hasAccess(argThat(new HasIds("id1", "id2")));
+        verify(securityService, never()).hasAccess(any(TracableId.class));
+    }
+
+    @Test
+    public void whenScrollingThenBatchIsHydratedAndNextScrollIdIsReturned() throws Exception {
+        when(indexService.scroll(eq("scroll1"), any(SecurityInfo.class))).thenReturn(new SearchResult(Arrays.asList(new ItemResource(), new ItemResource()), 100, null, "scroll2"));
+        List<Item> handedOver = Collections.synchronizedList(new ArrayList<>());
+
+        SearchAggregated result = searchService.scroll("scroll1", handedOver::add);
+
+        assertThat(result.getPage().getContent(), hasSize(2));
+        assertThat(handedOver, hasSize(2));
+        assertEquals("scroll2", result.getScrollId());
+        assertEquals(100, result.getPage().getTotalElements());
+    }
+
+    @Test
+    public void whenAccessInfoIsNotWantedThenAccessIsNotDecided() throws Exception {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("I love Træna");
+        searchRequest.setFields(Arrays.asList("title"));
+        when(indexService.search(anyObject(), anyObject(), anyObject())).thenReturn(new SearchResult(Arrays.asList(new ItemResource()), 1, null, null));
+
+        searchService.search(searchRequest, new PageRequest(0, 10));
+
+        verify(securityService, never()).hasAccess(anyListOf(TracableId.class));
+    }
+
     @Test
     public void whenSuperSearchAndIndexReturnResultsThenResultShouldContainMultipleResultsWithMultipleItems() throws Exception {
         SuperSearchRequest searchRequest = new SuperSearchRequest();
         searchRequest.setQ("q");
 
-        when(indexService.search(any(), any(), any())).thenReturn(createMediaTypeAggsSearchResult());
-        Future<ContentSearch> futureContentSearch = new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>"));
-        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class))).thenReturn(futureContentSearch);
+        when(indexService.aggregations(any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+        ListenableFuture<ContentSearch> futureContentSearch = new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>"));
+        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean())).thenReturn(futureContentSearch);
         SearchResult searchResultBooks = new SearchResult(Arrays.asList(new ItemResource()), 40, Collections.emptyList(), null);
         when(indexService.search(argThat(new IsSameSearchRequest(createSearchRequest(new String[]{"mediatype:bøker"}))), any(), any())).thenReturn(searchResultBooks);
         when(indexService.search(argThat(new IsSameSearchRequest(createSearchRequest(new String[]{"mediatype:aviser"}))), any(), any())).thenReturn(searchResultBooks);
@@ -96,14 +163,41 @@ public class SearchServiceImplTest {
         assertThat(superSearchAggregated.getSearchAggregateds().get("bøker").getPage().getContent(), hasSize(1));
     }
 
+    @Test
+    public void whenSuperSearchThenSectionsGetUserAndResolverOfRequestWithoutItsAttributes() throws Exception {
+        SuperSearchRequest searchRequest = new SuperSearchRequest();
+        searchRequest.setQ("q");
+        List<ItemWrapper> itemWrappers = Collections.synchronizedList(new ArrayList<>());
+        List<Object> sectionAttributes = Collections.synchronizedList(new ArrayList<>());
+        ItemWrapperService itemWrapperService = itemWrapper -> {
+            itemWrappers.add(itemWrapper);
+            sectionAttributes.add(RequestContextHolder.getRequestAttributes());
+            return new ItemWrapperServiceStub().getById(itemWrapper);
+        };
+        searchService = new SearchServiceImpl(itemWrapperService, indexService, contentSearchService, new AccessDecisionEngine(securityService), metadataService, new RelatedItemsSettings(), superSearchSettings, superSearchExecutor);
+        when(indexService.aggregations(any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean())).thenReturn(new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>")));
+        when(indexService.search(any(), any(), any())).thenReturn(new SearchResult(Arrays.asList(new ItemResource()), 1, Collections.emptyList(), null));
+
+        searchService.superSearch(searchRequest, new PageRequest(0, 1));
+
+        assertThat(itemWrappers, hasSize(2));
+        assertNotNull(itemWrappers.get(0).getRelatedItemResolver());
+        assertSame(itemWrappers.get(0).getRelatedItemResolver(), itemWrappers.get(1).getRelatedItemResolver());
+        for (ItemWrapper itemWrapper : itemWrappers) {
+            assertEquals("123.45.123.123", itemWrapper.getSecurityInfo().getxRealIp());
+        }
+        assertEquals(Arrays.asList(null, null), sectionAttributes);
+    }
+
     @Test
     public void whenSuperSearchThenReturnTextAroundSearchString() throws Exception {
         SuperSearchRequest searchRequest = new SuperSearchRequest();
         searchRequest.setQ("q");
 
-        when(indexService.search(any(), any(), any())).thenReturn(createMediaTypeAggsSearchResult());
-        Future<ContentSearch> futureContentSearch = new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>"));
-        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class))).thenReturn(futureContentSearch);
+        when(indexService.aggregations(any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+        ListenableFuture<ContentSearch> futureContentSearch = new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>"));
+        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean())).thenReturn(futureContentSearch);
 
         SearchResult searchResultBooks = new SearchResult(Arrays.asList(new ItemResource()), 1, Collections.emptyList(), null);
         when(indexService.search(argThat(new IsSameSearchRequest(createSearchRequest(new String[]{"mediatype:bøker"}))), any(), any())).thenReturn(searchResultBooks);
@@ -114,8 +208,9 @@ public class SearchServiceImplTest {
         assertThat(superSearchAggregated.getSearchAggregateds().keySet(), hasSize(2));
         assertThat(superSearchAggregated.getSearchAggregateds().get("aviser").getContentSearches(), hasSize(1));
 
-        verify(indexService, times(3)).search(any(SearchRequest.class), any(Pageable.class), any(SecurityInfo.class));
-        verify(contentSearchService, times(1)).search(eq(searchRequest.getQ()), any(TracableId.class));
+        verify(indexService, times(1)).aggregations(any(SearchRequest.class), any(SecurityInfo.class));
+        verify(indexService, times(2)).search(any(SearchRequest.class), any(Pageable.class), any(SecurityInfo.class));
+        verify(contentSearchService, times(1)).search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean());
     }
 
     @Test
@@ -124,7 +219,7 @@ public class SearchServiceImplTest {
         aggsSearchRequest.setQ("q");
         aggsSearchRequest.setFilter(new String[]{"mediatype:bøker", "keydate:2014"});
         aggsSearchRequest.setAggs("mediatype:20");
-        when(indexService.search(argThat(new IsSameSearchRequest(aggsSearchRequest)), any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+        when(indexService.aggregations(argThat(new IsSameSearchRequest(aggsSearchRequest)), any())).thenReturn(createMediaTypeAggsSearchResult());
 
         SearchRequest bookSearchRequest = new SearchRequest();
         bookSearchRequest.setQ("q");
@@ -141,10 +236,146 @@ public class SearchServiceImplTest {
         superSearchRequest.setFilter(new String[]{"mediatype:bøker", "keydate:2014"});
         searchService.superSearch(superSearchRequest, new PageRequest(0, 10));
 
-        verify(indexService, times(3)).search(any(), any(), any());
+        verify(indexService, times(1)).aggregations(any(), any());
+        verify(indexService, times(2)).search(any(), any(), any());
         verifyNoMoreInteractions(indexService);
     }
 
+    @Test
+    public void whenSuperSearchThenSectionsAreSearchedConcurrently() throws Exception {
+        SuperSearchRequest searchRequest = new SuperSearchRequest();
+        searchRequest.setQ("q");
+        when(indexService.aggregations(any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean())).thenReturn(new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>")));
+
+        CountDownLatch bothSectionsStarted = new CountDownLatch(2);
+        SearchResult searchResult = new SearchResult(Arrays.asList(new ItemResource()), 1, Collections.emptyList(), null);
+        when(indexService.search(any(), any(), any())).thenAnswer(invocation -> {
+            bothSectionsStarted.countDown();
+            if (!bothSectionsStarted.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Sections were searched one by one");
+            }
+            return searchResult;
+        });
+
+        SuperSearchAggregated superSearchAggregated = searchService.superSearch(searchRequest, new PageRequest(0, 1));
+
+        assertThat(superSearchAggregated.getSearchAggregateds().get("bøker").getPage().getContent(), hasSize(1));
+        assertThat(superSearchAggregated.getSearchAggregateds().get("aviser").getPage().getContent(), hasSize(1));
+        assertEquals(SearchStatus.COMPLETE, superSearchAggregated.getSearchAggregateds().get("bøker").getStatus());
+    }
+
+    @Test
+    public void whenSuperSearchSectionMissesDeadlineThenSectionIsEmptyAndTimedOut() throws Exception {
+        superSearchSettings.setTimeoutMillis(200);
+        SuperSearchRequest searchRequest = new SuperSearchRequest();
+        searchRequest.setQ("q");
+        when(indexService.aggregations(any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean())).thenReturn(new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>")));
+
+        SearchResult searchResult = new SearchResult(Arrays.asList(new ItemResource()), 1, Collections.emptyList(), null);
+        when(indexService.search(argThat(new IsSameSearchRequest(createSearchRequest(new String[]{"mediatype:bøker"}))), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return searchResult;
+        });
+        when(indexService.search(argThat(new IsSameSearchRequest(createSearchRequest(new String[]{"mediatype:aviser"}))), any(), any())).thenReturn(searchResult);
+
+        long start = System.currentTimeMillis();
+        SuperSearchAggregated superSearchAggregated = searchService.superSearch(searchRequest, new PageRequest(0, 1));
+
+        assertTrue("Super search should not wait for the slow section", System.currentTimeMillis() - start < 2000);
+        SearchAggregated books = superSearchAggregated.getSearchAggregateds().get("bøker");
+        assertEquals(SearchStatus.TIMED_OUT, books.getStatus());
+        assertThat(books.getPage().getContent(), hasSize(0));
+        SearchAggregated newspapers = superSearchAggregated.getSearchAggregateds().get("aviser");
+        assertEquals(SearchStatus.COMPLETE, newspapers.getStatus());
+        assertThat(newspapers.getPage().getContent(), hasSize(1));
+    }
+
+    @Test
+    public void whenContentSearchIsNotReadyInTimeThenItIsDroppedAndCounted() throws Exception {
+        superSearchSettings.setContentSearchTimeoutMillis(50);
+        SuperSearchRequest searchRequest = new SuperSearchRequest();
+        searchRequest.setQ("q");
+        searchRequest.setMediaTypes(new String[]{"aviser"});
+        when(indexService.aggregations(any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+        when(indexService.search(any(), any(), any())).thenReturn(new SearchResult(Arrays.asList(new ItemResource(), new ItemResource()), 2, Collections.emptyList(), null));
+        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean()))
+                .thenReturn(new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>")))
+                .thenReturn(new SettableListenableFuture<>());
+
+        long start = System.currentTimeMillis();
+        SuperSearchAggregated superSearchAggregated = searchService.superSearch(searchRequest, new PageRequest(0, 2));
+
+        assertTrue("Super search should not wait for the slow content search", System.currentTimeMillis() - start < 2000);
+        SearchAggregated newspapers = superSearchAggregated.getSearchAggregateds().get("aviser");
+        assertThat(newspapers.getContentSearches(), hasSize(1));
+        assertEquals(1, newspapers.getDroppedContentSearches());
+    }
+
+    @Test
+    public void whenContentSearchIsRejectedThenItIsDroppedAndCounted() throws Exception {
+        SuperSearchRequest searchRequest = new SuperSearchRequest();
+        searchRequest.setQ("q");
+        searchRequest.setMediaTypes(new String[]{"aviser"});
+        when(indexService.aggregations(any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+        when(indexService.search(any(), any(), any())).thenReturn(new SearchResult(Arrays.asList(new ItemResource(), new ItemResource()), 2, Collections.emptyList(), null));
+        when(contentSearchService.search(eq(searchRequest.getQ()), any(TracableId.class), anyBoolean()))
+                .thenReturn(new AsyncResult<>(new ContentSearch("123", "det var <em>q</em>")))
+                .thenThrow(new TaskRejectedException("Content search executor is full"));
+
+        SuperSearchAggregated superSearchAggregated = searchService.superSearch(searchRequest, new PageRequest(0, 2));
+
+        SearchAggregated newspapers = superSearchAggregated.getSearchAggregateds().get("aviser");
+        assertThat(newspapers.getContentSearches(), hasSize(1));
+        assertEquals(1, newspapers.getDroppedContentSearches());
+    }
+
+    @Test
+    public void whenSearchingWithMetadataThenModsOfTheWholePageIsFetchedInOneBatch() throws Exception {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("q");
+        searchRequest.setExpand("metadata");
+        ItemResource item1 = new ItemResource();
+        item1.setItemId("id1");
+        ItemResource item2 = new ItemResource();
+        item2.setItemId("id2");
+        Mods mods1 = new Mods();
+        metadataService.put("id1", mods1);
+        List<ItemWrapper> itemWrappers = Collections.synchronizedList(new ArrayList<>());
+        ItemWrapperService itemWrapperService = itemWrapper -> {
+            itemWrappers.add(itemWrapper);
+            return new ItemWrapperServiceStub().getById(itemWrapper);
+        };
+        searchService = new SearchServiceImpl(itemWrapperService, indexService, contentSearchService, new AccessDecisionEngine(securityService), metadataService, new RelatedItemsSettings(), superSearchSettings, superSearchExecutor);
+        when(indexService.search(anyObject(), anyObject(), anyObject())).thenReturn(new SearchResult(Arrays.asList(item1, item2), 2, null, null));
+
+        searchService.search(searchRequest, new PageRequest(0, 10));
+
+        assertEquals(Arrays.asList(Arrays.asList("id1", "id2")), metadataService.getBatches());
+        assertSame(mods1, itemWrappers.get(0).getMods().get());
+        assertNotNull(itemWrappers.get(1).getMods().get());
+    }
+
+    @Test
+    public void whenAggregationsThenIndexIsAskedOnceAndNoItemIsHydrated() throws Exception {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("q");
+        searchRequest.setAggs("mediatype");
+        ItemWrapperService itemWrapperService = mock(ItemWrapperService.class);
+        searchService = new SearchServiceImpl(itemWrapperService, indexService, contentSearchService, new AccessDecisionEngine(securityService), metadataService, new RelatedItemsSettings(), superSearchSettings, superSearchExecutor);
+        when(indexService.aggregations(any(), any())).thenReturn(createMediaTypeAggsSearchResult());
+
+        SearchAggregated result = searchService.aggregations(searchRequest);
+
+        assertThat(result.getAggregations(), hasSize(1));
+        assertThat(result.getPage().getContent(), hasSize(0));
+        assertEquals(1, result.getPage().getTotalElements());
+        verify(indexService, times(1)).aggregations(any(), any());
+        verifyNoMoreInteractions(indexService);
+        verifyZeroInteractions(itemWrapperService, securityService);
+    }
+
     private SearchResult createMediaTypeAggsSearchResult() {
         AggregationResource aggregationResource = new AggregationResource("mediatype");
         aggregationResource.setFacetValues(Arrays.asList(new FacetValueResource("bøker", 1), new FacetValueResource("aviser", 1)));
@@ -162,13 +393,36 @@ public class SearchServiceImplTest {
 
 class ItemWrapperServiceStub implements ItemWrapperService {
     @Override
-    public Future<Item> getById(ItemWrapper itemWrapper) {
+    public CompletableFuture<Item> getById(ItemWrapper itemWrapper) {
         Item item = new Item.ItemBuilder("123").build();
         try {
-            return new AsyncResult<>(item);
+            return CompletableFuture.completedFuture(item);
         } finally {
-            itemWrapper.getLatch().countDown();
+            if (itemWrapper.getLatch() != null) {
+                itemWrapper.getLatch().countDown();
+            }
+        }
+    }
+}
+
+class HasIds extends ArgumentMatcher<List<TracableId>> {
+
+    private final List<String> ids;
+
+    HasIds(String... ids) {
+        this.ids = Arrays.asList(ids);
+    }
+
+    @Override
+    public boolean matches(Object o) {
+        if (o instanceof List) {
+            List<String> other = new ArrayList<>();
+            for (Object id : (List<?>) o) {
+                other.add(((TracableId) id).getId());
+            }
+            return ids.equals(other);
         }
+        return false;
     }
 }
 
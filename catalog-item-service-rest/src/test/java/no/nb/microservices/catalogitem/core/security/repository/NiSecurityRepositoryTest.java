@@ -2,12 +2,23 @@ package no.nb.microservices.catalogitem.core.security.repository;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.util.SocketUtils;
 
+import no.nb.microservices.catalogitem.config.NiSettings;
+import no.nb.microservices.catalogitem.core.cache.Cache;
+import no.nb.microservices.catalogitem.core.cache.LocalCache;
 import no.nb.sesam.ni.niclient.NiClient;
 import no.nb.sesam.ni.niserver.AuthorisationHandler;
 import no.nb.sesam.ni.niserver.AuthorisationHandlerResolver;
@@ -43,7 +54,7 @@ public class NiSecurityRepositoryTest {
     public void whenUserHasAccessThenReturnTrue() throws Exception {
         
         NiClient niClient = new NiClient(TEST_SERVER_ADDR);
-        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient);
+        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient, createCache(), new NiSettings());
         assertTrue(niSecurityRepository.hasAccess("URN:NBN:no-nb_accept", "123.45.123.123", "amsso1"));
     }
 
@@ -51,7 +62,7 @@ public class NiSecurityRepositoryTest {
     public void whenUserIsDeniedAccessThenReturnFalse() throws Exception {
         
         NiClient niClient = new NiClient(TEST_SERVER_ADDR);
-        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient);
+        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient, createCache(), new NiSettings());
         assertFalse(niSecurityRepository.hasAccess("URN:NBN:no-nb_deny", "123.45.123.123", "amsso1"));
     }
 
@@ -59,10 +70,70 @@ public class NiSecurityRepositoryTest {
     public void throwSecurityExceptionIfException() throws Exception {
         
         NiClient niClient = new NiClient(TEST_SERVER_ADDR);
-        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient);
+        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient, createCache(), new NiSettings());
         assertFalse(niSecurityRepository.hasAccess("URN:NBN:no-nb_ex", "123.45.123.123", "amsso1"));
     }
 
+    @Test
+    public void whenDecisionIsCachedThenNiIsNotAskedAgain() throws Exception {
+        NiClient niClient = spy(new NiClient(TEST_SERVER_ADDR));
+        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient, createCache(), new NiSettings());
+
+        assertTrue(niSecurityRepository.hasAccess("URN:NBN:no-nb_accept", "123.45.123.123", "amsso1"));
+        assertTrue(niSecurityRepository.hasAccess("URN:NBN:no-nb_accept", "123.45.123.123", "amsso1"));
+        niSecurityRepository.hasAccess("URN:NBN:no-nb_accept", "123.45.123.123", "amsso2");
+
+        verify(niClient, times(1)).hasAccess("amsso1", "URN:NBN:no-nb_accept", null, "123.45.123.123");
+        verify(niClient, times(1)).hasAccess("amsso2", "URN:NBN:no-nb_accept", null, "123.45.123.123");
+    }
+
+    @Test
+    public void whenTokenIsInvalidatedThenNiIsAskedAgain() throws Exception {
+        NiClient niClient = spy(new NiClient(TEST_SERVER_ADDR));
+        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient, createCache(), new NiSettings());
+
+        niSecurityRepository.hasAccess("URN:NBN:no-nb_accept", "123.45.123.123", "amsso1");
+        niSecurityRepository.invalidate("amsso1");
+        niSecurityRepository.hasAccess("URN:NBN:no-nb_accept", "123.45.123.123", "amsso1");
+
+        verify(niClient, times(2)).hasAccess("amsso1", "URN:NBN:no-nb_accept", null, "123.45.123.123");
+    }
+
+    @Test
+    public void whenBulkCheckingThenEveryIdGetsADecision() throws Exception {
+        NiClient niClient = new NiClient(TEST_SERVER_ADDR);
+        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient, createCache(), new NiSettings());
+
+        Map<String, Boolean> hasAccess = niSecurityRepository.hasAccess(
+                Arrays.asList("URN:NBN:no-nb_accept", "URN:NBN:no-nb_deny", "URN:NBN:no-nb_ex"), "123.45.123.123", "amsso1");
+
+        assertTrue(hasAccess.get("URN:NBN:no-nb_accept"));
+        assertFalse(hasAccess.get("URN:NBN:no-nb_deny"));
+        assertFalse("A failing id should be denied without failing the others", hasAccess.get("URN:NBN:no-nb_ex"));
+    }
+
+    @Test
+    public void whenOneIdIsSlowThenOnlyThatIdFallsBack() throws Exception {
+        NiClient niClient = spy(new NiClient(TEST_SERVER_ADDR));
+        doAnswer(invocation -> {
+            Thread.sleep(600);
+            return invocation.callRealMethod();
+        }).when(niClient).hasAccess("amsso1", "URN:NBN:no-nb_accept_slow", null, "123.45.123.123");
+        NiSettings niSettings = new NiSettings();
+        niSettings.setBulkTimeoutMillis(200);
+        NiSecurityRepository niSecurityRepository = new NiSecurityRepository(niClient, createCache(), niSettings);
+
+        Map<String, Boolean> hasAccess = niSecurityRepository.hasAccess(
+                Arrays.asList("URN:NBN:no-nb_accept", "URN:NBN:no-nb_accept_slow"), "123.45.123.123", "amsso1");
+
+        assertTrue(hasAccess.get("URN:NBN:no-nb_accept"));
+        assertFalse(hasAccess.get("URN:NBN:no-nb_accept_slow"));
+    }
+
+    private Cache<AccessCacheKey, Boolean> createCache() {
+        return new LocalCache<>("access", 100, 60, TimeUnit.SECONDS);
+    }
+
     static class MockAuthorisationHandlerResolver implements
             AuthorisationHandlerResolver {
 
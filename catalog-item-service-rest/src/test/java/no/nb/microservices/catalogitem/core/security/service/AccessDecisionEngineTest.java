@@ -0,0 +1,119 @@
+package no.nb.microservices.catalogitem.core.security.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.AsyncResult;
+
+import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
+import no.nb.microservices.catalogsearchindex.ItemResource;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AccessDecisionEngineTest {
+
+    @Mock
+    SecurityService securityService;
+
+    private AccessDecisionEngine accessDecisionEngine;
+
+    @Before
+    public void setup() {
+        accessDecisionEngine = new AccessDecisionEngine(securityService);
+    }
+
+    @Test
+    public void whenItemIsPublicThenNiIsNotAsked() throws Exception {
+        boolean hasAccess = accessDecisionEngine.hasAccess(new TracableId(null, "id1", new SecurityInfo()), createItemResource("id1", "public", "jp2")).get();
+
+        assertTrue(hasAccess);
+        verify(securityService, never()).hasAccess(any(TracableId.class));
+        assertEquals(1L, getMetric("access.decisions.local"));
+    }
+
+    @Test
+    public void whenItemIsRestrictedThenNiDecides() throws Exception {
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(new AsyncResult<>(false));
+
+        boolean hasAccess = accessDecisionEngine.hasAccess(new TracableId(null, "id1", new SecurityInfo()), createItemResource("id1", "bokhylla")).get();
+
+        assertFalse(hasAccess);
+        assertEquals(1L, getMetric("access.decisions.ni"));
+    }
+
+    @Test
+    public void whenItemResourceIsUnknownThenNiDecides() throws Exception {
+        when(securityService.hasAccess(any(TracableId.class))).thenReturn(new AsyncResult<>(true));
+
+        assertTrue(accessDecisionEngine.hasAccess(new TracableId(null, "id1", new SecurityInfo()), null).get());
+    }
+
+    @Test
+    public void whenCheckingAPageThenOnlyAmbiguousItemsAreSentToNi() throws Exception {
+        when(securityService.hasAccess(anyListOf(TracableId.class))).thenReturn(new AsyncResult<>(Collections.singletonMap("id2", false)));
+
+        Map<String, Boolean> hasAccess = accessDecisionEngine.hasAccess(Arrays.asList(
+                createItemResource("id1", "mavispublic"),
+                createItemResource("id2", "restricted"),
+                createItemResource("id3", "showonly")), null, new SecurityInfo()).get();
+
+        assertTrue(hasAccess.get("id1"));
+        assertFalse(hasAccess.get("id2"));
+        assertTrue(hasAccess.get("id3"));
+        assertEquals(2L, getMetric("access.decisions.local"));
+        assertEquals(1L, getMetric("access.decisions.ni"));
+    }
+
+    @Test
+    public void whenWholePageIsPublicThenNiIsNotAsked() throws Exception {
+        accessDecisionEngine.hasAccess(Arrays.asList(createItemResource("id1", "public")), null, new SecurityInfo()).get();
+
+        verify(securityService, never()).hasAccess(anyListOf(TracableId.class));
+    }
+
+    @Test
+    public void whenAccessExecutorIsFullThenAmbiguousItemsAreDenied() throws Exception {
+        when(securityService.hasAccess(anyListOf(TracableId.class))).thenThrow(new TaskRejectedException("access is full"));
+
+        Map<String, Boolean> hasAccess = accessDecisionEngine.hasAccess(Arrays.asList(
+                createItemResource("id1", "public"),
+                createItemResource("id2", "restricted")), null, new SecurityInfo()).get();
+
+        assertTrue(hasAccess.get("id1"));
+        assertFalse(hasAccess.get("id2"));
+        assertEquals(1L, getMetric("access.decisions.rejected"));
+    }
+
+    private ItemResource createItemResource(String id, String... contentClasses) {
+        ItemResource itemResource = new ItemResource();
+        itemResource.setItemId(id);
+        itemResource.setContentClasses(Arrays.asList(contentClasses));
+        return itemResource;
+    }
+
+    private Object getMetric(String name) {
+        for (Metric<?> metric : accessDecisionEngine.metrics()) {
+            if (metric.getName().equals(name)) {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package no.nb.microservices.catalogitem.core.security.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import no.nb.microservices.catalogitem.core.item.service.SecurityInfo;
+import no.nb.microservices.catalogitem.core.item.service.TracableId;
+import no.nb.microservices.catalogitem.core.security.repository.LocalSecurityRepository;
+
+public class NiSecurityServiceTest {
+
+    private LocalSecurityRepository securityRepository;
+    private NiSecurityService securityService;
+
+    @Before
+    public void setup() {
+        securityRepository = new LocalSecurityRepository().withDecision("id2", false);
+        securityService = new NiSecurityService();
+        securityService.securityRepository = securityRepository;
+    }
+
+    @Test
+    public void whenCheckingAPageThenRepositoryIsCalledOnce() throws Exception {
+        SecurityInfo securityInfo = new SecurityInfo();
+
+        Map<String, Boolean> hasAccess = securityService.hasAccess(Arrays.asList(
+                new TracableId(null, "id1", securityInfo),
+                new TracableId(null, "id2", securityInfo),
+                new TracableId(null, "id3", securityInfo))).get();
+
+        assertTrue(hasAccess.get("id1"));
+        assertFalse(hasAccess.get("id2"));
+        assertTrue(hasAccess.get("id3"));
+        assertEquals(1, securityRepository.getCalls());
+    }
+}
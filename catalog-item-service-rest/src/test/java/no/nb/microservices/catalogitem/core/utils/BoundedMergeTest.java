@@ -0,0 +1,93 @@
+package no.nb.microservices.catalogitem.core.utils;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.CoreMatchers.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import reactor.rx.Streams;
+
+public class BoundedMergeTest {
+
+    @Test
+    public void whenResultsAreSlowThenNoMoreThanMaxConcurrencyAreStarted() {
+        List<CompletableFuture<String>> started = new ArrayList<>();
+        BoundedMerge<String, String> merge = new BoundedMerge<>(2, element -> {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            started.add(result);
+            return result;
+        });
+
+        Streams.from(Arrays.asList("a", "b", "c", "d")).subscribe(merge);
+        assertThat(started.size(), is(2));
+
+        started.get(1).complete("b");
+        assertThat(started.size(), is(3));
+        assertThat(merge.whenDone().isDone(), is(false));
+
+        started.get(0).complete("a");
+        started.get(2).complete("c");
+        started.get(3).complete("d");
+        assertThat(merge.whenDone().isDone(), is(true));
+    }
+
+    @Test
+    public void resultsKeepTheOrderOfTheElements() {
+        BoundedMerge<String, String> merge = new BoundedMerge<>(1, element -> CompletableFuture.completedFuture(element.toUpperCase()));
+
+        Streams.from(Arrays.asList("a", "b", "c")).subscribe(merge);
+
+        assertThat(merge.whenDone().isDone(), is(true));
+        List<String> results = new ArrayList<>();
+        merge.getResults().forEach(result -> results.add(result.join()));
+        assertThat(results, is(Arrays.asList("A", "B", "C")));
+    }
+
+    @Test
+    public void whenMapperFailsThenTheOtherElementsAreStillMapped() {
+        BoundedMerge<String, String> merge = new BoundedMerge<>(1, element -> {
+            if ("b".equals(element)) {
+                throw new IllegalStateException("Failed mapping b");
+            }
+            return CompletableFuture.completedFuture(element);
+        });
+
+        Streams.from(Arrays.asList("a", "b", "c")).subscribe(merge);
+
+        assertThat(merge.whenDone().isDone(), is(true));
+        assertThat(merge.getResults().size(), is(3));
+        assertThat(merge.getResults().get(1).isCompletedExceptionally(), is(true));
+    }
+
+    @Test
+    public void whenCancelledThenNoMoreElementsAreStarted() {
+        List<CompletableFuture<String>> started = new ArrayList<>();
+        BoundedMerge<String, String> merge = new BoundedMerge<>(1, element -> {
+            CompletableFuture<String> result = new CompletableFuture<>();
+            started.add(result);
+            return result;
+        });
+        Streams.from(Arrays.asList("a", "b", "c")).subscribe(merge);
+
+        List<CompletableFuture<String>> results = merge.cancel();
+        started.get(0).complete("a");
+
+        assertThat(results.size(), is(1));
+        assertThat(started.size(), is(1));
+    }
+
+    @Test
+    public void whenPublisherIsEmptyThenDoneAtOnce() {
+        BoundedMerge<String, String> merge = new BoundedMerge<>(4, CompletableFuture::completedFuture);
+
+        Streams.from(new ArrayList<String>()).subscribe(merge);
+
+        assertThat(merge.whenDone().isDone(), is(true));
+        assertThat(merge.getResults().isEmpty(), is(true));
+    }
+}
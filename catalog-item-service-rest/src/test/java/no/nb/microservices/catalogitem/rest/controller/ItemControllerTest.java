@@ -1,11 +1,13 @@
 package no.nb.microservices.catalogitem.rest.controller;
 
+import no.nb.microservices.catalogitem.core.item.model.BulkItem;
 import no.nb.microservices.catalogitem.core.item.model.Item;
 import no.nb.microservices.catalogitem.core.item.model.Item.ItemBuilder;
 import no.nb.microservices.catalogitem.core.item.service.ItemService;
 import no.nb.microservices.catalogitem.core.search.model.SearchAggregated;
 import no.nb.microservices.catalogitem.core.search.model.SearchRequest;
 import no.nb.microservices.catalogitem.core.search.service.ISearchService;
+import no.nb.microservices.catalogitem.rest.model.BulkItemsResource;
 import no.nb.microservices.catalogitem.rest.model.ItemSearchResource;
 import no.nb.microservices.catalogmetadata.test.mods.v3.TestMods;
 import no.nb.microservices.catalogsearchindex.AggregationResource;
@@ -22,6 +24,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -30,6 +33,10 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
@@ -101,6 +108,55 @@ public class ItemControllerTest {
         assertEquals(2, result.getBody().getEmbedded().getAggregations().size());
     }
 
+    @Test
+    public void whenAggregationsThenReturnAggregationsWithoutItems() {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("TestSearch");
+        searchRequest.setAggs("ddc1, mediatype");
+
+        List<AggregationResource> aggregations = new ArrayList<>();
+        aggregations.add(new AggregationResource("ddc1"));
+        aggregations.add(new AggregationResource("mediatype"));
+
+        SearchAggregated searchResult = new SearchAggregated(new PageImpl<>(new ArrayList<>(), new PageRequest(0, 1), 100), aggregations, null, searchRequest);
+        when(searchService.aggregations(any(SearchRequest.class))).thenReturn(searchResult);
+
+        ResponseEntity<ItemSearchResource> result = controller.aggregations(searchRequest);
+
+        assertEquals(2, result.getBody().getEmbedded().getAggregations().size());
+        assertTrue(result.getBody().getEmbedded().getItems().isEmpty());
+        assertEquals(100, result.getBody().getMetadata().getTotalElements());
+        verify(searchService, never()).search(any(SearchRequest.class), any(Pageable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenStreamingSearchThenEveryItemIsALineBeforeThePage() throws Exception {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setQ("Supersonic");
+        PageRequest pageable = new PageRequest(0, 10);
+        List<Item> items = Arrays.asList(new Item.ItemBuilder("123").withItemResource(TestItemResource.aDefaultBook().build()).build(), new Item.ItemBuilder("456").withItemResource(TestItemResource.aDefaultBook().build()).build());
+        SearchAggregated searchResult = new SearchAggregated(new PageImpl<>(items, pageable, 100), null, null, searchRequest);
+        when(searchService.search(any(SearchRequest.class), any(Pageable.class), any(Consumer.class))).thenAnswer(invocation -> {
+            Consumer<Item> onItem = (Consumer<Item>) invocation.getArguments()[2];
+            onItem.accept(items.get(1));
+            onItem.accept(items.get(0));
+            return searchResult;
+        });
+        ObjectMapper objectMapper = new ObjectMapper();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new ItemController(searchService, itemService, objectMapper).searchStream(searchRequest, pageable, response);
+
+        String[] lines = response.getContentAsString().split("\n");
+        assertEquals("application/x-ndjson", response.getContentType().split(";")[0]);
+        assertEquals("Two items and the page", 3, lines.length);
+        assertEquals("456", objectMapper.readTree(lines[0]).get("id").asText());
+        assertEquals("123", objectMapper.readTree(lines[1]).get("id").asText());
+        JsonNode page = objectMapper.readTree(lines[2]).get("page");
+        assertEquals(100, page.get("totalElements").asInt());
+    }
+
     @Test
     public void whenSearchInFreeText() {
         SearchRequest searchRequest = new SearchRequest();
@@ -161,6 +217,22 @@ public class ItemControllerTest {
             .andExpect(status().is2xxSuccessful());
     }
 
+    @Test
+    public void whenBulkThenEveryIdHasAStatusInRequestOrder() throws Exception {
+        Item item = new ItemBuilder("id1").withItemResource(TestItemResource.aDefaultBook().build()).build();
+        when(itemService.getItemsByIds(Arrays.asList("id1", "missing"), null, "metadata"))
+                .thenReturn(Arrays.asList(BulkItem.ok("id1", item), BulkItem.notFound("missing")));
+
+        ResponseEntity<BulkItemsResource> result = controller.getItems(Arrays.asList("id1", "missing"), null, "metadata");
+
+        assertEquals(2, result.getBody().getItems().size());
+        assertEquals("OK", result.getBody().getItems().get(0).getStatus());
+        assertNotNull(result.getBody().getItems().get(0).getItem());
+        assertEquals("missing", result.getBody().getItems().get(1).getId());
+        assertEquals("NOT_FOUND", result.getBody().getItems().get(1).getStatus());
+        assertNull(result.getBody().getItems().get(1).getItem());
+    }
+
     @Test
     public void testRelatedItems() throws Exception {
         Item item = new ItemBuilder("id1")
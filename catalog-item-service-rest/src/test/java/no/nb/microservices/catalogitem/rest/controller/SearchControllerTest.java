@@ -7,6 +7,7 @@ import no.nb.microservices.catalogitem.core.search.model.SuperSearchAggregated;
 import no.nb.microservices.catalogitem.core.search.model.SuperSearchRequest;
 import no.nb.microservices.catalogitem.core.search.service.ISearchService;
 import no.nb.microservices.catalogitem.rest.model.ContentSearch;
+import no.nb.microservices.catalogitem.rest.model.ItemSearchResource;
 import no.nb.microservices.catalogitem.rest.model.SuperItemSearchResource;
 import no.nb.microservices.catalogsearchindex.TestItemResource;
 import org.junit.After;
@@ -21,14 +22,23 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.*;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -54,7 +64,7 @@ public class SearchControllerTest {
 
     @Before
     public void setup() {
-        searchController = new SearchController(searchService);
+        searchController = new SearchController(searchService, new ObjectMapper());
     }
 
     @Test
@@ -92,6 +102,51 @@ public class SearchControllerTest {
         assertThat(entity.getBody().getMetadata().getTotalElements(), is(5L));
     }
 
+    @Test
+    public void whenScrollThenReturnBatchWithNextLink() throws Exception {
+        when(searchService.scroll(eq("scroll1"), any())).thenReturn(getScrollBatch("scroll2", "id1", "id2"));
+
+        ResponseEntity<ItemSearchResource> entity = searchController.search("scroll1");
+
+        assertThat(entity.getBody().getEmbedded().getItems(), hasSize(2));
+        assertThat(entity.getBody().getLink("next").getHref().endsWith("/catalog/v1/scroll?scrollId=scroll2"), is(true));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void whenStreamingScrollThenWalkBatchesUntilAnEmptyOne() throws Exception {
+        when(searchService.scroll(any(String.class), any())).thenAnswer(invocation -> {
+            String scrollId = (String) invocation.getArguments()[0];
+            Consumer<Item> onItem = (Consumer<Item>) invocation.getArguments()[1];
+            SearchAggregated batch;
+            if ("scroll1".equals(scrollId)) {
+                batch = getScrollBatch("scroll2", "id1", "id2");
+            } else if ("scroll2".equals(scrollId)) {
+                batch = getScrollBatch("scroll3", "id3");
+            } else {
+                batch = getScrollBatch("scroll4");
+            }
+            batch.getPage().getContent().forEach(onItem);
+            return batch;
+        });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        searchController.scrollStream("scroll1", response);
+
+        String[] lines = response.getContentAsString().split("\\n");
+        assertEquals("Three items and the summary", 4, lines.length);
+        verify(searchService).scroll(eq("scroll3"), any());
+        verify(searchService, never()).scroll(eq("scroll4"), any());
+    }
+
+    private SearchAggregated getScrollBatch(String scrollId, String... ids) {
+        List<Item> items = new ArrayList<>();
+        for (String id : ids) {
+            items.add(new Item.ItemBuilder(id).withItemResource(TestItemResource.aDefaultBook().build()).build());
+        }
+        return new SearchAggregated(new PageImpl<>(items, new PageRequest(0, Math.max(1, items.size())), 100), Collections.emptyList(), scrollId, new SearchRequest());
+    }
+
     private SuperSearchAggregated getSuperSearchAggregated(SearchRequest searchRequest) {
         Page<Item> pageBooks = new PageImpl<>(Arrays.asList(
                 new Item.ItemBuilder("id1").withItemResource(TestItemResource.aDefaultBook().build()).build(),
@@ -0,0 +1,109 @@
+package no.nb.microservices.catalogitem.rest.controller.assembler;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriTemplate;
+
+/**
+ * The links of a page of 100 items behind a proxy, made with a URI
+ * template and builder per link as before, and with the base URI of the
+ * request resolved once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ItemLinksBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final ResourceTemplateLink[] TEMPLATES = {
+            ResourceTemplateLink.ITEM_SELF, ResourceTemplateLink.MODS, ResourceTemplateLink.PRESENTATION,
+            ResourceTemplateLink.ENW, ResourceTemplateLink.RIS, ResourceTemplateLink.WIKI,
+            ResourceTemplateLink.PLAYLIST };
+
+    private final String[] ids = new String[PAGE_SIZE];
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            ids[i] = "0b8b7e8a2c4f0a0e6c5a2f9d8e7b6a5" + i;
+        }
+        request = new MockHttpServletRequest("GET", "/catalog/v1/items");
+        request.addHeader("X-Forwarded-Host", "api.nb.no");
+        request.addHeader("X-Forwarded-Port", "443");
+        request.addHeader("X-Forwarded-Proto", "https");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    /**
+     * Every invocation is a new request as far as the links are concerned.
+     */
+    @Setup(Level.Invocation)
+    public void newRequest() {
+        request.clearAttributes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public void uriTemplatePerLink(Blackhole blackhole) {
+        for (String id : ids) {
+            for (ResourceTemplateLink template : TEMPLATES) {
+                URI uri = new UriTemplate(template.getTemplate()).expand(id);
+                blackhole.consume(new ResourceLinkBuilder(ResourceLinkBuilder.getBuilder()).slash(uri).withRel("rel"));
+            }
+        }
+    }
+
+    @Benchmark
+    public void linkBuilderPerLink(Blackhole blackhole) {
+        for (String id : ids) {
+            for (ResourceTemplateLink template : TEMPLATES) {
+                blackhole.consume(ResourceLinkBuilder.linkTo(template, id).withRel("rel"));
+            }
+        }
+    }
+
+    @Benchmark
+    public void baseUriPerRequest(Blackhole blackhole) {
+        for (String id : ids) {
+            ResourceLinks links = ResourceLinks.forCurrentRequest();
+            for (ResourceTemplateLink template : TEMPLATES) {
+                blackhole.consume(links.link(template, "rel", id));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemLinksBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
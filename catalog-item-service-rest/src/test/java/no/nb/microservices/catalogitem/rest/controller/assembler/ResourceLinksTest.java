@@ -0,0 +1,57 @@
+package no.nb.microservices.catalogitem.rest.controller.assembler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class ResourceLinksTest {
+
+    private MockHttpServletRequest request;
+
+    @Before
+    public void init() {
+        request = new MockHttpServletRequest("GET", "/catalog/v1/items");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @After
+    public void cleanUp() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void whenForwardedThenSameHrefAsLinkBuilder() {
+        request.addHeader("X-Forwarded-Host", "api.nb.no");
+        request.addHeader("X-Forwarded-Port", "8443");
+        request.addHeader("X-Forwarded-Proto", "https");
+
+        ResourceLinks links = ResourceLinks.forCurrentRequest();
+
+        for (ResourceTemplateLink template : ResourceTemplateLink.values()) {
+            if (template == ResourceTemplateLink.THUMBNAIL) {
+                continue;
+            }
+            Link expected = ResourceLinkBuilder.linkTo(template, "id1").withRel("rel");
+            assertEquals(expected, links.link(template, "rel", "id1"));
+        }
+    }
+
+    @Test
+    public void whenCalledTwiceInRequestThenBaseUriIsResolvedOnce() {
+        assertSame(ResourceLinks.forCurrentRequest(), ResourceLinks.forCurrentRequest());
+        assertEquals("http://localhost", ResourceLinks.forCurrentRequest().getBaseUri());
+    }
+
+    @Test
+    public void whenThumbnailThenVariablesAreFilledInOrder() {
+        assertEquals("http://www.nb.no/services/image/resolver/URN:NBN:no-nb_digibok_1/full/256,0/0/native.jpg",
+                ResourceTemplateLink.THUMBNAIL.expand("URN:NBN:no-nb_digibok_1", "256"));
+    }
+}